@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2024, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.openrefine.benchmark;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.univocity.parsers.csv.CsvParserSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.refine.importers.ParallelCsvReader;
+
+/**
+ * Measures how reading the rows of a generated CSV file with {@link ParallelCsvReader}, including the guessing of cell
+ * types, scales with the number of threads parsing it.
+ */
+public class CsvImportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({ "500000" })
+        public int rows;
+
+        @Param({ "1", "2", "4", "8" })
+        public int threads;
+
+        String csv;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random rnd = new Random(1234);
+            StringBuilder sb = new StringBuilder("id,name,price,quantity,description\r\n");
+            for (int r = 0; r < rows; r++) {
+                sb.append(r).append(',')
+                        .append("Name ").append(rnd.nextInt(10000)).append(',')
+                        .append(Math.round(rnd.nextDouble() * 100000) / 100.0).append(',')
+                        .append(rnd.nextInt(1000)).append(',')
+                        .append("\"Some longer text, with a \"\"quote\"\", in row ").append(r).append("\"\r\n");
+            }
+            csv = sb.toString();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgs = { "-Xmx4g" })
+    public void read(ExecutionPlan plan, Blackhole blackhole) throws Exception {
+        CsvParserSettings settings = new CsvParserSettings();
+        settings.getFormat().setDelimiter(',');
+        settings.getFormat().setLineSeparator("\n");
+        settings.setIgnoreLeadingWhitespaces(false);
+        settings.setIgnoreTrailingWhitespaces(false);
+        settings.setMaxCharsPerColumn(256 * 1024);
+        try (ParallelCsvReader reader = new ParallelCsvReader(new StringReader(plan.csv), settings, 1, false, true,
+                plan.threads, ParallelCsvReader.CHUNK_SIZE)) {
+            List<Object> cells;
+            while ((cells = reader.getNextRowOfCells()) != null) {
+                blackhole.consume(cells);
+            }
+        }
+    }
+}
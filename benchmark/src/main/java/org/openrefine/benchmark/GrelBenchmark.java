@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2024, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package org.openrefine.benchmark;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.grel.ExpressionCompiler;
+import com.google.refine.grel.Parser;
+import com.google.refine.model.Project;
+
+/**
+ * Compares the plain GREL interpreter with compiled GREL expressions, on expressions typical of text transforms.
+ */
+public class GrelBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({
+                "value.trim()",
+                "value.toLowercase().replace('-', ' ')",
+                "if(value.length() > 3, value.substring(0, 3), value)",
+                "value + ' (' + (value.length() * 2 + 1) + ')'",
+                "toNumber(value.trim().substring(0, 2)) * 100 / 3 + 1",
+                "value + ' ' + (60 * 60 * 24)"
+        })
+        public String expression;
+
+        @Param({ "interpreted", "compiled" })
+        public String tier;
+
+        Evaluable evaluable;
+        Properties bindings;
+        String[] values = new String[1024];
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            evaluable = new Parser(expression).getExpression();
+            if ("compiled".equals(tier)) {
+                evaluable = ExpressionCompiler.compile(evaluable);
+            }
+            bindings = ExpressionUtils.createBindings(new Project());
+            Random rnd = new Random(1234);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = " " + (10 + rnd.nextInt(90)) + "-Some-Value-" + rnd.nextInt(1000) + " ";
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void evaluate(ExecutionPlan plan, Blackhole blackhole) {
+        for (String value : plan.values) {
+            plan.bindings.put("value", value);
+            blackhole.consume(plan.evaluable.evaluate(plan.bindings));
+        }
+    }
+}
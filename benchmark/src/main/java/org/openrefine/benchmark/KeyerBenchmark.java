@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2024, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package org.openrefine.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.refine.clustering.binning.Keyer;
+import com.google.refine.clustering.binning.KeyerFactory;
+
+/**
+ * Measures the time taken by each of the keyers registered in {@link KeyerFactory} to key a cell value, on plain ASCII
+ * values and on values with accented letters.
+ */
+public class KeyerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({ "fingerprint", "ngram-fingerprint", "metaphone3", "cologne-phonetic" })
+        public String keyerName;
+
+        @Param({ "ascii", "accented" })
+        public String alphabet;
+
+        public Keyer keyer;
+        String[] values = new String[1024];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            keyer = KeyerFactory.get(keyerName);
+            String letters = "ascii".equals(alphabet) ? "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+                    : "abcdefghijklmnopqrstuvwxyzàéèêëîïôöùüçÀÉÈÊÇßæø";
+            Random rnd = new Random(1234);
+            for (int i = 0; i < values.length; i++) {
+                StringBuilder sb = new StringBuilder();
+                int words = 1 + rnd.nextInt(4);
+                for (int w = 0; w < words; w++) {
+                    if (w > 0) {
+                        sb.append(rnd.nextInt(4) == 0 ? ", " : " ");
+                    }
+                    int length = 2 + rnd.nextInt(9);
+                    for (int c = 0; c < length; c++) {
+                        sb.append(letters.charAt(rnd.nextInt(letters.length())));
+                    }
+                }
+                values[i] = sb.toString();
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void key(ExecutionPlan plan, Blackhole blackhole) {
+        for (String value : plan.values) {
+            blackhole.consume(plan.keyer.key(value));
+        }
+    }
+}
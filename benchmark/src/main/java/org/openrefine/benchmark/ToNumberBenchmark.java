@@ -46,6 +46,7 @@ import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
 import com.google.refine.expr.functions.ToNumber;
+import com.google.refine.importers.ImporterUtilities;
 
 public class ToNumberBenchmark {
 
@@ -91,4 +92,61 @@ public class ToNumberBenchmark {
         plan.args[0] = plan.testDataInt;
         blackhole.consume(plan.f.call(bindings, plan.args));
     }
+
+    /**
+     * Cell values as found in imported files: mostly text, mostly numbers, or a mix of both, as when guessing the types
+     * of the cells of a CSV file.
+     */
+    @State(Scope.Benchmark)
+    public static class ImportPlan {
+
+        @Param({ "text", "numbers", "mixed" })
+        public String cells;
+
+        public ToNumber f;
+        String[] values = new String[1024];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            f = new ToNumber();
+            Random rnd = new Random(1234);
+            for (int i = 0; i < values.length; i++) {
+                boolean number = "numbers".equals(cells) || ("mixed".equals(cells) && rnd.nextBoolean());
+                if (!number) {
+                    values[i] = rnd.nextBoolean() ? "Some text " + rnd.nextInt(1000)
+                            : "2024-0" + (1 + rnd.nextInt(9)) + "-1" + rnd.nextInt(10);
+                } else if (rnd.nextBoolean()) {
+                    values[i] = Integer.toString(rnd.nextInt(1000000));
+                } else {
+                    values[i] = Double.toString(Math.round(rnd.nextDouble() * 100000) / 100.0);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void parseCellValues(ImportPlan plan, Blackhole blackhole) {
+        for (String value : plan.values) {
+            blackhole.consume(ImporterUtilities.parseCellValue(value));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void toNumberOnCells(ImportPlan plan, Blackhole blackhole) {
+        Object[] args = new Object[1];
+        for (String value : plan.values) {
+            args[0] = value;
+            blackhole.consume(plan.f.call(bindings, args));
+        }
+    }
 }
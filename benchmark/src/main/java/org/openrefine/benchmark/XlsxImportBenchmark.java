@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (C) 2024, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.openrefine.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.refine.importers.XlsxWorkbookReader;
+
+/**
+ * Compares reading a generated .xlsx workbook row by row with {@link XlsxWorkbookReader}, as the Excel importer does,
+ * with loading it in memory as an {@link XSSFWorkbook} first. Besides the rows read per second, the peak heap usage of
+ * each iteration is reported, which is what limits the size of the workbooks which can be imported.
+ */
+public class XlsxImportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({ "10000", "200000" })
+        public int rows;
+
+        @Param({ "streaming", "dom" })
+        public String reader;
+
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = File.createTempFile("openrefine-benchmark", ".xlsx");
+            Random rnd = new Random(1234);
+            // with a shared strings table, as written by Excel
+            try (SXSSFWorkbook wb = new SXSSFWorkbook(null, 1000, true, true); OutputStream out = new FileOutputStream(file)) {
+                CellStyle dateStyle = wb.createCellStyle();
+                dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+                Sheet sheet = wb.createSheet("Data");
+                for (int r = 0; r < rows; r++) {
+                    Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue(r);
+                    row.createCell(1).setCellValue("Name " + rnd.nextInt(10000));
+                    row.createCell(2).setCellValue(rnd.nextDouble() * 1000);
+                    row.createCell(3).setCellValue(rnd.nextBoolean());
+                    Cell date = row.createCell(4);
+                    date.setCellValue(40000 + rnd.nextInt(5000) + rnd.nextDouble());
+                    date.setCellStyle(dateStyle);
+                    row.createCell(5).setCellValue("Some longer text in row " + r + " of the generated sheet");
+                }
+                wb.write(out);
+                wb.dispose();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    /**
+     * The rows read per second, and the peak heap usage in megabytes during the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public double rowsPerSecond;
+        public double peakHeapMB;
+
+        long rows;
+        long nanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+            nanos = 0;
+            rowsPerSecond = 0;
+            peakHeapMB = 0;
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+
+        void record(long rowCount, long elapsedNanos) {
+            rows += rowCount;
+            nanos += elapsedNanos;
+            rowsPerSecond = rows * 1e9 / nanos;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapMB = Math.max(peakHeapMB, peak / (1024.0 * 1024.0));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgs = { "-Xmx4g" })
+    public void read(ExecutionPlan plan, Counters counters, Blackhole blackhole) throws Exception {
+        long start = System.nanoTime();
+        long rows = 0;
+        if ("streaming".equals(plan.reader)) {
+            try (XlsxWorkbookReader workbook = new XlsxWorkbookReader(plan.file);
+                    XlsxWorkbookReader.SheetReader sheet = workbook.openSheet(0, false)) {
+                List<Object> cells;
+                while ((cells = sheet.getNextRowOfCells()) != null) {
+                    blackhole.consume(cells);
+                    rows++;
+                }
+            }
+        } else {
+            DataFormatter formatter = new DataFormatter();
+            try (XSSFWorkbook workbook = new XSSFWorkbook(plan.file)) {
+                for (Row row : workbook.getSheetAt(0)) {
+                    for (Cell cell : row) {
+                        blackhole.consume(formatter.formatCellValue(cell));
+                    }
+                    rows++;
+                }
+            }
+        }
+        counters.record(rows, System.nanoTime() - start);
+    }
+}
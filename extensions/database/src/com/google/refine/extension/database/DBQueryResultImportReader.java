@@ -41,6 +41,7 @@ import com.google.refine.extension.database.model.DatabaseQueryInfo;
 import com.google.refine.extension.database.model.DatabaseRow;
 import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
 import com.google.refine.importing.ImportingJob;
+import com.google.refine.util.NumberScanner;
 
 public class DBQueryResultImportReader implements TableDataReader {
 
@@ -60,6 +61,9 @@ public class DBQueryResultImportReader implements TableDataReader {
     private DatabaseQueryInfo dbQueryInfo;
     private int processedRows = 0;
     private static int progress = 0;
+    // read the results through a single cursor rather than by pages
+    private final boolean streaming;
+    private DatabaseCursor cursor = null;
 
     public DBQueryResultImportReader(
             ImportingJob job,
@@ -68,8 +72,26 @@ public class DBQueryResultImportReader implements TableDataReader {
             List<DatabaseColumn> columns,
             DatabaseQueryInfo dbQueryInfo,
             int batchSize) {
+        this(job, databaseService, querySource, columns, dbQueryInfo, batchSize, false);
+    }
+
+    /**
+     * @param batchSize
+     *            number of rows read per query, or fetched at a time from the cursor when streaming
+     * @param streaming
+     *            whether to read all rows through a single cursor, instead of running a LIMIT/OFFSET query per batch
+     */
+    public DBQueryResultImportReader(
+            ImportingJob job,
+            DatabaseService databaseService,
+            String querySource,
+            List<DatabaseColumn> columns,
+            DatabaseQueryInfo dbQueryInfo,
+            int batchSize,
+            boolean streaming) {
 
         this.job = job;
+        this.streaming = streaming;
         this.querySource = querySource;
         this.batchSize = batchSize;
         this.dbColumns = columns;
@@ -96,6 +118,10 @@ public class DBQueryResultImportReader implements TableDataReader {
                 return row;
             }
 
+            if (streaming) {
+                return getNextStreamedRowOfCells();
+            }
+
             if (rowsOfCells == null || (nextRow >= batchRowStart + rowsOfCells.size() && !end)) {
                 int newBatchRowStart = batchRowStart + (rowsOfCells == null ? 0 : rowsOfCells.size());
                 rowsOfCells = getRowsOfCells(newBatchRowStart);
@@ -134,12 +160,71 @@ public class DBQueryResultImportReader implements TableDataReader {
 
         } catch (DatabaseServiceException e) {
             logger.error("DatabaseServiceException::{}", e);
+            close();
             throw new IOException(e);
 
         }
 
     }
 
+    private List<Object> getNextStreamedRowOfCells() throws DatabaseServiceException {
+        if (end) {
+            return null;
+        }
+        if (cursor == null) {
+            cursor = databaseService.openCursor(dbQueryInfo.getDbConfig(), dbQueryInfo.getQuery(), batchSize);
+        }
+        if (!cursor.next()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("[[processedRows:{} ]]", processedRows);
+            }
+            end = true;
+            close();
+            return null;
+        }
+
+        int columnCount = Math.min(cursor.getColumnCount(), dbColumns.size());
+        List<Object> rowOfCells = new ArrayList<Object>(columnCount);
+        for (int j = 0; j < columnCount; j++) {
+            rowOfCells.add(toCellValue(cursor.getString(j), dbColumns.get(j)));
+        }
+        processedRows = cursor.getRowCount();
+        if (processedRows % batchSize == 0) {
+            job.setProgress(-1, "Reading " + querySource + " (" + processedRows + " rows)");
+        }
+        return rowOfCells;
+    }
+
+    /**
+     * Releases the cursor used to read the results, if any. Safe to call several times.
+     */
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    static Object toCellValue(String text, DatabaseColumn col) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        if (col.getType() == DatabaseColumnType.NUMBER) {
+            Long l = NumberScanner.parseLong(text);
+            if (l != null) {
+                return l;
+            }
+
+        } else if (col.getType() == DatabaseColumnType.DOUBLE || col.getType() == DatabaseColumnType.FLOAT) {
+            Double d = NumberScanner.parseDouble(text);
+            if (d != null && !d.isInfinite() && !d.isNaN()) {
+                return d;
+            }
+
+        }
+        return text;
+    }
+
     /**
      * @param startRow
      * @return
@@ -163,34 +248,7 @@ public class DBQueryResultImportReader implements TableDataReader {
                 List<Object> rowOfCells = new ArrayList<Object>(row.size());
 
                 for (int j = 0; j < row.size() && j < dbColumns.size(); j++) {
-
-                    String text = row.get(j);
-                    if (text == null || text.isEmpty()) {
-                        rowOfCells.add(null);
-                    } else {
-                        DatabaseColumn col = dbColumns.get(j);
-                        if (col.getType() == DatabaseColumnType.NUMBER) {
-                            try {
-                                rowOfCells.add(Long.parseLong(text));
-                                continue;
-                            } catch (NumberFormatException e) {
-                            }
-
-                        } else if (col.getType() == DatabaseColumnType.DOUBLE || col.getType() == DatabaseColumnType.FLOAT) {
-                            try {
-                                double d = Double.parseDouble(text);
-                                if (!Double.isInfinite(d) && !Double.isNaN(d)) {
-                                    rowOfCells.add(d);
-                                    continue;
-                                }
-                            } catch (NumberFormatException e) {
-                            }
-
-                        }
-
-                        rowOfCells.add(text);
-                    }
-
+                    rowOfCells.add(toCellValue(row.get(j), dbColumns.get(j)));
                 }
 
                 rowsOfCells.add(rowOfCells);
@@ -395,15 +395,21 @@ public class DatabaseImportController implements ImportingController {
 
         long startTime = System.currentTimeMillis();
 
-        TabularImportingParserBase.readTable(
-                project,
-                metadata,
-                job,
-                new DBQueryResultImportReader(job, databaseService, querySource, columns, dbQueryInfo, getCreateBatchSize()),
-                querySource,
-                limit,
-                options,
-                exceptions);
+        DBQueryResultImportReader reader = new DBQueryResultImportReader(job, databaseService, querySource, columns, dbQueryInfo,
+                getCreateBatchSize(), DatabaseModuleImpl.isImportStreaming());
+        try {
+            TabularImportingParserBase.readTable(
+                    project,
+                    metadata,
+                    job,
+                    reader,
+                    querySource,
+                    limit,
+                    options,
+                    exceptions);
+        } finally {
+            reader.close();
+        }
 
         long endTime = System.currentTimeMillis();
         if (logger.isDebugEnabled()) {
@@ -51,6 +51,7 @@ public class DatabaseModuleImpl extends ButterflyModuleImpl {
 
     private static String DEFAULT_CREATE_PROJ_BATCH_SIZE = "100";
     private static String DEFAULT_PREVIEW_BATCH_SIZE = "100";
+    private static String DEFAULT_CREATE_STREAMING = "true";
 
     @Override
     public void init(ServletConfig config)
@@ -73,6 +74,17 @@ public class DatabaseModuleImpl extends ButterflyModuleImpl {
         return extensionProperties.getProperty("create.batchSize", DEFAULT_CREATE_PROJ_BATCH_SIZE);
     }
 
+    /**
+     * Whether projects are created by reading the query results through a single cursor, rather than with one
+     * LIMIT/OFFSET query per batch.
+     */
+    public static boolean isImportStreaming() {
+        if (extensionProperties == null) {
+            return Boolean.parseBoolean(DEFAULT_CREATE_STREAMING);
+        }
+        return Boolean.parseBoolean(extensionProperties.getProperty("create.streaming", DEFAULT_CREATE_STREAMING));
+    }
+
     public static String getImportPreviewBatchSize() {
         if (extensionProperties == null) {
             return DEFAULT_PREVIEW_BATCH_SIZE;
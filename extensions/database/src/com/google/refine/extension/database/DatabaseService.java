@@ -30,6 +30,9 @@
 package com.google.refine.extension.database;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -111,6 +114,11 @@ public abstract class DatabaseService {
     // Database Service APIs
     public abstract Connection getConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException;
 
+    /**
+     * Opens a new connection, which is not shared with other queries and must be closed by the caller.
+     */
+    public abstract Connection openConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException;
+
     public abstract boolean testConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException;
 
     public abstract DatabaseInfo connect(DatabaseConfiguration dbConfig) throws DatabaseServiceException;
@@ -153,4 +161,43 @@ public abstract class DatabaseService {
 
     public abstract List<DatabaseRow> getRows(DatabaseConfiguration dbConfig, String query) throws DatabaseServiceException;
 
+    /**
+     * Executes a query through a single cursor. Its rows are fetched from the server in batches of fetchSize as they are
+     * read, rather than paging through the query with LIMIT and OFFSET, whose cost grows with the offset.
+     * 
+     * @param dbConfig
+     * @param query
+     * @param fetchSize
+     *            number of rows the driver should fetch at a time
+     * @return the cursor, which must be closed by the caller
+     * @throws DatabaseServiceException
+     */
+    public DatabaseCursor openCursor(DatabaseConfiguration dbConfig, String query, int fetchSize) throws DatabaseServiceException {
+        // streaming can tie up the connection until the cursor is closed, so other queries must not share it
+        Connection connection = openConnection(dbConfig);
+        try {
+            Statement statement = createCursorStatement(connection, fetchSize);
+            ResultSet resultSet = statement.executeQuery(query);
+            return new DatabaseCursor(connection, statement, resultSet);
+        } catch (SQLException e) {
+            logger.error("SQLException::", e);
+            try {
+                connection.close();
+            } catch (SQLException e2) {
+                logger.warn("Failed to close connection", e2);
+            }
+            throw new DatabaseServiceException(true, e.getSQLState(), e.getErrorCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a forward-only statement which makes the driver fetch results in batches of the given size, on a
+     * connection dedicated to the cursor. Drivers which need more than a fetch size to stream results override this.
+     */
+    protected Statement createCursorStatement(Connection connection, int fetchSize) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
 }
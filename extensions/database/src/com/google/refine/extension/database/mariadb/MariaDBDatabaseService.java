@@ -212,6 +212,11 @@ public class MariaDBDatabaseService extends DatabaseService {
         return MariaDBConnectionManager.getInstance().getConnection(dbConfig, true);
     }
 
+    @Override
+    public Connection openConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException {
+        return MariaDBConnectionManager.getInstance().openConnection(dbConfig);
+    }
+
     @Override
     public DatabaseInfo testQuery(DatabaseConfiguration dbConfig, String query)
             throws DatabaseServiceException {
@@ -129,6 +129,20 @@ public class MySQLConnectionManager {
                     return connection;
                 }
             }
+        } catch (SQLException e) {
+            logger.error("SQLException::Couldn't get a Connection!", e);
+            throw new DatabaseServiceException(true, e.getSQLState(), e.getErrorCode(), e.getMessage());
+        }
+
+        connection = openConnection(databaseConfiguration);
+        return connection;
+    }
+
+    /**
+     * Opens a new connection, which is not shared with other queries and must be closed by the caller.
+     */
+    public Connection openConnection(DatabaseConfiguration databaseConfiguration) throws DatabaseServiceException {
+        try {
             String dbURL = databaseConfiguration.toURI().toString();
             Class.forName(type.getClassPath());
 
@@ -136,14 +150,14 @@ public class MySQLConnectionManager {
 
             DriverManager.setLoginTimeout(10);
 
-            connection = DriverManager.getConnection(dbURL, databaseConfiguration.getDatabaseUser(),
+            Connection newConnection = DriverManager.getConnection(dbURL, databaseConfiguration.getDatabaseUser(),
                     databaseConfiguration.getDatabasePassword());
 
             if (logger.isDebugEnabled()) {
                 logger.debug("*** Acquired New  connection for ::{} **** ", dbURL);
             }
 
-            return connection;
+            return newConnection;
 
         } catch (ClassNotFoundException e) {
             logger.error("Jdbc Driver not found", e);
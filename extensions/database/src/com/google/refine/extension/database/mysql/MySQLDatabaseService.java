@@ -218,6 +218,17 @@ public class MySQLDatabaseService extends DatabaseService {
         }
     }
 
+    /**
+     * MySQL Connector/J loads all results in memory unless the fetch size is Integer.MIN_VALUE, which streams them row
+     * by row.
+     */
+    @Override
+    protected Statement createCursorStatement(Connection connection, int fetchSize) throws SQLException {
+        Statement statement = super.createCursorStatement(connection, fetchSize);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
     @Override
     protected String getDatabaseUrl(DatabaseConfiguration dbConfig) {
         int port = dbConfig.getDatabasePort();
@@ -232,6 +243,11 @@ public class MySQLDatabaseService extends DatabaseService {
         return MySQLConnectionManager.getInstance().getConnection(dbConfig, true);
     }
 
+    @Override
+    public Connection openConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException {
+        return MySQLConnectionManager.getInstance().openConnection(dbConfig);
+    }
+
     @Override
     public DatabaseInfo testQuery(DatabaseConfiguration dbConfig, String query)
             throws DatabaseServiceException {
@@ -214,6 +214,16 @@ public class PgSQLDatabaseService extends DatabaseService {
         }
     }
 
+    /**
+     * PostgreSQL only uses a server-side cursor, instead of loading all results in memory, outside of auto-commit mode.
+     * This only affects the connection of the cursor, which is closed with it.
+     */
+    @Override
+    protected Statement createCursorStatement(Connection connection, int fetchSize) throws SQLException {
+        connection.setAutoCommit(false);
+        return super.createCursorStatement(connection, fetchSize);
+    }
+
     @Override
     protected String getDatabaseUrl(DatabaseConfiguration dbConfig) {
         int port = dbConfig.getDatabasePort();
@@ -227,6 +237,11 @@ public class PgSQLDatabaseService extends DatabaseService {
         return PgSQLConnectionManager.getInstance().getConnection(dbConfig, true);
     }
 
+    @Override
+    public Connection openConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException {
+        return PgSQLConnectionManager.getInstance().openConnection(dbConfig);
+    }
+
     @Override
     public DatabaseInfo testQuery(DatabaseConfiguration dbConfig, String query)
             throws DatabaseServiceException {
@@ -118,14 +118,27 @@ public class SQLiteConnectionManager {
             if (connection != null) {
                 connection.close();
             }
+        } catch (SQLException e) {
+            logger.error("SQLException::Couldn't get a Connection!", e);
+            throw new DatabaseServiceException(true, e.getSQLState(), e.getErrorCode(), e.getMessage());
+        }
 
+        connection = openConnection(databaseConfiguration);
+        return connection;
+    }
+
+    /**
+     * Opens a new connection, which is not shared with other queries and must be closed by the caller.
+     */
+    public Connection openConnection(DatabaseConfiguration databaseConfiguration) throws DatabaseServiceException {
+        try {
             Class.forName(type.getClassPath());
             String dbURL = getDatabaseUrl(databaseConfiguration);
-            connection = DriverManager.getConnection(dbURL);
+            Connection newConnection = DriverManager.getConnection(dbURL);
 
             logger.debug("*** Acquired New  connection for ::{} **** ", dbURL);
 
-            return connection;
+            return newConnection;
         } catch (ClassNotFoundException e) {
             logger.error("Jdbc Driver not found", e);
             throw new DatabaseServiceException(e.getMessage());
@@ -69,6 +69,11 @@ public class SQLiteDatabaseService extends DatabaseService {
         return SQLiteConnectionManager.getInstance().getConnection(dbConfig);
     }
 
+    @Override
+    public Connection openConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException {
+        return SQLiteConnectionManager.getInstance().openConnection(dbConfig);
+    }
+
     @Override
     public boolean testConnection(DatabaseConfiguration dbConfig) throws DatabaseServiceException {
         return SQLiteConnectionManager.getInstance().testConnection(dbConfig);
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.extension.database;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.database.model.DatabaseColumn;
+import com.google.refine.extension.database.model.DatabaseQueryInfo;
+import com.google.refine.extension.database.sqlite.SQLiteDatabaseService;
+import com.google.refine.importing.ImportingJob;
+
+@Test(groups = { "requiresSQLite" })
+public class DBQueryResultImportReaderTest extends DBExtensionTests {
+
+    private static final String TABLE = "streaming_data";
+    private static final int ROW_COUNT = 2500;
+
+    private DatabaseConfiguration testDbConfig;
+    private DatabaseService databaseService;
+
+    @BeforeTest
+    @Parameters({ "sqliteDbName" })
+    public void beforeTest(@Optional(DEFAULT_SQLITE_DB_NAME) String sqliteDbName) throws DatabaseServiceException, SQLException {
+        testDbConfig = new DatabaseConfiguration();
+        testDbConfig.setDatabaseName(sqliteDbName);
+        testDbConfig.setDatabaseType(SQLiteDatabaseService.DB_NAME);
+        DatabaseService.DBType.registerDatabase(SQLiteDatabaseService.DB_NAME, SQLiteDatabaseService.getInstance());
+        databaseService = DatabaseService.get(SQLiteDatabaseService.DB_NAME);
+
+        Connection connection = databaseService.getConnection(testDbConfig);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + TABLE);
+            statement.executeUpdate("CREATE TABLE " + TABLE + " (ID BIGINT NOT NULL, NAME VARCHAR(20), SCORE DOUBLE)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE + " VALUES (?, ?, ?)")) {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, i % 10 == 0 ? null : "name " + i);
+                insert.setDouble(3, i / 4.0);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @AfterTest
+    @Parameters({ "sqliteDbName" })
+    public void afterTest(@Optional(DEFAULT_SQLITE_DB_NAME) String sqliteDbName) {
+        File f = new File(sqliteDbName);
+        if (f.exists()) {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testStreamingRead() throws DatabaseServiceException, IOException {
+        String query = "SELECT * FROM " + TABLE + " ORDER BY ID";
+        List<DatabaseColumn> columns = databaseService.getColumns(testDbConfig, query);
+        DBQueryResultImportReader reader = new DBQueryResultImportReader(mock(ImportingJob.class), databaseService, TABLE,
+                columns, new DatabaseQueryInfo(testDbConfig, query), 1000, true);
+
+        List<List<Object>> rows = new ArrayList<>();
+        List<Object> row;
+        while ((row = reader.getNextRowOfCells()) != null) {
+            rows.add(row);
+        }
+        reader.close();
+
+        Assert.assertEquals(rows.size(), ROW_COUNT + 1);
+        Assert.assertEquals(rows.get(0), Arrays.asList("ID", "NAME", "SCORE"));
+        Assert.assertEquals(rows.get(1), Arrays.asList(0L, null, 0.0));
+        Assert.assertEquals(rows.get(ROW_COUNT), Arrays.asList((long) ROW_COUNT - 1, "name " + (ROW_COUNT - 1), (ROW_COUNT - 1) / 4.0));
+        // reading again after the end does not reopen the cursor
+        Assert.assertNull(reader.getNextRowOfCells());
+    }
+
+    @Test
+    public void testOpenCursor() throws DatabaseServiceException {
+        try (DatabaseCursor cursor = databaseService.openCursor(testDbConfig, "SELECT NAME FROM " + TABLE + " WHERE ID < 3", 2)) {
+            Assert.assertEquals(cursor.getColumnCount(), 1);
+            List<String> names = new ArrayList<>();
+            while (cursor.next()) {
+                names.add(cursor.getString(0));
+            }
+            Assert.assertEquals(names, Arrays.asList(null, "name 1", "name 2"));
+            Assert.assertEquals(cursor.getRowCount(), 3);
+        }
+    }
+
+    @Test
+    public void testOtherQueriesWhileCursorIsOpen() throws DatabaseServiceException {
+        try (DatabaseCursor cursor = databaseService.openCursor(testDbConfig, "SELECT ID FROM " + TABLE + " ORDER BY ID", 2)) {
+            Assert.assertTrue(cursor.next());
+            // the cursor has its own connection, which other queries do not replace nor close
+            Assert.assertEquals(databaseService.getRows(testDbConfig, "SELECT ID FROM " + TABLE + " WHERE ID = 5").size(), 1);
+            int count = 1;
+            while (cursor.next()) {
+                count++;
+            }
+            Assert.assertEquals(count, ROW_COUNT);
+        }
+    }
+
+    @Test
+    public void testToCellValue() {
+        DatabaseColumn number = new DatabaseColumn("n", 10, DatabaseColumnType.NUMBER);
+        DatabaseColumn string = new DatabaseColumn("s", 10, DatabaseColumnType.STRING);
+        Assert.assertEquals(DBQueryResultImportReader.toCellValue("12", number), 12L);
+        Assert.assertEquals(DBQueryResultImportReader.toCellValue("1.5", number), "1.5");
+        Assert.assertEquals(DBQueryResultImportReader.toCellValue("12", string), "12");
+        Assert.assertNull(DBQueryResultImportReader.toCellValue("", string));
+    }
+}
@@ -36,19 +36,53 @@ import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.LookupException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Manage the cache of project's lookups.
+ * <p>
+ * Each lookup is computed once, even if several evaluations of cross() request it concurrently. Lookups are evicted in
+ * least recently used order once their estimated size exceeds {@link #MAX_BYTES}.
  *
  * @author Lu Liu
  */
 public class LookupCacheManager {
 
-    protected final Map<String, ProjectLookup> _lookups = new HashMap<>();
+    final static Logger logger = LoggerFactory.getLogger("LookupCacheManager");
 
     /**
-     * Computes the ProjectLookup based on combination key, returns the cached one from the HashMap if already computed.
+     * Upper bound on the estimated memory used by cached lookups, a quarter of the heap by default.
+     */
+    final static public long MAX_BYTES = Long.getLong("refine.lookupCache.maxBytes", Runtime.getRuntime().maxMemory() / 4);
+
+    // access-ordered, so that the eldest entry is the least recently used one
+    protected final Map<String, ProjectLookup> _lookups = new LinkedHashMap<>(16, 0.75f, true);
+    // lookups being computed, guarded by _lookups
+    protected final Map<String, CompletableFuture<ProjectLookup>> _pendingLookups = new HashMap<>();
+    protected final long _maxBytes;
+
+    // statistics, guarded by _lookups
+    protected long _bytes = 0;
+    protected long _hits = 0;
+    protected long _misses = 0;
+    protected long _evictions = 0;
+
+    public LookupCacheManager() {
+        this(MAX_BYTES);
+    }
+
+    public LookupCacheManager(long maxBytes) {
+        _maxBytes = maxBytes;
+    }
+
+    /**
+     * Computes the ProjectLookup based on combination key, returns the cached one if already computed. If another thread
+     * is computing the same lookup, waits for it instead of computing it again.
      *
      * @param targetProject
      *            the project to look up
@@ -58,16 +92,73 @@ public class LookupCacheManager {
      */
     public ProjectLookup getLookup(long targetProject, String targetColumn) throws LookupException {
         String key = targetProject + ";" + targetColumn;
-        if (!_lookups.containsKey(key)) {
-            ProjectLookup lookup = new ProjectLookup(targetProject, targetColumn);
-            computeLookup(lookup);
+        CompletableFuture<ProjectLookup> future;
+        boolean computing = false;
+        synchronized (_lookups) {
+            ProjectLookup lookup = _lookups.get(key);
+            if (lookup != null) {
+                _hits++;
+                return lookup;
+            }
+            future = _pendingLookups.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                _pendingLookups.put(key, future);
+                computing = true;
+                _misses++;
+            } else {
+                _hits++;
+            }
+        }
 
+        if (computing) {
+            ProjectLookup lookup = new ProjectLookup(targetProject, targetColumn);
+            try {
+                computeLookup(lookup);
+            } catch (LookupException | RuntimeException e) {
+                synchronized (_lookups) {
+                    _pendingLookups.remove(key, future);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
             synchronized (_lookups) {
-                _lookups.put(key, lookup);
+                // the lookup is not cached if it was flushed while being computed
+                if (_pendingLookups.remove(key, future)) {
+                    _lookups.put(key, lookup);
+                    _bytes += lookup.estimatedBytes;
+                    evict();
+                }
             }
+            future.complete(lookup);
+            return lookup;
         }
 
-        return _lookups.get(key);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LookupException("Interrupted while waiting for the lookup of column " + targetColumn);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LookupException) {
+                throw (LookupException) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Evicts the least recently used lookups until they fit in the memory budget. The most recent one is always kept.
+     */
+    protected void evict() {
+        Iterator<ProjectLookup> it = _lookups.values().iterator();
+        while (_bytes > _maxBytes && _lookups.size() > 1) {
+            ProjectLookup lookup = it.next();
+            it.remove();
+            _bytes -= lookup.estimatedBytes;
+            _evictions++;
+            logger.debug("Evicted lookup of column {} in project {}", lookup.targetColumnName, lookup.targetProjectID);
+        }
     }
 
     public void flushLookupsInvolvingProject(long projectID) {
@@ -77,8 +168,10 @@ public class LookupCacheManager {
                 ProjectLookup lookup = entry.getValue();
                 if (lookup.targetProjectID == projectID) {
                     it.remove();
+                    _bytes -= lookup.estimatedBytes;
                 }
             }
+            _pendingLookups.keySet().removeIf(key -> key.startsWith(projectID + ";"));
         }
     }
 
@@ -89,8 +182,43 @@ public class LookupCacheManager {
                 ProjectLookup lookup = entry.getValue();
                 if (lookup.targetProjectID == projectID && lookup.targetColumnName.equals(columnName)) {
                     it.remove();
+                    _bytes -= lookup.estimatedBytes;
                 }
             }
+            _pendingLookups.remove(projectID + ";" + columnName);
+        }
+    }
+
+    /**
+     * @return the number of requests served from the cache, or by waiting for a concurrent computation
+     */
+    public long getHitCount() {
+        synchronized (_lookups) {
+            return _hits;
+        }
+    }
+
+    /**
+     * @return the number of requests which had to compute the lookup
+     */
+    public long getMissCount() {
+        synchronized (_lookups) {
+            return _misses;
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized (_lookups) {
+            return _evictions;
+        }
+    }
+
+    /**
+     * @return the estimated memory used by the cached lookups, in bytes
+     */
+    public long getEstimatedBytes() {
+        synchronized (_lookups) {
+            return _bytes;
         }
     }
 
@@ -105,11 +233,9 @@ public class LookupCacheManager {
             return;
         }
 
-        // if this is a lookup on the index column
+        // if this is a lookup on the index column, row indices are resolved without any map
         if (lookup.targetColumnName.equals(Cross.INDEX_COLUMN_NAME)) {
-            for (int r = 0; r < targetProject.rows.size(); r++) {
-                lookup.valueToRowIndices.put(String.valueOf(r), Collections.singletonList(r));
-            }
+            lookup.indexRowCount = targetProject.rows.size();
             return; // return directly
         }
 
@@ -119,6 +245,8 @@ public class LookupCacheManager {
                     "Unable to find column " + lookup.targetColumnName + " in project " + targetProjectMetadata.getName());
         }
 
+        // Posting lists are grown in place: the first slot of each array holds the number of row indices in it
+        Map<String, int[]> postings = new HashMap<>();
         // We can't use for-each here, because we'll need the row index when creating WrappedRow
         int count = targetProject.rows.size();
         for (int r = 0; r < count; r++) {
@@ -126,32 +254,77 @@ public class LookupCacheManager {
             Object value = targetRow.getCellValue(targetColumn.getCellIndex());
             if (ExpressionUtils.isNonBlankData(value)) {
                 String valueStr = value.toString();
-                lookup.valueToRowIndices.putIfAbsent(valueStr, new ArrayList<>());
-                lookup.valueToRowIndices.get(valueStr).add(r);
+                int[] rowIndices = postings.get(valueStr);
+                if (rowIndices == null) {
+                    rowIndices = new int[2];
+                    postings.put(valueStr, rowIndices);
+                } else if (rowIndices[0] + 1 == rowIndices.length) {
+                    rowIndices = Arrays.copyOf(rowIndices, rowIndices.length * 2);
+                    postings.put(valueStr, rowIndices);
+                }
+                rowIndices[++rowIndices[0]] = r;
             }
         }
+
+        long bytes = ProjectLookup.BASE_BYTES;
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            int[] rowIndices = entry.getValue();
+            int[] trimmed = Arrays.copyOfRange(rowIndices, 1, rowIndices[0] + 1);
+            entry.setValue(trimmed);
+            bytes += ProjectLookup.ENTRY_BYTES + 4L * trimmed.length + 2L * entry.getKey().length();
+        }
+        lookup.valueToRowIndices = postings;
+        lookup.estimatedBytes = bytes;
     }
 
     static public class ProjectLookup {
 
+        // rough estimates of the memory used by a lookup, and by each of its distinct values: hash map node, key and
+        // array headers
+        final static long BASE_BYTES = 128;
+        final static long ENTRY_BYTES = 96;
+
         final public long targetProjectID;
         final public String targetColumnName;
 
-        final public Map<Object, List<Integer>> valueToRowIndices = new HashMap<>();
+        // row indices for each value, in increasing order
+        protected Map<String, int[]> valueToRowIndices = Collections.emptyMap();
+        // number of rows of the project when looking up the index column, -1 otherwise
+        protected int indexRowCount = -1;
+        protected long estimatedBytes = BASE_BYTES;
 
         ProjectLookup(long targetProjectID, String targetColumnName) {
             this.targetProjectID = targetProjectID;
             this.targetColumnName = targetColumnName;
         }
 
+        /**
+         * @return the indices of the rows containing the value, or null if there are none
+         */
+        public int[] getRowIndices(Object value) {
+            if (!ExpressionUtils.isNonBlankData(value)) return null;
+            String valueStr = value.toString();
+            if (indexRowCount >= 0) {
+                try {
+                    int r = Integer.parseInt(valueStr);
+                    if (r >= 0 && r < indexRowCount && String.valueOf(r).equals(valueStr)) {
+                        return new int[] { r };
+                    }
+                } catch (NumberFormatException e) {
+                    // not a row index
+                }
+                return null;
+            }
+            return valueToRowIndices.get(valueStr);
+        }
+
         public HasFieldsListImpl getRows(Object value) {
             HasFieldsListImpl rows = new HasFieldsListImpl();
-            if (!ExpressionUtils.isNonBlankData(value)) return rows;
-            String valueStr = value.toString();
-            if (valueToRowIndices.containsKey(valueStr)) {
+            int[] rowIndices = getRowIndices(value);
+            if (rowIndices != null) {
                 Project targetProject = ProjectManager.singleton.getProject(targetProjectID);
                 if (targetProject != null) {
-                    for (Integer r : valueToRowIndices.get(valueStr)) {
+                    for (int r : rowIndices) {
                         Row row = targetProject.rows.get(r);
                         rows.add(new WrappedRow(targetProject, r, row));
                     }
@@ -43,6 +43,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.slf4j.Logger;
@@ -57,6 +61,7 @@ import com.google.refine.history.HistoryEntryManager;
 import com.google.refine.model.Project;
 import com.google.refine.preference.PreferenceStore;
 import com.google.refine.preference.TopList;
+import com.google.refine.sorting.SortedRowsCache;
 import com.google.refine.util.ParsingUtilities;
 
 /**
@@ -75,6 +80,14 @@ public abstract class ProjectManager {
     // Don't spend more than this much time saving projects if doing a quick save
     static protected final Duration QUICK_SAVE_MAX_TIME = Duration.ofSeconds(30);
 
+    // Projects are evicted from memory, least recently used first, once their estimated size exceeds this budget
+    static public final long MAX_PROJECT_BYTES = Long.getLong("refine.projects.maxBytes",
+            Runtime.getRuntime().maxMemory() / 2);
+
+    // Projects accessed more recently than this are never evicted to enforce the memory budget
+    static protected final Duration PROJECT_EVICTION_MIN_IDLE = Duration.ofSeconds(
+            Long.getLong("refine.projects.eviction.minIdleSeconds", 60));
+
     protected Map<Long, ProjectMetadata> _projectsMetadata;
     protected Map<String, Integer> _projectsTags;// TagName, number of projects having that tag
     protected PreferenceStore _preferenceStore;
@@ -86,6 +99,11 @@ public abstract class ProjectManager {
      */
     transient protected LookupCacheManager _lookupCacheManager = new LookupCacheManager();
 
+    /**
+     * What caches the sorted orders of rows shown in the grid.
+     */
+    transient protected SortedRowsCache _sortedRowsCache = new SortedRowsCache();
+
     /**
      * Flag for heavy operations like creating or importing projects. Workspace saves are skipped while it's set.
      */
@@ -98,6 +116,39 @@ public abstract class ProjectManager {
      */
     transient protected Map<Long, Project> _projects;
 
+    /**
+     * Projects which are being loaded from the data store. Requests for one of them wait for its loading to complete
+     * instead of loading it again, while requests for other projects are served meanwhile.
+     */
+    transient protected Map<Long, ProjectLoading> _loadingProjects = new HashMap<Long, ProjectLoading>();
+
+    /**
+     * When each project in memory was last accessed, to evict the least recently used ones first.
+     */
+    transient protected Map<Long, Instant> _projectAccessTimes = new HashMap<Long, Instant>();
+
+    /**
+     * How many bytes the projects in memory are estimated to use at most before some of them get evicted.
+     */
+    transient protected long _maxProjectBytes = MAX_PROJECT_BYTES;
+
+    /**
+     * The loading of a project, shared by all the requests for it.
+     */
+    static protected class ProjectLoading {
+
+        final CompletableFuture<Project> future = new CompletableFuture<>();
+        final AtomicLong rowsLoaded = new AtomicLong();
+
+        int getProgress(int expectedRowCount) {
+            if (expectedRowCount <= 0) {
+                return 0;
+            }
+            // loading is not over until the history and overlay models have been read too
+            return (int) Math.min(99, rowsLoaded.get() * 100 / expectedRowCount);
+        }
+    }
+
     static public ProjectManager singleton;
 
     protected ProjectManager() {
@@ -133,6 +184,7 @@ public abstract class ProjectManager {
             // Row count is duplicated in metadata, so make sure it is up-to-date
             projectMetadata.setRowCount(project.rows.size());
             _projects.put(project.id, project);
+            _projectAccessTimes.put(project.id, Instant.now());
             _projectsMetadata.put(project.id, projectMetadata);
             if (_projectsTags == null)
                 _projectsTags = new HashMap<>();
@@ -165,6 +217,18 @@ public abstract class ProjectManager {
      */
     protected abstract Project loadProject(long id);
 
+    /**
+     * Load project from data store, reporting the progress of the loading.
+     * 
+     * @param id
+     * @param rowsLoaded
+     *            to be called with the number of rows read since its previous call, possibly from several threads
+     * @return project which was loaded, or null if not found
+     */
+    protected Project loadProject(long id, IntConsumer rowsLoaded) {
+        return loadProject(id);
+    }
+
     /**
      * Import project from a Refine archive
      * 
@@ -230,6 +294,16 @@ public abstract class ProjectManager {
      */
     protected abstract void saveProject(Project project) throws IOException;
 
+    /**
+     * Save project to the data store as a whole, for data stores which can otherwise save projects incrementally
+     * 
+     * @param project
+     * @throws IOException
+     */
+    protected void saveProjectInFull(Project project) throws IOException {
+        saveProject(project);
+    }
+
     /**
      * Save workspace and all projects to data store
      * 
@@ -313,7 +387,12 @@ public abstract class ProjectManager {
                     break;
                 }
                 try {
-                    saveProject(record.project);
+                    // when saving all modified projects (on shutdown for instance), compact incremental saves
+                    if (allModified) {
+                        saveProjectInFull(record.project);
+                    } else {
+                        saveProject(record.project);
+                    }
                 } catch (Exception e) {
                     logger.error("Error when saving projects. Attempting to free memory", e);
                     // In case we're running low on memory, free as much as we can
@@ -347,6 +426,14 @@ public abstract class ProjectManager {
         return _lookupCacheManager;
     }
 
+    /**
+     * Gets the cache of sorted row orders
+     */
+    @JsonIgnore
+    public SortedRowsCache getSortedRowsCache() {
+        return _sortedRowsCache;
+    }
+
     /**
      * Gets the project metadata from memory Requires that the metadata has already been loaded from the data store
      * 
@@ -507,16 +594,235 @@ public abstract class ProjectManager {
      * @return the project with the matching id, or null if it can't be found
      */
     public Project getProject(long id) {
+        ProjectLoading loading;
+        boolean loader = false;
         synchronized (this) {
-            if (_projects.containsKey(id)) {
-                return _projects.get(id);
-            } else {
-                Project project = loadProject(id);
-                if (project != null) {
+            Project project = _projects.get(id);
+            if (project != null) {
+                _projectAccessTimes.put(id, Instant.now());
+                return project;
+            }
+            loading = _loadingProjects.get(id);
+            if (loading == null) {
+                loading = new ProjectLoading();
+                _loadingProjects.put(id, loading);
+                loader = true;
+            }
+        }
+
+        if (!loader) {
+            try {
+                return loading.future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        // load without holding the lock, so that other projects can be accessed meanwhile
+        Project project;
+        try {
+            project = loadProject(id, loading.rowsLoaded::addAndGet);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                _loadingProjects.remove(id);
+            }
+            loading.future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            if (project != null) {
+                Project registered = _projects.get(id);
+                if (registered != null) {
+                    // the project was registered while it was being loaded
+                    project.dispose();
+                    project = registered;
+                } else {
                     _projects.put(id, project);
                 }
-                return project;
+                _projectAccessTimes.put(id, Instant.now());
+            }
+            _loadingProjects.remove(id);
+        }
+        loading.future.complete(project);
+        if (project != null) {
+            // loading the project may have pushed the projects in memory over budget
+            enforceMemoryBudget();
+        }
+        return project;
+    }
+
+    /**
+     * Estimates the memory used by each of the projects in memory.
+     * 
+     * @return the estimated number of bytes used by each project, by project id
+     */
+    @JsonIgnore
+    public Map<Long, Long> getProjectMemoryEstimates() {
+        List<Project> projects;
+        synchronized (this) {
+            projects = new ArrayList<>(_projects.values());
+        }
+        Map<Long, Long> estimates = new HashMap<>();
+        for (Project project : projects) {
+            estimates.put(project.id, project.estimateMemoryUsage());
+        }
+        return estimates;
+    }
+
+    /**
+     * Gets how many bytes of changes the history of each project in memory keeps loaded, which are included in
+     * {@link #getProjectMemoryEstimates()}.
+     * 
+     * @return the estimated number of bytes of changes in memory, by project id
+     */
+    @JsonIgnore
+    public Map<Long, Long> getResidentHistoryBytes() {
+        List<Project> projects;
+        synchronized (this) {
+            projects = new ArrayList<>(_projects.values());
+        }
+        Map<Long, Long> bytes = new HashMap<>();
+        for (Project project : projects) {
+            bytes.put(project.id, project.history.getResidentChangeBytes());
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets how many bytes the projects in memory are estimated to use at most before some of them get evicted.
+     */
+    @JsonIgnore
+    public long getMaxProjectBytes() {
+        return _maxProjectBytes;
+    }
+
+    /**
+     * Gets when a project was last accessed.
+     * 
+     * @return the time of the last access, or null if the project is not in memory
+     */
+    @JsonIgnore
+    public Instant getProjectAccessTime(long id) {
+        synchronized (this) {
+            return _projects.containsKey(id) ? _projectAccessTimes.get(id) : null;
+        }
+    }
+
+    /**
+     * Evicts the least recently used projects from memory until the projects left fit in the memory budget. Modified
+     * projects are saved before being evicted. Projects accessed recently or with pending processes are kept in memory,
+     * even if that means going over budget.
+     */
+    public void enforceMemoryBudget() {
+        Map<Long, Long> estimates = getProjectMemoryEstimates();
+        long total = estimates.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= _maxProjectBytes) {
+            return;
+        }
+
+        List<Project> candidates = new ArrayList<>();
+        Map<Long, Instant> accessTimes;
+        synchronized (this) {
+            _projectAccessTimes.keySet().retainAll(_projects.keySet());
+            accessTimes = new HashMap<>(_projectAccessTimes);
+            for (long id : estimates.keySet()) {
+                Project project = _projects.get(id);
+                if (project != null) {
+                    candidates.add(project);
+                }
+            }
+        }
+        candidates.sort((p1, p2) -> accessTimes.getOrDefault(p1.id, Instant.MIN)
+                .compareTo(accessTimes.getOrDefault(p2.id, Instant.MIN)));
+
+        Instant idleSince = Instant.now().minus(PROJECT_EVICTION_MIN_IDLE);
+        for (Project project : candidates) {
+            if (total <= _maxProjectBytes) {
+                break;
+            }
+            Instant accessTime = accessTimes.get(project.id);
+            if ((accessTime != null && accessTime.isAfter(idleSince)) || project.getProcessManager().hasPending()) {
+                continue;
+            }
+            if (evictProject(project, accessTime)) {
+                total -= estimates.get(project.id);
+            }
+        }
+        if (total > _maxProjectBytes) {
+            logger.warn("Projects in memory are estimated to use {} bytes, over the budget of {} bytes",
+                    total, _maxProjectBytes);
+        }
+    }
+
+    /**
+     * Removes a project from memory, saving it first if it has unsaved changes.
+     * 
+     * @param project
+     *            the project to evict
+     * @param accessTime
+     *            when the project was last accessed, to keep it if it has been accessed since
+     * @return whether the project was evicted
+     */
+    protected boolean evictProject(Project project, Instant accessTime) {
+        ProjectMetadata metadata = getProjectMetadata(project.id);
+        if (metadata != null && !project.getLastSave().isAfter(metadata.getModified())) {
+            try {
+                saveProject(project);
+            } catch (IOException e) {
+                logger.error("Failed to save project {} before evicting it from memory", project.id, e);
+                return false;
+            }
+        }
+        // holding the lock of the project prevents changes between checking it is saved and evicting it
+        synchronized (project) {
+            if (metadata != null && !project.getLastSave().isAfter(metadata.getModified())) {
+                // modified again while being saved
+                return false;
+            }
+            synchronized (this) {
+                if (_projects.get(project.id) != project
+                        || (accessTime != null && !accessTime.equals(_projectAccessTimes.get(project.id)))) {
+                    return false;
+                }
+                _projects.remove(project.id);
+                _projectAccessTimes.remove(project.id);
+            }
+        }
+        project.dispose();
+        logger.info("Evicted project {} from memory to stay within the memory budget", project.id);
+        return true;
+    }
+
+    /**
+     * Checks whether a project is in memory, without loading it.
+     */
+    public boolean isProjectLoaded(long id) {
+        synchronized (this) {
+            return _projects.containsKey(id);
+        }
+    }
+
+    /**
+     * Gets how far the loading of a project from the data store has gone.
+     * 
+     * @param id
+     *            the id of the project
+     * @return an estimate of the percentage of the project loaded so far, or -1 if the project is not being loaded
+     */
+    public int getProjectLoadingProgress(long id) {
+        synchronized (this) {
+            ProjectLoading loading = _loadingProjects.get(id);
+            if (loading == null) {
+                return -1;
             }
+            // the row count of the metadata is that of the project when it was last saved
+            ProjectMetadata metadata = _projectsMetadata.get(id);
+            return loading.getProgress(metadata == null ? 0 : metadata.getRowCount());
         }
     }
 
@@ -59,6 +59,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.refine.commands.Command;
 import com.google.refine.importing.ImportingManager;
 import com.google.refine.io.FileProjectManager;
+import com.google.refine.model.recon.ServiceResponseCache;
 
 import edu.mit.simile.butterfly.Butterfly;
 import edu.mit.simile.butterfly.ButterflyModule;
@@ -93,6 +94,7 @@ public class RefineServlet extends Butterfly {
         public void run() {
             try {
                 ProjectManager.singleton.save(false); // quick, potentially incomplete save
+                ProjectManager.singleton.enforceMemoryBudget();
             } catch (final Throwable e) {
                 // Not the best, but we REALLY want this to keep trying
             }
@@ -139,6 +141,7 @@ public class RefineServlet extends Butterfly {
         logger.error(data);
         s_dataDir = new File(data);
         FileProjectManager.initialize(s_dataDir);
+        ServiceResponseCache.initialize(getCacheDir("services"));
         ImportingManager.initialize(this);
 
         long AUTOSAVE_PERIOD = Long.parseLong(getInitParameter("refine.autosave"));
@@ -162,6 +165,7 @@ public class RefineServlet extends Butterfly {
             ProjectManager.singleton.dispose();
             ProjectManager.singleton = null;
         }
+        ServiceResponseCache.dispose();
 
         logger.trace("< destroy");
 
@@ -44,6 +44,7 @@ import com.google.refine.browsing.facets.Facet;
 import com.google.refine.browsing.util.ConjunctiveFilteredRecords;
 import com.google.refine.browsing.util.ConjunctiveFilteredRows;
 import com.google.refine.browsing.util.FilteredRecordsAsFilteredRows;
+import com.google.refine.browsing.util.ParallelFacetEvaluator;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 
@@ -64,6 +65,12 @@ public class Engine {
     public final static String MODE_ROW_BASED = "row-based";
     public final static String MODE_RECORD_BASED = "record-based";
 
+    /**
+     * Minimum number of rows (or records in record mode) from which facets are computed in parallel, if they all
+     * support it. Configurable with the refine.facets.parallel.minRows system property.
+     */
+    public final static int PARALLEL_FACETS_MIN_ROWS = Integer.getInteger("refine.facets.parallel.minRows", 100000);
+
     @JsonIgnore
     protected Project _project;
     @JsonProperty("facets")
@@ -88,6 +95,11 @@ public class Engine {
         return _config.getMode();
     }
 
+    @JsonIgnore
+    public EngineConfig getConfig() {
+        return _config;
+    }
+
     public void setMode(Mode mode) {
         _config = new EngineConfig(_config.getFacetConfigs(), mode);
     }
@@ -188,12 +200,24 @@ public class Engine {
 
     public void computeFacets() {
         if (_config.getMode().equals(Mode.RowBased)) {
+            int rowCount = _project.rows.size();
+            if (rowCount >= PARALLEL_FACETS_MIN_ROWS && _facets.size() > 0
+                    && new ParallelFacetEvaluator(_project, _facets, ParallelFacetEvaluator.getDefaultChunkSize(rowCount))
+                            .computeRowBasedChoices()) {
+                return;
+            }
             for (Facet facet : _facets) {
                 FilteredRows filteredRows = getFilteredRows(facet);
 
                 facet.computeChoices(_project, filteredRows);
             }
         } else if (_config.getMode().equals(Mode.RecordBased)) {
+            int recordCount = _project.recordModel.getRecordCount();
+            if (recordCount >= PARALLEL_FACETS_MIN_ROWS && _facets.size() > 0
+                    && new ParallelFacetEvaluator(_project, _facets, ParallelFacetEvaluator.getDefaultChunkSize(recordCount))
+                            .computeRecordBasedChoices()) {
+                return;
+            }
             for (Facet facet : _facets) {
                 FilteredRecords filteredRecords = getFilteredRecords(facet);
 
@@ -35,6 +35,8 @@ package com.google.refine.browsing.facets;
 
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordFilter;
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.model.Project;
@@ -51,4 +53,37 @@ public interface Facet {
     public void computeChoices(Project project, FilteredRows filteredRows);
 
     public void computeChoices(Project project, FilteredRecords filteredRecords);
+
+    /**
+     * Creates a visitor computing the choices of this facet in row mode, which can be used to compute them over
+     * multiple ranges of rows in parallel. Once all filtered rows have been visited, the visitor is passed back to
+     * {@link #applyRowAggregator(Project, MergeableRowVisitor)}.
+     * 
+     * @return the visitor, or null if the choices of this facet can only be computed sequentially (for instance
+     *         because its expression cannot be evaluated from multiple threads)
+     */
+    public default MergeableRowVisitor createRowAggregator(Project project) {
+        return null;
+    }
+
+    /**
+     * Stores the choices computed by a visitor obtained from {@link #createRowAggregator(Project)}.
+     */
+    public default void applyRowAggregator(Project project, MergeableRowVisitor aggregator) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Record-based counterpart of {@link #createRowAggregator(Project)}.
+     */
+    public default MergeableRecordVisitor createRecordAggregator(Project project) {
+        return null;
+    }
+
+    /**
+     * Stores the choices computed by a visitor obtained from {@link #createRecordAggregator(Project)}.
+     */
+    public default void applyRecordAggregator(Project project, MergeableRecordVisitor aggregator) {
+        throw new UnsupportedOperationException();
+    }
 }
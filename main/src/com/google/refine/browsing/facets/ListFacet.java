@@ -37,6 +37,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -46,6 +49,8 @@ import com.google.refine.ProjectManager;
 import com.google.refine.browsing.DecoratedValue;
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordFilter;
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.filters.AllRowsRecordFilter;
@@ -53,6 +58,7 @@ import com.google.refine.browsing.filters.AnyRowRecordFilter;
 import com.google.refine.browsing.filters.ExpressionEqualRowFilter;
 import com.google.refine.browsing.util.ExpressionNominalValueGrouper;
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
@@ -60,6 +66,8 @@ import com.google.refine.model.Project;
 
 public class ListFacet implements Facet {
 
+    final static Logger logger = LoggerFactory.getLogger("list_facet");
+
     public static final String ERR_TOO_MANY_CHOICES = "Too many choices";
 
     /**
@@ -276,7 +284,7 @@ public class ListFacet implements Facet {
                 _errorMessage != null ||
                 (_config.selection.size() == 0 && !_config.selectBlank && !_config.selectError) ? null
                         : new ExpressionEqualRowFilter(
-                                _eval,
+                                MemoizedEvaluable.memoize(_eval),
                                 _config.columnName,
                                 _cellIndex,
                                 createMatches(),
@@ -294,7 +302,7 @@ public class ListFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRows filteredRows) {
         if (_eval != null && _errorMessage == null) {
-            ExpressionNominalValueGrouper grouper = new ExpressionNominalValueGrouper(_eval, _config.columnName, _cellIndex);
+            ExpressionNominalValueGrouper grouper = new ExpressionNominalValueGrouper(MemoizedEvaluable.memoize(_eval), _config.columnName, _cellIndex);
 
             filteredRows.accept(project, grouper);
 
@@ -305,7 +313,7 @@ public class ListFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRecords filteredRecords) {
         if (_eval != null && _errorMessage == null) {
-            ExpressionNominalValueGrouper grouper = new ExpressionNominalValueGrouper(_eval, _config.columnName, _cellIndex);
+            ExpressionNominalValueGrouper grouper = new ExpressionNominalValueGrouper(MemoizedEvaluable.memoize(_eval), _config.columnName, _cellIndex);
 
             filteredRecords.accept(project, grouper);
 
@@ -313,7 +321,36 @@ public class ListFacet implements Facet {
         }
     }
 
+    @Override
+    public MergeableRowVisitor createRowAggregator(Project project) {
+        return createGrouper();
+    }
+
+    @Override
+    public void applyRowAggregator(Project project, MergeableRowVisitor aggregator) {
+        postProcessGrouper((ExpressionNominalValueGrouper) aggregator);
+    }
+
+    @Override
+    public MergeableRecordVisitor createRecordAggregator(Project project) {
+        return createGrouper();
+    }
+
+    @Override
+    public void applyRecordAggregator(Project project, MergeableRecordVisitor aggregator) {
+        postProcessGrouper((ExpressionNominalValueGrouper) aggregator);
+    }
+
+    protected ExpressionNominalValueGrouper createGrouper() {
+        if (_eval != null && _errorMessage == null && MetaParser.isThreadSafe(_config.expression)) {
+            return new ExpressionNominalValueGrouper(MemoizedEvaluable.memoize(_eval), _config.columnName, _cellIndex);
+        }
+        return null;
+    }
+
     protected void postProcessGrouper(ExpressionNominalValueGrouper grouper) {
+        MemoizedEvaluable.logHitRate(grouper.getEvaluable(), logger, "Facet " + _config.name);
+
         _choices.clear();
         _choices.addAll(grouper.choices.values());
 
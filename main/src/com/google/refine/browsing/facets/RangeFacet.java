@@ -40,6 +40,8 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordFilter;
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.filters.AnyRowRecordFilter;
@@ -311,19 +313,7 @@ public class RangeFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRows filteredRows) {
         if (_eval != null && _errorMessage == null) {
-            RowEvaluable rowEvaluable = getRowEvaluable(project);
-
-            Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
-            String key = "numeric-bin:row-based:" + _config._expression;
-            NumericBinIndex index = (NumericBinIndex) column.getPrecompute(key);
-            if (index == null) {
-                index = new NumericBinRowIndex(project, rowEvaluable);
-                column.setPrecompute(key, index);
-            }
-
-            retrieveDataFromBaseBinIndex(index);
-
-            ExpressionNumericValueBinner binner = new ExpressionNumericValueBinner(rowEvaluable, index);
+            ExpressionNumericValueBinner binner = createRowBinner(project);
 
             filteredRows.accept(project, binner);
             retrieveDataFromBinner(binner);
@@ -333,19 +323,7 @@ public class RangeFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRecords filteredRecords) {
         if (_eval != null && _errorMessage == null) {
-            RowEvaluable rowEvaluable = getRowEvaluable(project);
-
-            Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
-            String key = "numeric-bin:record-based:" + _config._expression;
-            NumericBinIndex index = (NumericBinIndex) column.getPrecompute(key);
-            if (index == null) {
-                index = new NumericBinRecordIndex(project, rowEvaluable);
-                column.setPrecompute(key, index);
-            }
-
-            retrieveDataFromBaseBinIndex(index);
-
-            ExpressionNumericValueBinner binner = new ExpressionNumericValueBinner(rowEvaluable, index);
+            ExpressionNumericValueBinner binner = createRecordBinner(project);
 
             filteredRecords.accept(project, binner);
 
@@ -353,6 +331,58 @@ public class RangeFacet implements Facet {
         }
     }
 
+    @Override
+    public MergeableRowVisitor createRowAggregator(Project project) {
+        if (_eval != null && _errorMessage == null && MetaParser.isThreadSafe(_config._expression)) {
+            return createRowBinner(project);
+        }
+        return null;
+    }
+
+    @Override
+    public void applyRowAggregator(Project project, MergeableRowVisitor aggregator) {
+        retrieveDataFromBinner((ExpressionNumericValueBinner) aggregator);
+    }
+
+    @Override
+    public MergeableRecordVisitor createRecordAggregator(Project project) {
+        if (_eval != null && _errorMessage == null && MetaParser.isThreadSafe(_config._expression)) {
+            return createRecordBinner(project);
+        }
+        return null;
+    }
+
+    @Override
+    public void applyRecordAggregator(Project project, MergeableRecordVisitor aggregator) {
+        retrieveDataFromBinner((ExpressionNumericValueBinner) aggregator);
+    }
+
+    protected ExpressionNumericValueBinner createRowBinner(Project project) {
+        RowEvaluable rowEvaluable = getRowEvaluable(project);
+
+        Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
+        String key = "numeric-bin:row-based:" + _config._expression;
+        NumericBinIndex index = (NumericBinIndex) column.computePrecomputeIfAbsent(key,
+                () -> new NumericBinRowIndex(project, rowEvaluable));
+
+        retrieveDataFromBaseBinIndex(index);
+
+        return new ExpressionNumericValueBinner(rowEvaluable, index);
+    }
+
+    protected ExpressionNumericValueBinner createRecordBinner(Project project) {
+        RowEvaluable rowEvaluable = getRowEvaluable(project);
+
+        Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
+        String key = "numeric-bin:record-based:" + _config._expression;
+        NumericBinIndex index = (NumericBinIndex) column.computePrecomputeIfAbsent(key,
+                () -> new NumericBinRecordIndex(project, rowEvaluable));
+
+        retrieveDataFromBaseBinIndex(index);
+
+        return new ExpressionNumericValueBinner(rowEvaluable, index);
+    }
+
     protected RowEvaluable getRowEvaluable(Project project) {
         return new ExpressionBasedRowEvaluable(_config._columnName, _cellIndex, _eval);
     }
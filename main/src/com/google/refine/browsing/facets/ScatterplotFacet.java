@@ -512,15 +512,10 @@ public class ScatterplotFacet implements Facet {
                 logger.warn("Error parsing expression", e);
             }
         }
-        NumericBinIndex index = (NumericBinIndex) column.getPrecompute(key);
-        if (index == null) {
-            index = "row-based".equals(mode)
-                    ? new NumericBinRowIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), eval))
-                    : new NumericBinRecordIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), eval));
-
-            column.setPrecompute(key, index);
-        }
-        return index;
+        Evaluable parsedEval = eval;
+        return (NumericBinIndex) column.computePrecomputeIfAbsent(key, () -> "row-based".equals(mode)
+                ? new NumericBinRowIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), parsedEval))
+                : new NumericBinRecordIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), parsedEval)));
     }
 
     private static double s_rotateScale = 1 / Math.sqrt(2.0);
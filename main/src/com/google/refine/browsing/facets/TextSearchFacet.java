@@ -38,6 +38,8 @@ import java.util.regex.Pattern;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordFilter;
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.filters.AnyRowRecordFilter;
@@ -46,6 +48,8 @@ import com.google.refine.expr.Evaluable;
 import com.google.refine.grel.ast.VariableExpr;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
+import com.google.refine.model.Record;
+import com.google.refine.model.Row;
 import com.google.refine.util.PatternSyntaxExceptionParser;
 
 public class TextSearchFacet implements Facet {
@@ -191,4 +195,66 @@ public class TextSearchFacet implements Facet {
     public void computeChoices(Project project, FilteredRecords filteredRecords) {
         // nothing to do
     }
+
+    @Override
+    public MergeableRowVisitor createRowAggregator(Project project) {
+        return new NoChoicesAggregator();
+    }
+
+    @Override
+    public void applyRowAggregator(Project project, MergeableRowVisitor aggregator) {
+        // nothing to do
+    }
+
+    @Override
+    public MergeableRecordVisitor createRecordAggregator(Project project) {
+        return new NoChoicesAggregator();
+    }
+
+    @Override
+    public void applyRecordAggregator(Project project, MergeableRecordVisitor aggregator) {
+        // nothing to do
+    }
+
+    /**
+     * Text search facets have no choices to compute: this visitor only lets them take part in the parallel computation
+     * of the other facets.
+     */
+    protected static class NoChoicesAggregator implements MergeableRowVisitor, MergeableRecordVisitor {
+
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            return false;
+        }
+
+        @Override
+        public boolean visit(Project project, Record record) {
+            return false;
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public NoChoicesAggregator fork() {
+            return this;
+        }
+
+        @Override
+        public void merge(MergeableRowVisitor other) {
+            // nothing to do
+        }
+
+        @Override
+        public void merge(MergeableRecordVisitor other) {
+            // nothing to do
+        }
+    }
 }
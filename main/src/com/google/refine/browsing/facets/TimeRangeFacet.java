@@ -39,6 +39,8 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordFilter;
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.filters.AnyRowRecordFilter;
@@ -264,19 +266,7 @@ public class TimeRangeFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRows filteredRows) {
         if (_eval != null && _errorMessage == null) {
-            RowEvaluable rowEvaluable = getRowEvaluable(project);
-
-            Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
-            String key = "time-bin:row-based:" + _config._expression;
-            TimeBinIndex index = (TimeBinIndex) column.getPrecompute(key);
-            if (index == null) {
-                index = new TimeBinRowIndex(project, rowEvaluable);
-                column.setPrecompute(key, index);
-            }
-
-            retrieveDataFromBaseBinIndex(index);
-
-            ExpressionTimeValueBinner binner = new ExpressionTimeValueBinner(rowEvaluable, index);
+            ExpressionTimeValueBinner binner = createRowBinner(project);
 
             filteredRows.accept(project, binner);
             retrieveDataFromBinner(binner);
@@ -286,19 +276,7 @@ public class TimeRangeFacet implements Facet {
     @Override
     public void computeChoices(Project project, FilteredRecords filteredRecords) {
         if (_eval != null && _errorMessage == null) {
-            RowEvaluable rowEvaluable = getRowEvaluable(project);
-
-            Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
-            String key = "time-bin:record-based:" + _config._expression;
-            TimeBinIndex index = (TimeBinIndex) column.getPrecompute(key);
-            if (index == null) {
-                index = new TimeBinRecordIndex(project, rowEvaluable);
-                column.setPrecompute(key, index);
-            }
-
-            retrieveDataFromBaseBinIndex(index);
-
-            ExpressionTimeValueBinner binner = new ExpressionTimeValueBinner(rowEvaluable, index);
+            ExpressionTimeValueBinner binner = createRecordBinner(project);
 
             filteredRecords.accept(project, binner);
 
@@ -340,6 +318,58 @@ public class TimeRangeFacet implements Facet {
         return rowFilter == null ? null : new AnyRowRecordFilter(rowFilter);
     }
 
+    @Override
+    public MergeableRowVisitor createRowAggregator(Project project) {
+        if (_eval != null && _errorMessage == null && MetaParser.isThreadSafe(_config._expression)) {
+            return createRowBinner(project);
+        }
+        return null;
+    }
+
+    @Override
+    public void applyRowAggregator(Project project, MergeableRowVisitor aggregator) {
+        retrieveDataFromBinner((ExpressionTimeValueBinner) aggregator);
+    }
+
+    @Override
+    public MergeableRecordVisitor createRecordAggregator(Project project) {
+        if (_eval != null && _errorMessage == null && MetaParser.isThreadSafe(_config._expression)) {
+            return createRecordBinner(project);
+        }
+        return null;
+    }
+
+    @Override
+    public void applyRecordAggregator(Project project, MergeableRecordVisitor aggregator) {
+        retrieveDataFromBinner((ExpressionTimeValueBinner) aggregator);
+    }
+
+    protected ExpressionTimeValueBinner createRowBinner(Project project) {
+        RowEvaluable rowEvaluable = getRowEvaluable(project);
+
+        Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
+        String key = "time-bin:row-based:" + _config._expression;
+        TimeBinIndex index = (TimeBinIndex) column.computePrecomputeIfAbsent(key,
+                () -> new TimeBinRowIndex(project, rowEvaluable));
+
+        retrieveDataFromBaseBinIndex(index);
+
+        return new ExpressionTimeValueBinner(rowEvaluable, index);
+    }
+
+    protected ExpressionTimeValueBinner createRecordBinner(Project project) {
+        RowEvaluable rowEvaluable = getRowEvaluable(project);
+
+        Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
+        String key = "time-bin:record-based:" + _config._expression;
+        TimeBinIndex index = (TimeBinIndex) column.computePrecomputeIfAbsent(key,
+                () -> new TimeBinRecordIndex(project, rowEvaluable));
+
+        retrieveDataFromBaseBinIndex(index);
+
+        return new ExpressionTimeValueBinner(rowEvaluable, index);
+    }
+
     protected RowEvaluable getRowEvaluable(Project project) {
         return new ExpressionBasedRowEvaluable(_config._columnName, _cellIndex, _eval);
     }
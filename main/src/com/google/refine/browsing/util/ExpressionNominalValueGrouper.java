@@ -41,8 +41,8 @@ import java.util.Map;
 import java.util.Properties;
 
 import com.google.refine.browsing.DecoratedValue;
-import com.google.refine.browsing.RecordVisitor;
-import com.google.refine.browsing.RowVisitor;
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.facets.NominalFacetChoice;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
@@ -55,7 +55,7 @@ import com.google.refine.util.StringUtils;
 /**
  * Visit matched rows or records and group them into facet choices based on the values computed from a given expression.
  */
-public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor {
+public class ExpressionNominalValueGrouper implements MergeableRowVisitor, MergeableRecordVisitor {
 
     static public class IndexedNominalFacetChoice extends NominalFacetChoice {
 
@@ -93,6 +93,10 @@ public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor
         _cellIndex = cellIndex;
     }
 
+    public Evaluable getEvaluable() {
+        return _evaluable;
+    }
+
     @Override
     public void start(Project project) {
         // nothing to do
@@ -103,6 +107,35 @@ public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor
         // nothing to do
     }
 
+    @Override
+    public ExpressionNominalValueGrouper fork() {
+        return new ExpressionNominalValueGrouper(_evaluable, _columnName, _cellIndex);
+    }
+
+    @Override
+    public void merge(MergeableRowVisitor other) {
+        mergeGrouper((ExpressionNominalValueGrouper) other);
+    }
+
+    @Override
+    public void merge(MergeableRecordVisitor other) {
+        mergeGrouper((ExpressionNominalValueGrouper) other);
+    }
+
+    protected void mergeGrouper(ExpressionNominalValueGrouper other) {
+        for (Map.Entry<Object, IndexedNominalFacetChoice> entry : other.choices.entrySet()) {
+            IndexedNominalFacetChoice choice = choices.get(entry.getKey());
+            if (choice != null) {
+                choice.count += entry.getValue().count;
+                choice._latestIndex = Math.max(choice._latestIndex, entry.getValue()._latestIndex);
+            } else {
+                choices.put(entry.getKey(), entry.getValue());
+            }
+        }
+        blankCount += other.blankCount;
+        errorCount += other.errorCount;
+    }
+
     @Override
     public boolean visit(Project project, int rowIndex, Row row) {
         hasError = false;
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.refine.browsing.MergeableRecordVisitor;
+import com.google.refine.browsing.MergeableRowVisitor;
+import com.google.refine.browsing.RecordFilter;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.facets.Facet;
+import com.google.refine.model.Project;
+import com.google.refine.model.Record;
+import com.google.refine.model.Row;
+
+/**
+ * Computes the choices of all facets of an engine in a single pass over the rows (or records) of a project, split into
+ * chunks which are processed in parallel.
+ * <p>
+ * For each row, the filters of all facets are evaluated once. The row is then visited by the aggregators of all facets
+ * if it matches all filters, or only by the aggregator of the facet whose filter rejected it if there is exactly one
+ * such facet. This is equivalent to visiting, for each facet, the rows matching the filters of all other facets. The
+ * aggregators obtained for each chunk are then merged in row order.
+ */
+public class ParallelFacetEvaluator {
+
+    /**
+     * Minimum number of rows (or records) in a chunk, to keep the scheduling overhead low.
+     */
+    static final public int MIN_CHUNK_SIZE = 4096;
+
+    final protected Project _project;
+    final protected List<Facet> _facets;
+    final protected int _chunkSize;
+
+    public ParallelFacetEvaluator(Project project, List<Facet> facets, int chunkSize) {
+        _project = project;
+        _facets = facets;
+        _chunkSize = chunkSize;
+    }
+
+    /**
+     * Picks a chunk size giving each worker thread a few chunks to process, to balance the load between them.
+     * 
+     * @param count
+     *            the number of rows or records to visit
+     */
+    static public int getDefaultChunkSize(int count) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        return Math.max(MIN_CHUNK_SIZE, (count + 4 * parallelism - 1) / (4 * parallelism));
+    }
+
+    /**
+     * Computes the choices of the facets in row mode.
+     * 
+     * @return false if some facet does not support parallel computation, in which case no choices were computed
+     */
+    public boolean computeRowBasedChoices() {
+        int facetCount = _facets.size();
+        List<MergeableRowVisitor> aggregators = new ArrayList<>(facetCount);
+        List<RowFilter> filters = new ArrayList<>(facetCount);
+        for (Facet facet : _facets) {
+            MergeableRowVisitor aggregator = facet.createRowAggregator(_project);
+            if (aggregator == null) {
+                return false;
+            }
+            aggregators.add(aggregator);
+            filters.add(facet.getRowFilter(_project));
+        }
+
+        int rowCount = _project.rows.size();
+        int chunkCount = (rowCount + _chunkSize - 1) / _chunkSize;
+        List<List<MergeableRowVisitor>> chunkResults = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> visitRows(aggregators, filters, chunk * _chunkSize,
+                        Math.min(rowCount, (chunk + 1) * _chunkSize)))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < facetCount; i++) {
+            MergeableRowVisitor aggregator = aggregators.get(i);
+            aggregator.start(_project);
+            for (List<MergeableRowVisitor> chunkResult : chunkResults) {
+                aggregator.merge(chunkResult.get(i));
+            }
+            aggregator.end(_project);
+            _facets.get(i).applyRowAggregator(_project, aggregator);
+        }
+        return true;
+    }
+
+    /**
+     * Computes the choices of the facets in record mode.
+     * 
+     * @return false if some facet does not support parallel computation, in which case no choices were computed
+     */
+    public boolean computeRecordBasedChoices() {
+        int facetCount = _facets.size();
+        List<MergeableRecordVisitor> aggregators = new ArrayList<>(facetCount);
+        List<RecordFilter> filters = new ArrayList<>(facetCount);
+        for (Facet facet : _facets) {
+            MergeableRecordVisitor aggregator = facet.createRecordAggregator(_project);
+            if (aggregator == null) {
+                return false;
+            }
+            aggregators.add(aggregator);
+            filters.add(facet.getRecordFilter(_project));
+        }
+
+        int recordCount = _project.recordModel.getRecordCount();
+        int chunkCount = (recordCount + _chunkSize - 1) / _chunkSize;
+        List<List<MergeableRecordVisitor>> chunkResults = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> visitRecords(aggregators, filters, chunk * _chunkSize,
+                        Math.min(recordCount, (chunk + 1) * _chunkSize)))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < facetCount; i++) {
+            MergeableRecordVisitor aggregator = aggregators.get(i);
+            aggregator.start(_project);
+            for (List<MergeableRecordVisitor> chunkResult : chunkResults) {
+                aggregator.merge(chunkResult.get(i));
+            }
+            aggregator.end(_project);
+            _facets.get(i).applyRecordAggregator(_project, aggregator);
+        }
+        return true;
+    }
+
+    protected List<MergeableRowVisitor> visitRows(
+            List<MergeableRowVisitor> aggregators, List<RowFilter> filters, int fromRowIndex, int toRowIndex) {
+        int facetCount = aggregators.size();
+        List<MergeableRowVisitor> forks = new ArrayList<>(facetCount);
+        for (MergeableRowVisitor aggregator : aggregators) {
+            MergeableRowVisitor fork = aggregator.fork();
+            fork.start(_project);
+            forks.add(fork);
+        }
+
+        for (int rowIndex = fromRowIndex; rowIndex < toRowIndex; rowIndex++) {
+            Row row = _project.rows.get(rowIndex);
+
+            int rejectingFacet = -1;
+            int rejections = 0;
+            for (int i = 0; i < facetCount && rejections < 2; i++) {
+                RowFilter filter = filters.get(i);
+                if (filter != null && !filter.filterRow(_project, rowIndex, row)) {
+                    rejectingFacet = i;
+                    rejections++;
+                }
+            }
+
+            if (rejections == 0) {
+                for (MergeableRowVisitor fork : forks) {
+                    fork.visit(_project, rowIndex, row);
+                }
+            } else if (rejections == 1) {
+                forks.get(rejectingFacet).visit(_project, rowIndex, row);
+            }
+        }
+
+        for (MergeableRowVisitor fork : forks) {
+            fork.end(_project);
+        }
+        return forks;
+    }
+
+    protected List<MergeableRecordVisitor> visitRecords(
+            List<MergeableRecordVisitor> aggregators, List<RecordFilter> filters, int fromRecordIndex, int toRecordIndex) {
+        int facetCount = aggregators.size();
+        List<MergeableRecordVisitor> forks = new ArrayList<>(facetCount);
+        for (MergeableRecordVisitor aggregator : aggregators) {
+            MergeableRecordVisitor fork = aggregator.fork();
+            fork.start(_project);
+            forks.add(fork);
+        }
+
+        for (int recordIndex = fromRecordIndex; recordIndex < toRecordIndex; recordIndex++) {
+            Record record = _project.recordModel.getRecord(recordIndex);
+
+            int rejectingFacet = -1;
+            int rejections = 0;
+            for (int i = 0; i < facetCount && rejections < 2; i++) {
+                RecordFilter filter = filters.get(i);
+                if (filter != null && !filter.filterRecord(_project, record)) {
+                    rejectingFacet = i;
+                    rejections++;
+                }
+            }
+
+            if (rejections == 0) {
+                for (MergeableRecordVisitor fork : forks) {
+                    fork.visit(_project, record);
+                }
+            } else if (rejections == 1) {
+                forks.get(rejectingFacet).visit(_project, record);
+            }
+        }
+
+        for (MergeableRecordVisitor fork : forks) {
+            fork.end(_project);
+        }
+        return forks;
+    }
+}
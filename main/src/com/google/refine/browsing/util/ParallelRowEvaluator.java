@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Visits the filtered rows of a project with row visitors producing results for each row, such as the cell changes of
+ * an operation. The rows are split into chunks which are visited in parallel, each by its own visitor, and the results
+ * of the chunks are then gathered in row order.
+ * <p>
+ * Visitors used in parallel must not depend on the rows visited before, nor stop the visit early. Visitors evaluating
+ * an expression should do so with their own bindings.
+ */
+public class ParallelRowEvaluator {
+
+    /**
+     * Minimum number of filtered rows for the rows to be visited in parallel.
+     */
+    static final public int MIN_PARALLEL_ROWS = Integer.getInteger("refine.operations.parallel.minRows", 10000);
+
+    /**
+     * Creates row visitors adding their results to a list.
+     */
+    public interface RowVisitorFactory<T> {
+
+        public RowVisitor create(List<T> results) throws Exception;
+    }
+
+    /**
+     * Visits the filtered rows of a project, in parallel if possible.
+     * 
+     * @param parallel
+     *            whether the visitors created by the factory can visit chunks of rows in parallel
+     * @param results
+     *            the list to which the results are added, in row order
+     */
+    static public <T> void visit(Project project, FilteredRows filteredRows, boolean parallel,
+            RowVisitorFactory<T> factory, List<T> results) throws Exception {
+        if (!parallel) {
+            filteredRows.accept(project, factory.create(results));
+            return;
+        }
+
+        int[] rowIndices = getRowIndices(project, filteredRows);
+        if (rowIndices.length < MIN_PARALLEL_ROWS) {
+            visitRows(project, factory.create(results), rowIndices, 0, rowIndices.length);
+            return;
+        }
+
+        visitInChunks(project, rowIndices, ParallelFacetEvaluator.getDefaultChunkSize(rowIndices.length), factory, results);
+    }
+
+    /**
+     * Visits the given rows in parallel, in chunks of the given size.
+     */
+    static public <T> void visitInChunks(Project project, int[] rowIndices, int chunkSize,
+            RowVisitorFactory<T> factory, List<T> results) throws Exception {
+        int chunkCount = (rowIndices.length + chunkSize - 1) / chunkSize;
+        List<List<T>> chunkResults = new ArrayList<>(chunkCount);
+        List<RowVisitor> visitors = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            List<T> chunkResult = new ArrayList<>();
+            chunkResults.add(chunkResult);
+            visitors.add(factory.create(chunkResult));
+        }
+
+        IntStream.range(0, chunkCount)
+                .parallel()
+                .forEach(chunk -> visitRows(project, visitors.get(chunk), rowIndices, chunk * chunkSize,
+                        Math.min(rowIndices.length, (chunk + 1) * chunkSize)));
+
+        for (List<T> chunkResult : chunkResults) {
+            results.addAll(chunkResult);
+        }
+    }
+
+    static public int[] getRowIndices(Project project, FilteredRows filteredRows) {
+        RowIndexCollector collector = new RowIndexCollector();
+        filteredRows.accept(project, collector);
+        return Arrays.copyOf(collector.indices, collector.size);
+    }
+
+    static protected void visitRows(Project project, RowVisitor visitor, int[] rowIndices, int from, int to) {
+        visitor.start(project);
+        for (int i = from; i < to; i++) {
+            int rowIndex = rowIndices[i];
+            if (visitor.visit(project, rowIndex, project.rows.get(rowIndex))) {
+                break;
+            }
+        }
+        visitor.end(project);
+    }
+
+    static private class RowIndexCollector implements RowVisitor {
+
+        int[] indices = new int[1024];
+        int size = 0;
+
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = rowIndex;
+            return false;
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
+    }
+}
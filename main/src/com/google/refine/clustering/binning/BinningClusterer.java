@@ -43,6 +43,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -126,6 +127,11 @@ public class BinningClusterer extends Clusterer {
 
     final static Logger logger = LoggerFactory.getLogger("binning_clusterer");
 
+    /**
+     * Number of distinct values from which keys are computed in parallel, for keyers which support it.
+     */
+    final static public int PARALLEL_MIN_VALUES = Integer.getInteger("refine.clustering.binning.parallel.minValues", 10000);
+
     List<Map<String, Integer>> _clusters;
 
     class BinningRowVisitor implements RowVisitor {
@@ -134,7 +140,11 @@ public class BinningClusterer extends Clusterer {
         Object[] _params;
         BinningParameters _parameters;
 
-        Map<String, Map<String, Integer>> _map = new HashMap<String, Map<String, Integer>>();
+        /**
+         * Occurrences of each distinct value. Keys are only computed once per distinct value, after all rows have been
+         * visited, since columns worth clustering usually contain many repeated values.
+         */
+        Map<String, Integer> _counts = new HashMap<String, Integer>();
 
         public BinningRowVisitor(Keyer k, BinningParameters parameters) {
             _keyer = k;
@@ -163,25 +173,25 @@ public class BinningClusterer extends Clusterer {
             if (cell != null && cell.value != null) {
                 Object v = cell.value;
                 String s = (v instanceof String) ? ((String) v) : v.toString();
-                String key = _keyer.key(s, _params);
-                if (_map.containsKey(key)) {
-                    Map<String, Integer> m = _map.get(key);
-                    if (m.containsKey(s)) {
-                        m.put(s, m.get(s) + 1);
-                    } else {
-                        m.put(s, 1);
-                    }
-                } else {
-                    Map<String, Integer> m = new TreeMap<String, Integer>();
-                    m.put(s, 1);
-                    _map.put(key, m);
-                }
+                _counts.merge(s, 1, Integer::sum);
             }
             return false;
         }
 
         public Map<String, Map<String, Integer>> getMap() {
-            return _map;
+            String[] values = _counts.keySet().toArray(new String[0]);
+            String[] keys = new String[values.length];
+            IntStream indices = IntStream.range(0, values.length);
+            if (_keyer.isThreadSafe() && values.length >= PARALLEL_MIN_VALUES) {
+                indices = indices.parallel();
+            }
+            indices.forEach(i -> keys[i] = _keyer.key(values[i], _params));
+
+            Map<String, Map<String, Integer>> map = new HashMap<String, Map<String, Integer>>();
+            for (int i = 0; i < values.length; i++) {
+                map.computeIfAbsent(keys[i], k -> new TreeMap<String, Integer>()).put(values[i], _counts.get(values[i]));
+            }
+            return map;
         }
     }
 
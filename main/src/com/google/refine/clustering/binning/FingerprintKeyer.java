@@ -34,8 +34,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.clustering.binning;
 
 import java.text.Normalizer;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableMap;
@@ -87,12 +87,65 @@ public class FingerprintKeyer extends Keyer {
             .put("ẝ", "s")
             .build();
 
+    // Markers used in the ASCII translation tables below
+    private static final char REMOVED = '\uFFFF';
+    private static final char UNMAPPED = '\uFFFE';
+
+    /*
+     * Per-character translations of the ASCII range, derived from the general normalization code at class
+     * initialization so that both paths always agree. Within ASCII all the steps of the normalization act on
+     * individual characters, so a string made of ASCII characters only can be translated with a single table lookup
+     * per character instead of going through Unicode normalization and three regular expressions.
+     */
+    private static final char[] ASCII_STRONG = asciiTable(true);
+    private static final char[] ASCII_WEAK = asciiTable(false);
+    private static final boolean[] ASCII_WHITESPACE = new boolean[128];
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_WHITESPACE[c] = WHITESPACE.matcher(String.valueOf(c)).matches();
+        }
+    }
+
     @Override
     public String key(String s, Object... o) {
         if (s == null || o != null && o.length > 0) {
             throw new IllegalArgumentException("Fingerprint keyer accepts a single string parameter");
         }
-        return WHITESPACE.splitAsStream(normalize(s, true)).sorted().distinct().collect(Collectors.joining(" "));
+        return String.join(" ", sortedTokens(normalize(s, true)));
+    }
+
+    /**
+     * Splits a string on whitespace, with the same semantics as {@link Pattern#splitAsStream(CharSequence)} with the
+     * {@link #WHITESPACE} pattern, and returns the set of distinct tokens in natural order.
+     */
+    static TreeSet<String> sortedTokens(String s) {
+        TreeSet<String> tokens = new TreeSet<>();
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 128) {
+                WHITESPACE.splitAsStream(s).forEach(tokens::add);
+                return tokens;
+            }
+        }
+        int i = 0;
+        while (i < length && ASCII_WHITESPACE[s.charAt(i)]) {
+            i++;
+        }
+        if (i > 0 && i < length) {
+            // a leading separator produces a leading empty token
+            tokens.add("");
+        }
+        while (i < length) {
+            int start = i;
+            while (i < length && !ASCII_WHITESPACE[s.charAt(i)]) {
+                i++;
+            }
+            tokens.add(s.substring(start, i));
+            while (i < length && ASCII_WHITESPACE[s.charAt(i)]) {
+                i++;
+            }
+        }
+        return tokens;
     }
 
     protected String normalize(String s) {
@@ -101,6 +154,11 @@ public class FingerprintKeyer extends Keyer {
     }
 
     protected String normalize(String s, boolean strong) {
+        String normalized = normalizeAscii(s, strong);
+        return normalized != null ? normalized : normalizeFully(s, strong);
+    }
+
+    private static String normalizeFully(String s, boolean strong) {
         if (strong) {
             s = CharMatcher.whitespace().trimFrom(s); // first off, remove whitespace around the string
             s = s.toLowerCase(); // TODO: This is using the default locale. Is that what we want?
@@ -114,6 +172,56 @@ public class FingerprintKeyer extends Keyer {
         return s;
     }
 
+    /**
+     * Normalizes a string through the ASCII translation tables.
+     *
+     * @return the normalized string, or null if the string contains characters which the tables do not cover
+     */
+    private static String normalizeAscii(String s, boolean strong) {
+        int start = 0;
+        int end = s.length();
+        if (strong) {
+            CharMatcher whitespace = CharMatcher.whitespace();
+            while (start < end && whitespace.matches(s.charAt(start))) {
+                start++;
+            }
+            while (end > start && whitespace.matches(s.charAt(end - 1))) {
+                end--;
+            }
+        }
+        char[] table = strong ? ASCII_STRONG : ASCII_WEAK;
+        char[] result = new char[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 128 || table[c] == UNMAPPED) {
+                return null;
+            }
+            if (table[c] != REMOVED) {
+                result[length++] = table[c];
+            }
+        }
+        return new String(result, 0, length);
+    }
+
+    private static char[] asciiTable(boolean strong) {
+        char[] table = new char[128];
+        for (char c = 0; c < 128; c++) {
+            // surround the character so that trimming does not affect it
+            String normalized = normalizeFully("a" + c + "a", strong);
+            if (normalized.length() < 2 || normalized.charAt(0) != 'a' || normalized.charAt(normalized.length() - 1) != 'a') {
+                table[c] = UNMAPPED;
+            } else if (normalized.length() == 2) {
+                table[c] = REMOVED;
+            } else if (normalized.length() == 3 && normalized.charAt(1) < 128) {
+                table[c] = normalized.charAt(1);
+            } else {
+                table[c] = UNMAPPED;
+            }
+        }
+        return table;
+    }
+
     /**
      * @deprecated by tfmorris 2020-07-07 Use {@link #normalize(String)} or {{@link #normalize(String, boolean)}
      */
@@ -139,4 +247,9 @@ public class FingerprintKeyer extends Keyer {
         return result.toString();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
 }
@@ -41,4 +41,12 @@ public abstract class Keyer {
 
     public abstract String key(String string, Object... params);
 
+    /**
+     * Whether {@link #key(String, Object...)} can be called concurrently from several threads on the same instance.
+     * Keyers which cannot are always run sequentially.
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
 }
@@ -48,17 +48,57 @@ public class NGramFingerprintKeyer extends FingerprintKeyer {
 
     static final Pattern ctrlspace = Pattern.compile("\\p{Cntrl}|\\p{Space}", Pattern.UNICODE_CHARACTER_CLASS);
 
+    private static final boolean[] ASCII_CTRLSPACE = new boolean[128];
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_CTRLSPACE[c] = ctrlspace.matcher(String.valueOf(c)).matches();
+        }
+    }
+
     @Override
     public String key(String s, Object... o) {
         int ngram_size = 2;
         if (o != null && o.length > 0 && o[0] instanceof Number) {
             ngram_size = (Integer) o[0];
         }
-        s = normalize(s, true);
-        s = ctrlspace.matcher(s).replaceAll(""); // then remove all control chars & whitespace
+        s = removeControlsAndSpaces(normalize(s, true));
+        if (ngram_size > 0) {
+            return joinSortedNGrams(s, ngram_size);
+        }
         return sorted_ngrams(s, ngram_size).collect(Collectors.joining());
     }
 
+    /**
+     * Same result as joining {@link #sorted_ngrams(String, int)}, without the stream machinery. Only valid for
+     * positive sizes.
+     */
+    private static String joinSortedNGrams(String s, int size) {
+        TreeSet<String> ngrams = new TreeSet<>();
+        for (int i = 0; i + size <= s.length(); i++) {
+            ngrams.add(s.substring(i, i + size));
+        }
+        StringBuilder sb = new StringBuilder(ngrams.size() * size);
+        for (String ngram : ngrams) {
+            sb.append(ngram);
+        }
+        return sb.toString();
+    }
+
+    private static String removeControlsAndSpaces(String s) {
+        char[] result = new char[s.length()];
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 128) {
+                return ctrlspace.matcher(s).replaceAll("");
+            }
+            if (!ASCII_CTRLSPACE[c]) {
+                result[length++] = c;
+            }
+        }
+        return length == s.length() ? s : new String(result, 0, length);
+    }
+
     /**
      * Generate a stream of sorted unique character N-grams from a string
      * 
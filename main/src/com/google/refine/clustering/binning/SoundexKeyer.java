@@ -48,4 +48,9 @@ public class SoundexKeyer extends Keyer {
         return _soundex.soundex(s);
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
 }
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.knn;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.wcohen.ss.api.Token;
+
+import edu.mit.simile.vicino.NGramTokenizer;
+
+/**
+ * Clusters values by comparing them with a distance, only within blocks of values sharing a blocking key, since
+ * comparing all pairs of values is quadratic. Blocks are compared in parallel on the common fork-join pool.
+ * <p>
+ * Each pair of values is compared once, in the first block they share. Blocks larger than the maximum block size are
+ * sorted and compared in overlapping windows, so that a few very common keys do not dominate the computation; pairs of
+ * values which only share such blocks are therefore only compared if they are close enough in sorting order.
+ */
+public class BlockingClusterer {
+
+    /**
+     * Determines the blocks a value belongs to.
+     */
+    public interface Blocker {
+
+        /**
+         * @return the keys of the blocks the value belongs to
+         */
+        Collection<String> getKeys(String value);
+    }
+
+    /**
+     * Puts values in a block for each of their n-grams.
+     */
+    public static class NGramBlocker implements Blocker {
+
+        private final NGramTokenizer _tokenizer;
+
+        public NGramBlocker(int ngramSize) {
+            _tokenizer = new NGramTokenizer(ngramSize);
+        }
+
+        @Override
+        public Collection<String> getKeys(String value) {
+            Token[] tokens = _tokenizer.tokenize(value);
+            List<String> keys = new ArrayList<>(tokens.length);
+            for (Token token : tokens) {
+                keys.add(token.getValue());
+            }
+            return keys;
+        }
+    }
+
+    final static public int MAX_BLOCK_SIZE = Integer.getInteger("refine.clustering.knn.maxBlockSize", 1000);
+
+    private final SimilarityDistance _distance;
+    private final Blocker _blocker;
+    private final int _maxBlockSize;
+
+    private final Map<String, Set<String>> _blocks = new HashMap<>();
+    // sorted keys of the blocks of each value
+    private final Map<String, String[]> _keys = new HashMap<>();
+
+    public BlockingClusterer(SimilarityDistance distance, Blocker blocker) {
+        this(distance, blocker, MAX_BLOCK_SIZE);
+    }
+
+    public BlockingClusterer(SimilarityDistance distance, Blocker blocker, int maxBlockSize) {
+        _distance = distance;
+        _blocker = blocker;
+        _maxBlockSize = Math.max(2, maxBlockSize);
+    }
+
+    public void populate(String value) {
+        if (_keys.containsKey(value)) {
+            return;
+        }
+        Set<String> keys = new TreeSet<>(_blocker.getKeys(value));
+        _keys.put(value, keys.toArray(new String[keys.size()]));
+        for (String key : keys) {
+            _blocks.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+        }
+    }
+
+    /**
+     * Compares the values within their blocks and groups them into clusters: one for each value, with the values within
+     * the radius from it.
+     * 
+     * @param radius
+     *            maximum distance between two values of a cluster, or a negative number to group all values of a
+     *            block
+     * @return the clusters of more than one value, largest first
+     */
+    public List<Set<Serializable>> getClusters(double radius) {
+        List<String> oversizedKeys = new ArrayList<>();
+        List<Map.Entry<String, Set<String>>> blocks = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> block : _blocks.entrySet()) {
+            if (block.getValue().size() > _maxBlockSize) {
+                oversizedKeys.add(block.getKey());
+            } else if (block.getValue().size() > 1) {
+                blocks.add(block);
+            }
+        }
+        Set<String> oversized = new HashSet<>(oversizedKeys);
+
+        List<Runnable> tasks = new ArrayList<>();
+        Map<String, Set<String>> neighbours = new ConcurrentHashMap<>();
+        // largest blocks first, so that they do not end up last on a single thread
+        blocks.sort(Comparator.comparingInt(block -> -block.getValue().size()));
+        for (Map.Entry<String, Set<String>> block : blocks) {
+            String[] values = block.getValue().toArray(new String[0]);
+            tasks.add(() -> compareBlock(block.getKey(), values, 0, values.length, oversized, radius, neighbours));
+        }
+        for (String key : oversizedKeys) {
+            String[] values = _blocks.get(key).toArray(new String[0]);
+            Arrays.sort(values);
+            int step = _maxBlockSize / 2;
+            for (int start = 0; start < values.length - step; start += step) {
+                int from = start;
+                tasks.add(() -> compareBlock(null, values, from, Math.min(values.length, from + _maxBlockSize), oversized, radius,
+                        neighbours));
+            }
+        }
+
+        tasks.parallelStream().forEach(Runnable::run);
+
+        Set<Set<Serializable>> clusters = new HashSet<>();
+        for (Map.Entry<String, Set<String>> entry : neighbours.entrySet()) {
+            Set<Serializable> cluster = new TreeSet<>(entry.getValue());
+            cluster.add(entry.getKey());
+            clusters.add(cluster);
+        }
+        List<Set<Serializable>> sorted = new ArrayList<>(clusters);
+        Collections.sort(sorted, Comparator.<Set<Serializable>> comparingInt(Set::size).reversed()
+                .thenComparing(cluster -> (String) cluster.iterator().next()));
+        return sorted;
+    }
+
+    /**
+     * Compares the values of a block pairwise.
+     * 
+     * @param key
+     *            the key of the block, or null if this is a window of an oversized block
+     */
+    protected void compareBlock(String key, String[] values, int from, int to, Set<String> oversized, double radius,
+            Map<String, Set<String>> neighbours) {
+        for (int i = from; i < to; i++) {
+            String a = values[i];
+            String[] keysA = _keys.get(a);
+            for (int j = i + 1; j < to; j++) {
+                String b = values[j];
+                // only compare the pair in the first regular block they share
+                String firstKey = getFirstSharedKey(keysA, _keys.get(b), oversized);
+                if (key == null ? firstKey != null : !key.equals(firstKey)) {
+                    continue;
+                }
+                double d = _distance.compute(a, b);
+                if (d <= radius || radius < 0) {
+                    neighbours.computeIfAbsent(a, k -> ConcurrentHashMap.newKeySet()).add(b);
+                    neighbours.computeIfAbsent(b, k -> ConcurrentHashMap.newKeySet()).add(a);
+                }
+            }
+        }
+    }
+
+    static String getFirstSharedKey(String[] keysA, String[] keysB, Set<String> oversized) {
+        int i = 0;
+        int j = 0;
+        while (i < keysA.length && j < keysB.length) {
+            int c = keysA[i].compareTo(keysB[j]);
+            if (c == 0) {
+                if (!oversized.contains(keysA[i])) {
+                    return keysA[i];
+                }
+                i++;
+                j++;
+            } else if (c < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return null;
+    }
+}
@@ -89,12 +89,9 @@ public class GetColumnsInfoCommand extends Command {
         } catch (ParsingException e) {
             // this should never happen
         }
-        NumericBinIndex index = (NumericBinIndex) column.getPrecompute(key);
-        if (index == null) {
-            index = new NumericBinRowIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), eval));
-            column.setPrecompute(key, index);
-        }
-        return index;
+        Evaluable parsedEval = eval;
+        return (NumericBinIndex) column.computePrecomputeIfAbsent(key,
+                () -> new NumericBinRowIndex(project, new ExpressionBasedRowEvaluable(column.getName(), column.getCellIndex(), parsedEval)));
     }
 
     private void write(Project project, Column column, JsonGenerator writer) throws IOException {
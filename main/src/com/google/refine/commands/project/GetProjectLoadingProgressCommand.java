@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands.project;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.ProjectManager;
+import com.google.refine.commands.Command;
+
+/**
+ * Reports whether a project is in memory, and how far its loading has gone if it is being loaded. Unlike most
+ * commands, this does not load the project.
+ */
+public class GetProjectLoadingProgressCommand extends Command {
+
+    protected static class LoadingProgress {
+
+        @JsonProperty("status")
+        protected final String status;
+        @JsonProperty("progress")
+        protected final int progress;
+
+        protected LoadingProgress(String status, int progress) {
+            this.status = status;
+            this.progress = progress;
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        try {
+            // checks that the project exists
+            getProjectMetadata(request);
+        } catch (ServletException e) {
+            respond(response, "error", e.getLocalizedMessage());
+            return;
+        }
+        long id = Long.parseLong(request.getParameter("project"));
+
+        ProjectManager projectManager = ProjectManager.singleton;
+        int progress = projectManager.getProjectLoadingProgress(id);
+        if (progress >= 0) {
+            respondJSON(response, new LoadingProgress("loading", progress));
+        } else if (projectManager.isProjectLoaded(id)) {
+            respondJSON(response, new LoadingProgress("loaded", 100));
+        } else {
+            respondJSON(response, new LoadingProgress("unloaded", 0));
+        }
+    }
+}
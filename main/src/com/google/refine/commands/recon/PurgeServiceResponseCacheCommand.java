@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands.recon;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.commands.Command;
+import com.google.refine.model.recon.ServiceResponseCache;
+
+/**
+ * Empties the cache of reconciliation and data extension answers of the workspace (POST), or reports how much it holds
+ * and how often it answered instead of the services since startup (GET).
+ */
+public class PurgeServiceResponseCacheCommand extends Command {
+
+    protected static class CacheStatistics {
+
+        @JsonProperty("enabled")
+        protected final boolean enabled;
+        @JsonProperty("entries")
+        protected final int entries;
+        @JsonProperty("bytes")
+        protected final long bytes;
+        @JsonProperty("hits")
+        protected final long hits;
+        @JsonProperty("misses")
+        protected final long misses;
+
+        protected CacheStatistics(ServiceResponseCache cache) {
+            enabled = cache != null;
+            entries = cache == null ? 0 : cache.getEntryCount();
+            bytes = cache == null ? 0 : cache.getBytes();
+            hits = cache == null ? 0 : cache.getHits();
+            misses = cache == null ? 0 : cache.getMisses();
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        respondJSON(response, new CacheStatistics(ServiceResponseCache.getInstance()));
+    }
+
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (!hasValidCSRFToken(request)) {
+            respondCSRFError(response);
+            return;
+        }
+
+        ServiceResponseCache cache = ServiceResponseCache.getInstance();
+        if (cache != null) {
+            cache.purge();
+        }
+        respondJSON(response, new CacheStatistics(cache));
+    }
+}
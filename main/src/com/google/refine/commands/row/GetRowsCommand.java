@@ -46,6 +46,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.google.refine.ProjectManager;
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.Engine.Mode;
 import com.google.refine.browsing.FilteredRecords;
@@ -59,6 +60,7 @@ import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
 import com.google.refine.model.Row;
+import com.google.refine.sorting.SortedRowsCache.SortedRows;
 import com.google.refine.sorting.SortingConfig;
 import com.google.refine.sorting.SortingRecordVisitor;
 import com.google.refine.sorting.SortingRowVisitor;
@@ -179,7 +181,22 @@ public class GetRowsCommand extends Command {
             } catch (IOException e) {
             }
 
-            if (engine.getMode() == Mode.RowBased) {
+            if (importingJobID == null && sortingConfig != null
+                    && sortingConfig.getCriteria() != null && sortingConfig.getCriteria().length > 0) {
+                // sorted orders are cached, so that paging does not sort all the rows again
+                SortedRows sortedRows = ProjectManager.singleton.getSortedRowsCache()
+                        .getSortedRows(project, engine, sortingConfig, start + limit);
+                int end = Math.min(start + limit, sortedRows.getFilteredCount());
+                for (int i = start; i < end; i++) {
+                    int index = sortedRows.get(i);
+                    if (engine.getMode() == Mode.RowBased) {
+                        rwv.internalVisit(project, index, project.rows.get(index));
+                    } else {
+                        rwv.internalVisit(project, project.recordModel.getRecord(index));
+                    }
+                }
+                rwv.total = sortedRows.getFilteredCount();
+            } else if (engine.getMode() == Mode.RowBased) {
                 FilteredRows filteredRows = engine.getAllFilteredRows();
                 RowVisitor visitor = rwv;
 
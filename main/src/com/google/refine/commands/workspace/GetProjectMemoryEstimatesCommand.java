@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands.workspace;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.commands.Command;
+
+/**
+ * Reports how much memory the projects currently in memory are estimated to use, against the budget beyond which the
+ * least recently used ones get evicted, including the changes their history keeps in memory to undo or redo them.
+ * Projects which are not in memory are not listed.
+ */
+public class GetProjectMemoryEstimatesCommand extends Command {
+
+    protected static class ProjectMemoryEstimate {
+
+        @JsonProperty("id")
+        protected final long id;
+        @JsonProperty("name")
+        @JsonInclude(Include.NON_NULL)
+        protected final String name;
+        @JsonProperty("estimatedBytes")
+        protected final long estimatedBytes;
+        @JsonProperty("historyBytes")
+        protected final long historyBytes;
+        @JsonProperty("lastAccess")
+        @JsonInclude(Include.NON_NULL)
+        protected final Instant lastAccess;
+
+        protected ProjectMemoryEstimate(long id, String name, long estimatedBytes, long historyBytes, Instant lastAccess) {
+            this.id = id;
+            this.name = name;
+            this.estimatedBytes = estimatedBytes;
+            this.historyBytes = historyBytes;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    protected static class MemoryEstimates {
+
+        @JsonProperty("maxBytes")
+        protected final long maxBytes;
+        @JsonProperty("totalBytes")
+        protected final long totalBytes;
+        @JsonProperty("projects")
+        protected final List<ProjectMemoryEstimate> projects;
+
+        protected MemoryEstimates(long maxBytes, long totalBytes, List<ProjectMemoryEstimate> projects) {
+            this.maxBytes = maxBytes;
+            this.totalBytes = totalBytes;
+            this.projects = projects;
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        ProjectManager projectManager = ProjectManager.singleton;
+        List<ProjectMemoryEstimate> projects = new ArrayList<>();
+        long totalBytes = 0;
+        Map<Long, Long> historyBytes = projectManager.getResidentHistoryBytes();
+        for (Map.Entry<Long, Long> entry : projectManager.getProjectMemoryEstimates().entrySet()) {
+            long id = entry.getKey();
+            ProjectMetadata metadata = projectManager.getProjectMetadata(id);
+            projects.add(new ProjectMemoryEstimate(id, metadata == null ? null : metadata.getName(), entry.getValue(),
+                    historyBytes.getOrDefault(id, 0L), projectManager.getProjectAccessTime(id)));
+            totalBytes += entry.getValue();
+        }
+        projects.sort((e1, e2) -> Long.compare(e2.estimatedBytes, e1.estimatedBytes));
+        respondJSON(response, new MemoryEstimates(projectManager.getMaxProjectBytes(), totalBytes, projects));
+    }
+}
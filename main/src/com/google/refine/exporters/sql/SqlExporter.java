@@ -30,6 +30,7 @@
 package com.google.refine.exporters.sql;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
@@ -57,10 +58,6 @@ public class SqlExporter implements WriterExporter {
     public static final String JSON_INCLUDE_CONTENT = "includeContent";
     public static final String JSON_TABLE_NAME = "tableName";
 
-    private List<String> columnNames = new ArrayList<String>();
-    private List<ArrayList<SqlData>> sqlDataList = new ArrayList<ArrayList<SqlData>>();
-    private JsonNode sqlOptions;
-
     @Override
     public String getContentType() {
         return "text/plain";
@@ -73,8 +70,14 @@ public class SqlExporter implements WriterExporter {
             logger.debug("export sql with params: {}", params);
         }
 
+        // the statements are written as the rows are serialized, so that the rows are never held in memory
         TabularSerializer serializer = new TabularSerializer() {
 
+            private List<String> columnNames = new ArrayList<String>();
+            private JsonNode sqlOptions;
+            private boolean includeContent;
+            private SqlInsertBuilder insertBuilder;
+
             @Override
             public void startFile(JsonNode options) {
                 sqlOptions = options;
@@ -83,86 +86,88 @@ public class SqlExporter implements WriterExporter {
 
             @Override
             public void endFile() {
-                try {
-                    if (columnNames.isEmpty()) {
-                        logger.error("No Columns Selected!!");
-                        throw new SqlExporterException(NO_COL_SELECTED_ERROR);
-
-                    }
-                    if (sqlOptions == null) {
-                        logger.error("No Options Selected!!");
-                        throw new SqlExporterException(NO_OPTIONS_PRESENT_ERROR);
-
-                    }
-                    String tableName = ProjectManager.singleton.getProjectMetadata(project.id).getName();
-
-                    String tableNameManual = JSONUtilities.getString(sqlOptions, JSON_TABLE_NAME, null);
+                if (columnNames.isEmpty()) {
+                    logger.error("No Columns Selected!!");
+                    throw new SqlExporterException(NO_COL_SELECTED_ERROR);
 
-                    if (tableNameManual != null) {
-                        tableName = tableNameManual;
-                    }
-
-                    SqlCreateBuilder createBuilder = new SqlCreateBuilder(tableName, columnNames, sqlOptions);
-                    SqlInsertBuilder insertBuilder = new SqlInsertBuilder(tableName, columnNames, sqlDataList,
-                            sqlOptions);
+                }
+                if (sqlOptions == null) {
+                    logger.error("No Options Selected!!");
+                    throw new SqlExporterException(NO_OPTIONS_PRESENT_ERROR);
 
-                    final boolean includeStructure = sqlOptions == null ? true
-                            : JSONUtilities.getBoolean(sqlOptions, JSON_INCLUDE_STRUCTURE, true);
+                }
+                try {
+                    insertBuilder.endStatement(writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
 
-                    final boolean includeContent = sqlOptions == null ? true
-                            : JSONUtilities.getBoolean(sqlOptions, JSON_INCLUDE_CONTENT, true);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("sqlOptions::{}", sqlOptions);
+                }
+            }
 
-                    if (includeStructure) {
-                        String sqlCreateStr = createBuilder.getCreateSQL();
-                        writer.write(sqlCreateStr);
-                    }
+            /**
+             * Writes the CREATE statement, if it is included, once the column names are known.
+             */
+            private void startTable() throws IOException {
+                String tableName = ProjectManager.singleton.getProjectMetadata(project.id).getName();
 
-                    if (includeContent) {
-                        String sqlInsertStr = insertBuilder.getInsertSQL();
-                        writer.write(sqlInsertStr);
-                    }
+                String tableNameManual = JSONUtilities.getString(sqlOptions, JSON_TABLE_NAME, null);
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("sqlOptions::{}", sqlOptions);
-                    }
+                if (tableNameManual != null) {
+                    tableName = tableNameManual;
+                }
 
-                    columnNames = new ArrayList<String>();
-                    sqlDataList = new ArrayList<ArrayList<SqlData>>();
+                final boolean includeStructure = JSONUtilities.getBoolean(sqlOptions, JSON_INCLUDE_STRUCTURE, true);
+                includeContent = JSONUtilities.getBoolean(sqlOptions, JSON_INCLUDE_CONTENT, true);
 
-                } catch (IOException e) {
-                    e.printStackTrace();
+                if (includeStructure) {
+                    SqlCreateBuilder createBuilder = new SqlCreateBuilder(tableName, columnNames, sqlOptions);
+                    writer.write(createBuilder.getCreateSQL());
                 }
+                insertBuilder = new SqlInsertBuilder(tableName, columnNames, sqlOptions);
             }
 
             @Override
             public void addRow(List<CellData> cells, boolean isHeader) {
+                try {
+                    if (isHeader) {
+                        for (CellData cellData : cells) {
+                            columnNames.add(cellData.text);
+                        }
+                        if (!columnNames.isEmpty() && sqlOptions != null) {
+                            startTable();
+                        }
 
-                if (isHeader) {
-                    for (CellData cellData : cells) {
-                        columnNames.add(cellData.text);
-                    }
+                    } else if (insertBuilder != null && includeContent) {
+                        ArrayList<SqlData> values = new ArrayList<>();
+                        for (CellData cellData : cells) {
 
-                } else {
-                    ArrayList<SqlData> values = new ArrayList<>();
-                    for (CellData cellData : cells) {
+                            if (cellData != null) {
+                                if (cellData.text == null || cellData.text.isEmpty()) {
+                                    values.add(new SqlData(cellData.columnName, "", ""));
+                                } else {
+                                    values.add(new SqlData(cellData.columnName, cellData.value, cellData.text));
+                                }
 
-                        if (cellData != null) {
-                            if (cellData.text == null || cellData.text.isEmpty()) {
-                                values.add(new SqlData(cellData.columnName, "", ""));
-                            } else {
-                                values.add(new SqlData(cellData.columnName, cellData.value, cellData.text));
                             }
 
                         }
-
+                        insertBuilder.writeRow(values, writer);
                     }
-                    sqlDataList.add(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
 
             }
         };
 
-        CustomizableTabularExporterUtilities.exportRows(project, engine, params, serializer);
+        try {
+            CustomizableTabularExporterUtilities.exportRows(project, engine, params, serializer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
 }
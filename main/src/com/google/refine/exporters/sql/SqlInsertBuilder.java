@@ -29,7 +29,10 @@
 
 package com.google.refine.exporters.sql;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +49,12 @@ public class SqlInsertBuilder {
 
     private static final Logger logger = LoggerFactory.getLogger("SQLInsertBuilder");
 
+    /**
+     * Number of rows in each INSERT statement written by {@link #writeRow(List, Writer)}, unless set with the
+     * "insertBatchSize" option. A size of 0 or less puts all the rows in a single statement.
+     */
+    public static final int DEFAULT_INSERT_BATCH_SIZE = 1000;
+
     private String table;
 
     private List<String> columns;
@@ -54,6 +63,14 @@ public class SqlInsertBuilder {
 
     private JsonNode options;
 
+    private Map<String, JsonNode> colOptionsMap = new HashMap<>();
+
+    private boolean nullValueNull;
+
+    private int batchSize;
+
+    private int rowsInStatement = 0;
+
     /**
      *
      * @param table
@@ -68,6 +85,26 @@ public class SqlInsertBuilder {
         this.options = sqlOptions;
         // logger.info("Column Size:{}", columns.size());
 
+        List<JsonNode> colOptionArray = options == null ? null : JSONUtilities.getArray(options, "columns");
+        if (colOptionArray != null) {
+            colOptionArray.forEach(json -> {
+                colOptionsMap.put(JSONUtilities.getString(json, "name", null), json);
+            });
+        }
+        nullValueNull = options == null ? true : JSONUtilities.getBoolean(options, "convertNulltoEmptyString", true);
+        batchSize = options == null ? DEFAULT_INSERT_BATCH_SIZE
+                : JSONUtilities.getInt(options, "insertBatchSize", DEFAULT_INSERT_BATCH_SIZE);
+    }
+
+    /**
+     * Builder for INSERT statements written one row at a time with {@link #writeRow(List, Writer)}.
+     *
+     * @param table
+     * @param columns
+     * @param sqlOptions
+     */
+    public SqlInsertBuilder(String table, List<String> columns, JsonNode sqlOptions) {
+        this(table, columns, Collections.emptyList(), sqlOptions);
     }
 
     /**
@@ -80,128 +117,164 @@ public class SqlInsertBuilder {
             logger.debug("Insert SQL with columns: {}", columns);
         }
 
-        List<JsonNode> colOptionArray = options == null ? null : JSONUtilities.getArray(options, "columns");
-        Map<String, JsonNode> colOptionsMap = new HashMap<>();
-        if (colOptionArray != null) {
-            colOptionArray.forEach(json -> {
-                colOptionsMap.put(JSONUtilities.getString(json, "name", null), json);
-            });
-        }
-
-        boolean nullValueNull = options == null ? true : JSONUtilities.getBoolean(options, "convertNulltoEmptyString", true);
-
         StringBuffer values = new StringBuffer();
 
         int idx = 0;
         for (ArrayList<SqlData> sqlRow : sqlDataList) {
-            StringBuilder rowValue = new StringBuilder();
+            idx++;
+            values.append("( ");
+            values.append(getRowValues(sqlRow));
+            values.append(" )");
+            if (idx < sqlDataList.size()) {
+                values.append(",");
+            }
+            values.append("\n");
 
-            // int fieldCount = 0;
-            for (SqlData val : sqlRow) {
+        }
 
-                JsonNode jsonOb = colOptionsMap.get(val.getColumnName());
-                String type = JSONUtilities.getString(jsonOb, "type", null);
+        String valuesString = values.toString();
+        valuesString = valuesString.substring(0, Integer.max(0, valuesString.length() - 1));
 
-                String defaultValue = JSONUtilities.getString(jsonOb, "defaultValue", null);
+        StringBuffer sql = new StringBuffer();
 
-                boolean allowNullChkBox = JSONUtilities.getBoolean(jsonOb, "defaultValue", true);
-                ;
-                if (type == null) {
-                    type = SqlData.SQL_TYPE_VARCHAR;
-                }
-                // Character Types
-                if (type.equals(SqlData.SQL_TYPE_VARCHAR) || type.equals(SqlData.SQL_TYPE_CHAR) || type.equals(SqlData.SQL_TYPE_TEXT)) {
+        sql.append(getInsertStatementStart());
+        sql.append(valuesString);
 
-                    if ((val.getText() == null || val.getText().isEmpty())) {
+        String sqlString = sql.toString();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Insert Statement Generated Successfully...{}", sqlString);
+        }
+        return sqlString;
+    }
 
-                        handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, true);
+    /**
+     * Writes the values of a row as part of a multi-row INSERT statement, which is started first if needed. The
+     * statement is ended once it holds as many rows as set by the "insertBatchSize" option.
+     *
+     * @param sqlRow
+     * @param writer
+     * @throws IOException
+     */
+    public void writeRow(List<SqlData> sqlRow, Writer writer) throws IOException {
+        String rowValues = getRowValues(sqlRow);
+        if (rowsInStatement == 0) {
+            writer.write(getInsertStatementStart());
+        } else {
+            writer.write(",\n");
+        }
+        writer.write("( ");
+        writer.write(rowValues);
+        writer.write(" )");
+        rowsInStatement++;
+        if (batchSize > 0 && rowsInStatement >= batchSize) {
+            endStatement(writer);
+        }
+    }
 
-                    } else {
-                        rowValue.append("'" + val.getText().replace("'", "''") + "'");
+    /**
+     * Ends the INSERT statement being written by {@link #writeRow(List, Writer)}, if any.
+     *
+     * @param writer
+     * @throws IOException
+     */
+    public void endStatement(Writer writer) throws IOException {
+        if (rowsInStatement > 0) {
+            writer.write(";\n");
+            rowsInStatement = 0;
+        }
+    }
 
-                    }
+    private String getInsertStatementStart() {
+        boolean trimColNames = options == null ? false : JSONUtilities.getBoolean(options, "trimColumnNames", false);
+        String colNamesWithSep = columns.stream().map(col -> SqlCreateBuilder.addQuotes(col.replaceAll("[^a-zA-Z0-9_]", "_")))
+                .collect(Collectors.joining(","));
+        if (!trimColNames) {
+            colNamesWithSep = columns.stream().map(col -> SqlCreateBuilder.addQuotes(col)).collect(Collectors.joining(","));
+        }
 
-                } else if (type.equals(SqlData.SQL_TYPE_INT) || type.equals(SqlData.SQL_TYPE_INTEGER)
-                        || type.equals(SqlData.SQL_TYPE_NUMERIC)) {// Numeric Types : INT, NUMERIC
+        StringBuffer sql = new StringBuffer();
 
-                    if ((val.getText() == null || val.getText().isEmpty())) {
+        sql.append("INSERT INTO ").append(table);
+        sql.append(" (");
+        sql.append(colNamesWithSep);
+        sql.append(") VALUES ").append("\n");
+        return sql.toString();
+    }
 
-                        handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, false);
+    private String getRowValues(List<SqlData> sqlRow) {
+        StringBuilder rowValue = new StringBuilder();
 
-                    } else {// value not null
+        // int fieldCount = 0;
+        for (SqlData val : sqlRow) {
 
-                        if (type.equals(SqlData.SQL_TYPE_NUMERIC)) {// test if number is numeric (decimal(p,s) number is
-                            // valid)
+            JsonNode jsonOb = colOptionsMap.get(val.getColumnName());
+            String type = JSONUtilities.getString(jsonOb, "type", null);
 
-                            if (!NumberUtils.isCreatable(val.getText())) {
-                                throw new SqlExporterException(
-                                        val.getText() + " is not compatible with column type :" + type);
-                            }
-                        } else {
+            String defaultValue = JSONUtilities.getString(jsonOb, "defaultValue", null);
 
-                            try { // number should be an integer
-                                Integer.parseInt(val.getText());
-                            } catch (NumberFormatException nfe) {
-                                throw new SqlExporterException(
-                                        val.getText() + " is not compatible with column type :" + type);
-                            }
+            boolean allowNullChkBox = JSONUtilities.getBoolean(jsonOb, "defaultValue", true);
+            ;
+            if (type == null) {
+                type = SqlData.SQL_TYPE_VARCHAR;
+            }
+            // Character Types
+            if (type.equals(SqlData.SQL_TYPE_VARCHAR) || type.equals(SqlData.SQL_TYPE_CHAR) || type.equals(SqlData.SQL_TYPE_TEXT)) {
 
-                        }
+                if ((val.getText() == null || val.getText().isEmpty())) {
 
-                        rowValue.append(val.getText());
+                    handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, true);
 
-                    }
+                } else {
+                    rowValue.append("'" + val.getText().replace("'", "''") + "'");
 
-                } else if (type.equals(SqlData.SQL_TYPE_DATE) || type.equals(SqlData.SQL_TYPE_TIMESTAMP)) {
-                    if ((val.getText() == null || val.getText().isEmpty())) {
-                        handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, true);
-                    } else {
-                        rowValue.append("'" + val.getText() + "'");
-                    }
                 }
 
-                rowValue.append(",");
+            } else if (type.equals(SqlData.SQL_TYPE_INT) || type.equals(SqlData.SQL_TYPE_INTEGER)
+                    || type.equals(SqlData.SQL_TYPE_NUMERIC)) {// Numeric Types : INT, NUMERIC
 
-            }
+                if ((val.getText() == null || val.getText().isEmpty())) {
 
-            idx++;
-            String rowValString = rowValue.toString();
-//            logger.info("rowValString::" + rowValString);
-            rowValString = rowValString.substring(0, rowValString.length() - 1);
+                    handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, false);
 
-            values.append("( ");
-            values.append(rowValString);
-            values.append(" )");
-            if (idx < sqlDataList.size()) {
-                values.append(",");
-            }
-            values.append("\n");
+                } else {// value not null
 
-        }
+                    if (type.equals(SqlData.SQL_TYPE_NUMERIC)) {// test if number is numeric (decimal(p,s) number is
+                        // valid)
 
-        boolean trimColNames = options == null ? false : JSONUtilities.getBoolean(options, "trimColumnNames", false);
-        String colNamesWithSep = columns.stream().map(col -> SqlCreateBuilder.addQuotes(col.replaceAll("[^a-zA-Z0-9_]", "_")))
-                .collect(Collectors.joining(","));
-        if (!trimColNames) {
-            colNamesWithSep = columns.stream().map(col -> SqlCreateBuilder.addQuotes(col)).collect(Collectors.joining(","));
-        }
+                        if (!NumberUtils.isCreatable(val.getText())) {
+                            throw new SqlExporterException(
+                                    val.getText() + " is not compatible with column type :" + type);
+                        }
+                    } else {
 
-        String valuesString = values.toString();
-        valuesString = valuesString.substring(0, Integer.max(0, valuesString.length() - 1));
+                        try { // number should be an integer
+                            Integer.parseInt(val.getText());
+                        } catch (NumberFormatException nfe) {
+                            throw new SqlExporterException(
+                                    val.getText() + " is not compatible with column type :" + type);
+                        }
 
-        StringBuffer sql = new StringBuffer();
+                    }
 
-        sql.append("INSERT INTO ").append(table);
-        sql.append(" (");
-        sql.append(colNamesWithSep);
-        sql.append(") VALUES ").append("\n");
-        sql.append(valuesString);
+                    rowValue.append(val.getText());
+
+                }
+
+            } else if (type.equals(SqlData.SQL_TYPE_DATE) || type.equals(SqlData.SQL_TYPE_TIMESTAMP)) {
+                if ((val.getText() == null || val.getText().isEmpty())) {
+                    handleNullField(allowNullChkBox, defaultValue, nullValueNull, val.getColumnName(), rowValue, true);
+                } else {
+                    rowValue.append("'" + val.getText() + "'");
+                }
+            }
+
+            rowValue.append(",");
 
-        String sqlString = sql.toString();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Insert Statement Generated Successfully...{}", sqlString);
         }
-        return sqlString;
+
+        String rowValString = rowValue.toString();
+//        logger.info("rowValString::" + rowValString);
+        return rowValString.substring(0, Integer.max(0, rowValString.length() - 1));
     }
 
     /**
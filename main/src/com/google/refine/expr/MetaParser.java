@@ -41,6 +41,7 @@ import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.grel.ExpressionCompiler;
 import com.google.refine.grel.Parser;
 
 import clojure.lang.IFn;
@@ -56,14 +57,23 @@ abstract public class MetaParser {
         final public LanguageSpecificParser parser;
         @JsonProperty("defaultExpression")
         final public String defaultExpression;
+        @JsonIgnore
+        final public boolean threadSafe;
 
-        LanguageInfo(String name, LanguageSpecificParser parser, String defaultExpression) {
+        LanguageInfo(String name, LanguageSpecificParser parser, String defaultExpression, boolean threadSafe) {
             this.name = name;
             this.parser = parser;
             this.defaultExpression = defaultExpression;
+            this.threadSafe = threadSafe;
         }
     }
 
+    /**
+     * Whether GREL syntax trees are compiled before being evaluated, see {@link ExpressionCompiler}. Can be turned off
+     * with the refine.grel.compile system property, to evaluate them with the plain interpreter.
+     */
+    static final public boolean COMPILE_GREL = Boolean.parseBoolean(System.getProperty("refine.grel.compile", "true"));
+
     static final protected Map<String, LanguageInfo> s_languages = new HashMap<String, LanguageInfo>();
 
     // TODO: We should switch from using the internal compiler class
@@ -77,7 +87,7 @@ abstract public class MetaParser {
             public Evaluable parse(String s) throws ParsingException {
                 return parseGREL(s);
             }
-        }, "value");
+        }, "value", true);
 
         registerLanguageParser("clojure", "Clojure", new LanguageSpecificParser() {
 
@@ -122,7 +132,7 @@ abstract public class MetaParser {
                     throw new ParsingException(e.getMessage());
                 }
             }
-        }, "value");
+        }, "value", true);
     }
 
     /**
@@ -135,7 +145,19 @@ abstract public class MetaParser {
      * @param defaultExpression
      */
     static public void registerLanguageParser(String languagePrefix, String name, LanguageSpecificParser parser, String defaultExpression) {
-        s_languages.put(languagePrefix, new LanguageInfo(name, parser, defaultExpression));
+        registerLanguageParser(languagePrefix, name, parser, defaultExpression, false);
+    }
+
+    /**
+     * Same as {@link #registerLanguageParser(String, String, LanguageSpecificParser, String)}, for languages whose
+     * evaluables may declare that they can be evaluated from multiple threads concurrently.
+     * 
+     * @param threadSafe
+     *            true if evaluables produced by the parser can be evaluated concurrently with separate bindings
+     */
+    static public void registerLanguageParser(String languagePrefix, String name, LanguageSpecificParser parser, String defaultExpression,
+            boolean threadSafe) {
+        s_languages.put(languagePrefix, new LanguageInfo(name, parser, defaultExpression, threadSafe));
     }
 
     static public LanguageInfo getLanguageInfo(String languagePrefix) {
@@ -155,6 +177,29 @@ abstract public class MetaParser {
      * @throws ParsingException
      */
     static public Evaluable parse(String s) throws ParsingException {
+        int colon = s.indexOf(':');
+        LanguageInfo info = s_languages.get(getLanguagePrefix(s));
+        if (info != null) {
+            return info.parser.parse(s.substring(colon + 1));
+        } else {
+            return parseGREL(s);
+        }
+    }
+
+    /**
+     * Checks whether the evaluable obtained by parsing an expression can be evaluated from multiple threads at the same
+     * time, each thread using its own bindings.
+     * 
+     * @param s
+     *            the expression, with an optional language prefix
+     * @return true if concurrent evaluation is supported by the language of the expression
+     */
+    static public boolean isThreadSafe(String s) {
+        LanguageInfo info = s_languages.get(getLanguagePrefix(s));
+        return info == null || info.threadSafe;
+    }
+
+    static protected String getLanguagePrefix(String s) {
         String language = "grel";
 
         int colon = s.indexOf(':');
@@ -164,18 +209,12 @@ abstract public class MetaParser {
                 language = "grel";
             }
         }
-
-        LanguageInfo info = s_languages.get(language.toLowerCase());
-        if (info != null) {
-            return info.parser.parse(s.substring(colon + 1));
-        } else {
-            return parseGREL(s);
-        }
+        return language;
     }
 
     static protected Evaluable parseGREL(String s) throws ParsingException {
         Parser parser = new Parser(s);
 
-        return parser.getExpression();
+        return COMPILE_GREL ? ExpressionCompiler.compile(parser.getExpression()) : parser.getExpression();
     }
 }
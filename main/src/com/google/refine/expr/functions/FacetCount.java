@@ -66,17 +66,19 @@ public class FacetCount implements Function {
             String key = "nominal-bin:" + facetExpression;
             ExpressionNominalValueGrouper grouper = (ExpressionNominalValueGrouper) column.getPrecompute(key);
             if (grouper == null) {
+                Evaluable eval;
                 try {
-                    Evaluable eval = MetaParser.parse(facetExpression);
-                    Engine engine = new Engine(project);
-
-                    grouper = new ExpressionNominalValueGrouper(eval, columnName, column.getCellIndex());
-                    engine.getAllRows().accept(project, grouper);
-
-                    column.setPrecompute(key, grouper);
+                    eval = MetaParser.parse(facetExpression);
                 } catch (ParsingException e) {
                     return new EvalError(EvalErrorMessage.fun_facet_count_error_parsing_facet(facetExpression));
                 }
+                // computed once even when the calling expression is evaluated on several threads
+                grouper = (ExpressionNominalValueGrouper) column.computePrecomputeIfAbsent(key, () -> {
+                    ExpressionNominalValueGrouper newGrouper = new ExpressionNominalValueGrouper(eval, columnName,
+                            column.getCellIndex());
+                    new Engine(project).getAllRows().accept(project, newGrouper);
+                    return newGrouper;
+                });
             }
 
             return grouper.getChoiceValueCountMultiple(choiceValue);
@@ -40,6 +40,7 @@ import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
 import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.util.NumberScanner;
 
 public class ToNumber implements Function {
 
@@ -55,17 +56,9 @@ public class ToNumber implements Function {
                 } else {
                     s = args[0].toString();
                 }
-                if (s.length() > 0) {
-                    if (!s.contains(".")) { // lightweight test for strings which will definitely fail
-                        try {
-                            return Long.valueOf(s, 10);
-                        } catch (NumberFormatException e) {
-                        }
-                    }
-                    try {
-                        return Double.valueOf(s);
-                    } catch (NumberFormatException e) {
-                    }
+                Number number = NumberScanner.parse(s);
+                if (number != null) {
+                    return number;
                 }
                 return new EvalError(EvalErrorMessage.unable_to_parse_as_number());
             }
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.grel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.functions.Cross;
+import com.google.refine.expr.functions.FacetCount;
+import com.google.refine.expr.functions.date.Now;
+import com.google.refine.expr.functions.math.RandomNumber;
+import com.google.refine.grel.ast.ControlCallExpr;
+import com.google.refine.grel.ast.FieldAccessorExpr;
+import com.google.refine.grel.ast.FunctionCallExpr;
+import com.google.refine.grel.ast.LiteralExpr;
+import com.google.refine.grel.ast.OperatorCallExpr;
+import com.google.refine.grel.ast.OperatorCallExpr.Operator;
+import com.google.refine.grel.ast.VariableExpr;
+import com.google.refine.grel.controls.Filter;
+import com.google.refine.grel.controls.ForEach;
+import com.google.refine.grel.controls.ForEachIndex;
+import com.google.refine.grel.controls.ForNonBlank;
+import com.google.refine.grel.controls.ForRange;
+import com.google.refine.grel.controls.With;
+
+/**
+ * Turns the syntax tree of a GREL expression into an equivalent tree which is cheaper to evaluate row after row:
+ * <ul>
+ * <li>operator calls whose operands are all constant are evaluated once, at compilation time;</li>
+ * <li>binary operator calls evaluate their operands directly, without allocating an array of arguments, and dispatch
+ * on an operator resolved at compilation time;</li>
+ * <li>function, control and field accessor calls get compiled arguments.</li>
+ * </ul>
+ * Nodes which are not part of the GREL syntax tree are kept as they are and simply interpreted. Compiled nodes print
+ * as the expression they were compiled from.
+ */
+public class ExpressionCompiler {
+
+    /**
+     * Functions which read something else than their arguments (the project, the clock, a random generator), so that
+     * their result can differ between two calls with the same arguments.
+     */
+    static final protected Set<Class<? extends Function>> s_impureFunctions = new HashSet<>(Arrays.asList(
+            Cross.class, FacetCount.class, Now.class, RandomNumber.class));
+
+    /**
+     * For the controls which bind a variable: the positions of their variable name arguments, followed by the
+     * position of the only argument evaluated with those variables bound.
+     */
+    static final protected Map<Class<? extends Control>, int[]> s_scopingControls = new HashMap<>();
+
+    static {
+        s_scopingControls.put(Filter.class, new int[] { 1, 2 });
+        s_scopingControls.put(ForEach.class, new int[] { 1, 2 });
+        s_scopingControls.put(ForEachIndex.class, new int[] { 1, 2, 3 });
+        s_scopingControls.put(ForNonBlank.class, new int[] { 1, 2 });
+        s_scopingControls.put(ForRange.class, new int[] { 3, 4 });
+        s_scopingControls.put(With.class, new int[] { 1, 2 });
+    }
+
+    /**
+     * Compiles a GREL syntax tree.
+     * 
+     * @param expression
+     *            the root of the tree, as returned by {@link Parser#getExpression()}
+     * @return an evaluable which returns the same results as the tree
+     */
+    static public Evaluable compile(Evaluable expression) {
+        if (expression instanceof OperatorCallExpr) {
+            return compileOperatorCall((OperatorCallExpr) expression);
+        } else if (expression instanceof FunctionCallExpr) {
+            FunctionCallExpr call = (FunctionCallExpr) expression;
+            return new FunctionCallExpr(compileAll(call.getArgs()), call.getFunction());
+        } else if (expression instanceof ControlCallExpr) {
+            // controls check that their variable name arguments are VariableExpr, which are left untouched
+            ControlCallExpr call = (ControlCallExpr) expression;
+            return new ControlCallExpr(compileAll(call.getArgs()), call.getControl());
+        } else if (expression instanceof FieldAccessorExpr) {
+            FieldAccessorExpr accessor = (FieldAccessorExpr) expression;
+            return new FieldAccessorExpr(compile(accessor.getInner()), accessor.getFieldName());
+        } else {
+            return expression;
+        }
+    }
+
+    /**
+     * Tells whether an expression, compiled or not, only depends on the value of the cell it is evaluated on: it reads
+     * no other variable than "value" (besides the ones it binds itself), and only calls core functions and controls
+     * which always return the same result for the same arguments. Such an expression can be evaluated once per
+     * distinct cell value rather than once per row.
+     * 
+     * @param expression
+     *            a GREL syntax tree, as returned by {@link Parser#getExpression()} or {@link #compile(Evaluable)}
+     */
+    static public boolean dependsOnlyOnValue(Evaluable expression) {
+        return dependsOnlyOnValue(expression, Collections.emptySet());
+    }
+
+    static protected boolean dependsOnlyOnValue(Evaluable expression, Set<String> localVariables) {
+        if (expression instanceof LiteralExpr || expression instanceof Constant) {
+            return true;
+        } else if (expression instanceof VariableExpr) {
+            String name = ((VariableExpr) expression).getName();
+            return "value".equals(name) || localVariables.contains(name);
+        } else if (expression instanceof BinaryOperatorCall) {
+            BinaryOperatorCall call = (BinaryOperatorCall) expression;
+            return dependsOnlyOnValue(call._left, localVariables) && dependsOnlyOnValue(call._right, localVariables);
+        } else if (expression instanceof OperatorCallExpr) {
+            return allDependOnlyOnValue(Arrays.asList(((OperatorCallExpr) expression).getArgs()), localVariables);
+        } else if (expression instanceof FieldAccessorExpr) {
+            return dependsOnlyOnValue(((FieldAccessorExpr) expression).getInner(), localVariables);
+        } else if (expression instanceof FunctionCallExpr) {
+            FunctionCallExpr call = (FunctionCallExpr) expression;
+            return isCore(call.getFunction().getClass(), "com.google.refine.expr.functions.")
+                    && !s_impureFunctions.contains(call.getFunction().getClass())
+                    && allDependOnlyOnValue(Arrays.asList(call.getArgs()), localVariables);
+        } else if (expression instanceof ControlCallExpr) {
+            ControlCallExpr call = (ControlCallExpr) expression;
+            if (!isCore(call.getControl().getClass(), "com.google.refine.grel.controls.")) {
+                return false;
+            }
+            Evaluable[] args = call.getArgs();
+            int[] scope = s_scopingControls.get(call.getControl().getClass());
+            if (scope == null) {
+                return allDependOnlyOnValue(Arrays.asList(args), localVariables);
+            }
+
+            int body = scope[scope.length - 1];
+            if (args.length <= body) {
+                return false;
+            }
+            Set<String> innerVariables = new HashSet<>(localVariables);
+            Set<Integer> skipped = new HashSet<>();
+            for (int i = 0; i < scope.length - 1; i++) {
+                if (!(args[scope[i]] instanceof VariableExpr)) {
+                    return false;
+                }
+                innerVariables.add(((VariableExpr) args[scope[i]]).getName());
+                skipped.add(scope[i]);
+            }
+            for (int i = 0; i < args.length; i++) {
+                if (i == body) {
+                    if (!dependsOnlyOnValue(args[i], innerVariables)) {
+                        return false;
+                    }
+                } else if (!skipped.contains(i) && !dependsOnlyOnValue(args[i], localVariables)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    static protected boolean allDependOnlyOnValue(List<Evaluable> expressions, Set<String> localVariables) {
+        for (Evaluable expression : expressions) {
+            if (!dependsOnlyOnValue(expression, localVariables)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static protected boolean isCore(Class<?> klass, String packagePrefix) {
+        return klass.getName().startsWith(packagePrefix);
+    }
+
+    static protected Evaluable[] compileAll(Evaluable[] args) {
+        Evaluable[] compiled = new Evaluable[args.length];
+        for (int i = 0; i < args.length; i++) {
+            compiled[i] = compile(args[i]);
+        }
+        return compiled;
+    }
+
+    static protected Evaluable compileOperatorCall(OperatorCallExpr call) {
+        Evaluable[] args = compileAll(call.getArgs());
+
+        boolean constant = true;
+        for (Evaluable arg : args) {
+            constant = constant && (arg instanceof LiteralExpr || arg instanceof Constant);
+        }
+        if (constant) {
+            try {
+                Object value = new OperatorCallExpr(args, call.getOp()).evaluate(new Properties());
+                if (!ExpressionUtils.isError(value)) {
+                    return new Constant(value, call);
+                }
+            } catch (RuntimeException e) {
+                // such as a division by zero: leave it to happen at evaluation time
+            }
+        }
+
+        if (args.length == 2) {
+            return new BinaryOperatorCall(args[0], args[1], call.getOperator(), call);
+        }
+        return new OperatorCallExpr(args, call.getOp());
+    }
+
+    /**
+     * The value of a constant sub-expression.
+     */
+    static protected class Constant implements Evaluable {
+
+        final protected Object _value;
+        final protected Evaluable _source;
+
+        protected Constant(Object value, Evaluable source) {
+            _value = value;
+            _source = source;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            return _value;
+        }
+
+        @Override
+        public String toString() {
+            return _source.toString();
+        }
+    }
+
+    /**
+     * A call to a binary operator, resolved at compilation time.
+     */
+    static protected class BinaryOperatorCall implements Evaluable {
+
+        final protected Evaluable _left;
+        final protected Evaluable _right;
+        final protected Operator _operator;
+        final protected Evaluable _source;
+
+        protected BinaryOperatorCall(Evaluable left, Evaluable right, Operator operator, Evaluable source) {
+            _left = left;
+            _right = right;
+            _operator = operator;
+            _source = source;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            Object left = _left.evaluate(bindings);
+            if (ExpressionUtils.isError(left)) {
+                return left;
+            }
+            Object right = _right.evaluate(bindings);
+            if (ExpressionUtils.isError(right)) {
+                return right;
+            }
+            return OperatorCallExpr.apply(_operator, left, right);
+        }
+
+        @Override
+        public String toString() {
+            return _source.toString();
+        }
+    }
+}
@@ -52,6 +52,14 @@ public class ControlCallExpr implements Evaluable {
         _control = c;
     }
 
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public Control getControl() {
+        return _control;
+    }
+
     @Override
     public Object evaluate(Properties bindings) {
         try {
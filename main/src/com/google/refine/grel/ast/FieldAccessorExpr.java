@@ -56,6 +56,14 @@ public class FieldAccessorExpr implements Evaluable {
         _fieldName = fieldName;
     }
 
+    public Evaluable getInner() {
+        return _inner;
+    }
+
+    public String getFieldName() {
+        return _fieldName;
+    }
+
     @Override
     public Object evaluate(Properties bindings) {
         Object o = _inner.evaluate(bindings);
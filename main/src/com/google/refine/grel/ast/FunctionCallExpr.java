@@ -55,6 +55,14 @@ public class FunctionCallExpr implements Evaluable {
         _function = f;
     }
 
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public Function getFunction() {
+        return _function;
+    }
+
     @Override
     public Object evaluate(Properties bindings) {
         Object[] args = new Object[_args.length];
@@ -49,6 +49,10 @@ public class LiteralExpr implements Evaluable {
         _value = value;
     }
 
+    public Object getValue() {
+        return _value;
+    }
+
     @Override
     public Object evaluate(Properties bindings) {
         return _value;
@@ -43,12 +43,56 @@ import com.google.refine.expr.ExpressionUtils;
  */
 public class OperatorCallExpr implements Evaluable {
 
+    /**
+     * The binary operators supported by the language.
+     */
+    public enum Operator {
+
+        ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/"), MODULO("%"), GREATER(">"), GREATER_OR_EQUAL(">="), LESS("<"), LESS_OR_EQUAL(
+                "<="), EQUAL("=="), NOT_EQUAL("!=");
+
+        final public String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * @return the operator with the given symbol, or null if there is none
+         */
+        static public Operator fromSymbol(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
     final protected Evaluable[] _args;
     final protected String _op;
+    final protected Operator _operator;
 
     public OperatorCallExpr(Evaluable[] args, String op) {
         _args = args;
         _op = op;
+        _operator = Operator.fromSymbol(op);
+    }
+
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public String getOp() {
+        return _op;
+    }
+
+    /**
+     * @return the operator, or null if the symbol of this call is not a known operator
+     */
+    public Operator getOperator() {
+        return _operator;
     }
 
     @Override
@@ -63,86 +107,100 @@ public class OperatorCallExpr implements Evaluable {
         }
 
         if (args.length == 2) {
-            if (args[0] != null && args[1] != null) {
-                if (isIntegral(args[0]) && isIntegral(args[1])) {
-                    long n1 = ((Number) args[0]).longValue();
-                    long n2 = ((Number) args[1]).longValue();
+            return apply(_operator, args[0], args[1]);
+        }
+        return null;
+    }
 
-                    if ("+".equals(_op)) {
+    /**
+     * Applies a binary operator to the values of its operands.
+     * 
+     * @param operator
+     *            the operator, or null for an unknown operator
+     * @return the result, or null if the operator does not apply to the operands
+     */
+    static public Object apply(Operator operator, Object arg0, Object arg1) {
+        if (operator == null) {
+            return null;
+        }
+        if (arg0 != null && arg1 != null) {
+            if (isIntegral(arg0) && isIntegral(arg1)) {
+                long n1 = ((Number) arg0).longValue();
+                long n2 = ((Number) arg1).longValue();
+                switch (operator) {
+                    case ADD:
                         return n1 + n2;
-                    } else if ("-".equals(_op)) {
+                    case SUBTRACT:
                         return n1 - n2;
-                    } else if ("*".equals(_op)) {
+                    case MULTIPLY:
                         return n1 * n2;
-                    } else if ("/".equals(_op)) {
+                    case DIVIDE:
                         if (n2 == 0 && n1 == 0) {
                             return Double.NaN;
                         }
                         return n1 / n2;
-                    } else if ("%".equals(_op)) {
+                    case MODULO:
                         return n1 % n2;
-                    } else if (">".equals(_op)) {
+                    case GREATER:
                         return n1 > n2;
-                    } else if (">=".equals(_op)) {
+                    case GREATER_OR_EQUAL:
                         return n1 >= n2;
-                    } else if ("<".equals(_op)) {
+                    case LESS:
                         return n1 < n2;
-                    } else if ("<=".equals(_op)) {
+                    case LESS_OR_EQUAL:
                         return n1 <= n2;
-                    } else if ("==".equals(_op)) {
+                    case EQUAL:
                         return n1 == n2;
-                    } else if ("!=".equals(_op)) {
+                    case NOT_EQUAL:
                         return n1 != n2;
-                    }
-                } else if (args[0] instanceof Number && args[1] instanceof Number) {
-                    double n1 = ((Number) args[0]).doubleValue();
-                    double n2 = ((Number) args[1]).doubleValue();
-
-                    if ("+".equals(_op)) {
+                }
+            } else if (arg0 instanceof Number && arg1 instanceof Number) {
+                double n1 = ((Number) arg0).doubleValue();
+                double n2 = ((Number) arg1).doubleValue();
+                switch (operator) {
+                    case ADD:
                         return n1 + n2;
-                    } else if ("-".equals(_op)) {
+                    case SUBTRACT:
                         return n1 - n2;
-                    } else if ("*".equals(_op)) {
+                    case MULTIPLY:
                         return n1 * n2;
-                    } else if ("/".equals(_op)) {
+                    case DIVIDE:
                         if (n2 == 0 && n1 == 0) {
                             return Double.NaN;
                         }
                         return n1 / n2;
-                    } else if ("%".equals(_op)) {
+                    case MODULO:
                         return n1 % n2;
-                    } else if (">".equals(_op)) {
+                    case GREATER:
                         return n1 > n2;
-                    } else if (">=".equals(_op)) {
+                    case GREATER_OR_EQUAL:
                         return n1 >= n2;
-                    } else if ("<".equals(_op)) {
+                    case LESS:
                         return n1 < n2;
-                    } else if ("<=".equals(_op)) {
+                    case LESS_OR_EQUAL:
                         return n1 <= n2;
-                    } else if ("==".equals(_op)) {
+                    case EQUAL:
                         return n1 == n2;
-                    } else if ("!=".equals(_op)) {
+                    case NOT_EQUAL:
                         return n1 != n2;
-                    }
-                }
-
-                if ("+".equals(_op)) {
-                    return args[0].toString() + args[1].toString();
                 }
             }
+            if (operator == Operator.ADD) {
+                return arg0.toString() + arg1.toString();
+            }
+        }
 
-            if ("==".equals(_op)) {
-                if (args[0] != null) {
-                    return args[0].equals(args[1]);
-                } else {
-                    return args[1] == null;
-                }
-            } else if ("!=".equals(_op)) {
-                if (args[0] != null) {
-                    return !args[0].equals(args[1]);
-                } else {
-                    return args[1] != null;
-                }
+        if (operator == Operator.EQUAL) {
+            if (arg0 != null) {
+                return arg0.equals(arg1);
+            } else {
+                return arg1 == null;
+            }
+        } else if (operator == Operator.NOT_EQUAL) {
+            if (arg0 != null) {
+                return !arg0.equals(arg1);
+            } else {
+                return arg1 != null;
             }
         }
         return null;
@@ -164,7 +222,7 @@ public class OperatorCallExpr implements Evaluable {
         return sb.toString();
     }
 
-    private boolean isIntegral(Object n) {
+    static private boolean isIntegral(Object n) {
         return n instanceof Long || n instanceof Integer;
     }
 }
@@ -46,11 +46,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.RefineServlet;
 import com.google.refine.model.Project;
+import com.google.refine.sorting.SortedRowsCache;
 import com.google.refine.util.Pool;
 
 /**
@@ -61,6 +66,20 @@ import com.google.refine.util.Pool;
  */
 public class History {
 
+    final static Logger logger = LoggerFactory.getLogger(History.class);
+
+    /**
+     * How many changes are kept in memory, nearest to the current state first, once saved. Older ones are released
+     * and loaded back from the history entry manager when they are undone or redone.
+     */
+    static public final int MAX_RESIDENT_CHANGES = Integer.getInteger("refine.history.residentChanges", 10);
+
+    /**
+     * How many bytes of saved changes are kept in memory, as estimated from the size of the changes once serialized.
+     */
+    static public final long MAX_RESIDENT_CHANGE_BYTES = Long.getLong("refine.history.residentBytes",
+            64L * 1024 * 1024);
+
     static public Change readOneChange(InputStream in, Pool pool) throws Exception {
         LineNumberReader reader = new LineNumberReader(new InputStreamReader(in, "UTF-8"));
         try {
@@ -118,6 +137,17 @@ public class History {
     @JsonProperty("future")
     protected List<HistoryEntry> _futureEntries; // undone changes, can be redone
 
+    /*
+     * Entries added since the project was last saved, in the order they were done. These are the only ones an
+     * incremental save has to write out. It is null when the history has been rewritten by undo or redo since the
+     * project was last saved in full, in which case the next save has to be a full one.
+     */
+    transient protected List<HistoryEntry> _unsavedEntries = new ArrayList<HistoryEntry>();
+    // number of entries written incrementally since the project was last saved in full
+    transient protected int _journaledEntryCount = 0;
+    // bytes of changes kept in memory as of the last call to releaseChanges, readable without locking the history
+    transient private volatile long _residentChangeBytes = 0;
+
     public History(Project project) {
         _projectID = project.id;
         _pastEntries = new ArrayList<HistoryEntry>();
@@ -137,6 +167,9 @@ public class History {
             synchronized (this) {
                 entry.apply(project);
                 _pastEntries.add(entry);
+                if (_unsavedEntries != null) {
+                    _unsavedEntries.add(entry);
+                }
 
                 setModified();
 
@@ -152,16 +185,78 @@ public class History {
                         e.printStackTrace();
                     }
                 }
+
+                releaseChanges();
             }
         }
     }
 
+    /**
+     * Re-applies an entry which was saved incrementally after the project was last saved in full. Unlike
+     * {@link #addEntry(HistoryEntry)}, this does not look the project up in the project manager nor marks it as
+     * modified, as it is meant to be called while the project is being loaded.
+     * 
+     * @param project
+     *            the project being loaded
+     * @param entry
+     *            the entry to re-apply, whose change must be available from the history entry manager
+     */
+    synchronized public void replayEntry(Project project, HistoryEntry entry) {
+        entry.apply(project);
+        _pastEntries.add(entry);
+        _futureEntries.clear();
+        releaseChanges();
+    }
+
+    /**
+     * @return the entries added since the project was last saved, or null if the history was rewritten since the
+     *         project was last saved in full, so that it cannot be saved incrementally
+     */
+    @JsonIgnore
+    synchronized public List<HistoryEntry> getUnsavedEntries() {
+        return _unsavedEntries == null ? null : new ArrayList<HistoryEntry>(_unsavedEntries);
+    }
+
+    @JsonIgnore
+    synchronized public int getJournaledEntryCount() {
+        return _journaledEntryCount;
+    }
+
+    /**
+     * Records that the given number of unsaved entries, counted from the oldest, have been saved incrementally.
+     */
+    synchronized public void markJournaled(int count) {
+        if (_unsavedEntries != null) {
+            _unsavedEntries.subList(0, Math.min(count, _unsavedEntries.size())).clear();
+        }
+        _journaledEntryCount += count;
+    }
+
+    /**
+     * Records that the project has been saved in full.
+     */
+    synchronized public void markSavedInFull() {
+        _unsavedEntries = new ArrayList<HistoryEntry>();
+        _journaledEntryCount = 0;
+    }
+
+    /**
+     * Records that the project can only be saved in full until its next full save.
+     */
+    synchronized public void markRewritten() {
+        _unsavedEntries = null;
+    }
+
     protected void setModified() {
         // Refresh shadow copy of row count (and modified time as a side effect)
         int rowCount = ProjectManager.singleton.getProject(_projectID).rows.size();
         ProjectMetadata projectMetadata = ProjectManager.singleton.getProjectMetadata(_projectID);
         projectMetadata.setRowCount(rowCount);
         projectMetadata.updateModified(); // Redundant, but for safety in case setRowCount implementation changes
+        SortedRowsCache sortedRowsCache = ProjectManager.singleton.getSortedRowsCache();
+        if (sortedRowsCache != null) {
+            sortedRowsCache.flushProject(_projectID);
+        }
     }
 
     synchronized public List<HistoryEntry> getLastPastEntries(int count) {
@@ -240,6 +335,7 @@ public class History {
             HistoryEntry entry = _pastEntries.get(_pastEntries.size() - 1);
 
             entry.revert(project);
+            _unsavedEntries = null;
 
             setModified();
             times--;
@@ -247,6 +343,7 @@ public class History {
             _pastEntries.remove(_pastEntries.size() - 1);
             _futureEntries.add(0, entry);
         }
+        releaseChanges();
     }
 
     protected void redo(int times) {
@@ -256,6 +353,7 @@ public class History {
             HistoryEntry entry = _futureEntries.get(0);
 
             entry.apply(project);
+            _unsavedEntries = null;
 
             setModified();
             times--;
@@ -263,6 +361,59 @@ public class History {
             _pastEntries.add(entry);
             _futureEntries.remove(0);
         }
+        releaseChanges();
+    }
+
+    /**
+     * Releases the saved changes which do not fit in {@link #MAX_RESIDENT_CHANGES} and
+     * {@link #MAX_RESIDENT_CHANGE_BYTES}, keeping the ones nearest to the current state of the project, which are the
+     * most likely to be undone or redone next.
+     */
+    synchronized protected void releaseChanges() {
+        List<HistoryEntry> entries = new ArrayList<HistoryEntry>(_pastEntries.size() + _futureEntries.size());
+        for (int i = 0; i < Math.max(_pastEntries.size(), _futureEntries.size()); i++) {
+            if (i < _pastEntries.size()) {
+                entries.add(_pastEntries.get(_pastEntries.size() - 1 - i));
+            }
+            if (i < _futureEntries.size()) {
+                entries.add(_futureEntries.get(i));
+            }
+        }
+
+        int residentChanges = 0;
+        long residentBytes = 0;
+        int released = 0;
+        for (HistoryEntry entry : entries) {
+            long size = entry.getResidentChangeSize();
+            if (entry.getChange() == null) {
+                continue;
+            } else if (residentChanges < MAX_RESIDENT_CHANGES && residentBytes + size <= MAX_RESIDENT_CHANGE_BYTES) {
+                residentChanges++;
+                residentBytes += size;
+            } else if (entry.releaseChange()) {
+                released++;
+            } else {
+                // not saved yet, so it has to stay in memory
+                residentChanges++;
+                residentBytes += size;
+            }
+        }
+        _residentChangeBytes = residentBytes;
+        if (released > 0) {
+            logger.debug("Released {} changes of project {} from memory, {} bytes of changes left in memory",
+                    released, _projectID, residentBytes);
+        }
+    }
+
+    /**
+     * Does not wait for the history to be unlocked, as it is while a change is applied, and so may not account for a
+     * change being applied yet.
+     * 
+     * @return an estimate of the number of bytes taken by the changes kept in memory
+     */
+    @JsonIgnore
+    public long getResidentChangeBytes() {
+        return _residentChangeBytes;
     }
 
     /*
@@ -38,6 +38,7 @@ import java.io.Writer;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,11 +84,18 @@ public class HistoryEntry {
     // the actual change, loaded on demand
     @JsonIgnore
     private transient Change _change;
+    // whether the change in memory is also saved by the manager, so that it can be released and loaded again
+    @JsonIgnore
+    private transient volatile boolean _changeSaved;
+    // the size of the change once serialized, as an estimate of the memory it takes, or -1 if unknown
+    @JsonIgnore
+    private transient long _changeSize = -1;
 
     private final static String OPERATION = "operation";
 
     public void setChange(Change _change) {
         this._change = _change;
+        this._changeSaved = false;
     }
 
     @JsonIgnore
@@ -95,6 +103,36 @@ public class HistoryEntry {
         return _change;
     }
 
+    /**
+     * Records the size of the change once serialized, which the history uses to estimate how much memory the change
+     * takes while it is loaded.
+     */
+    public void setChangeSize(long changeSize) {
+        this._changeSize = changeSize;
+    }
+
+    /**
+     * @return an estimate of the number of bytes taken by the change, or 0 if it is not in memory
+     */
+    @JsonIgnore
+    public long getResidentChangeSize() {
+        return _change == null ? 0 : Math.max(_changeSize, 0);
+    }
+
+    /**
+     * Drops the change from memory if it can be loaded again from the manager. It will be loaded back on demand when
+     * the entry is applied or reverted.
+     * 
+     * @return whether the change was released
+     */
+    public boolean releaseChange() {
+        if (_change == null || !_changeSaved) {
+            return false;
+        }
+        _change = null;
+        return true;
+    }
+
     static public long allocateID() {
         return Math.round(Math.random() * 1000000) + System.currentTimeMillis();
     }
@@ -140,16 +178,19 @@ public class HistoryEntry {
     public void apply(Project project) {
         if (getChange() == null) {
             ProjectManager.singleton.getHistoryEntryManager().loadChange(this);
+            _changeSaved = true;
         }
 
         synchronized (project) {
             getChange().apply(project);
 
             // When a change is applied, it can hang on to old data (in order to be able
-            // to revert later). Hence, we need to save the change out.
+            // to revert later). Hence, we need to save the change out. The manager may
+            // finish saving it after the project lock is released.
 
+            CompletableFuture<Void> saved;
             try {
-                _manager.saveChange(this);
+                saved = _manager.saveChangeInBackground(this);
             } catch (Exception e) {
                 e.printStackTrace();
 
@@ -157,12 +198,14 @@ public class HistoryEntry {
 
                 throw new RuntimeException("Failed to apply change", e);
             }
+            saved.thenRun(() -> _changeSaved = true);
         }
     }
 
     public void revert(Project project) {
         if (getChange() == null) {
             _manager.loadChange(this);
+            _changeSaved = true;
         }
         getChange().revert(project);
     }
@@ -33,8 +33,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.history;
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 public interface HistoryEntryManager {
 
@@ -42,6 +44,29 @@ public interface HistoryEntryManager {
 
     public void saveChange(HistoryEntry historyEntry) throws Exception;
 
+    /**
+     * Starts saving the change of a history entry, which may complete after this returns. The change must not be
+     * modified afterwards. Changes of a project are saved in the order they are submitted.
+     * 
+     * @return a future completed once the change is saved
+     * @throws Exception
+     *             if the change could not be prepared for saving
+     */
+    default public CompletableFuture<Void> saveChangeInBackground(HistoryEntry historyEntry) throws Exception {
+        saveChange(historyEntry);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Waits until the changes of a project submitted so far are saved, so that the project can be saved or exported
+     * along with them.
+     * 
+     * @throws IOException
+     *             if some of the changes could not be saved
+     */
+    default public void waitForSavedChanges(long projectID) throws IOException {
+    }
+
     public void save(HistoryEntry historyEntry, Writer writer, Properties options);
 
     public void delete(HistoryEntry historyEntry);
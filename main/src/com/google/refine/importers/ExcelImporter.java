@@ -40,6 +40,7 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import org.apache.poi.ooxml.POIXMLException;
@@ -67,7 +68,8 @@ import com.google.refine.util.ParsingUtilities;
 public class ExcelImporter extends TabularImportingParserBase {
 
     static final Logger logger = LoggerFactory.getLogger(ExcelImporter.class);
-    static final DataFormatter dataFormatter = new DataFormatter();
+    // DataFormatter caches the formats it parses, and is not thread-safe
+    static final ThreadLocal<DataFormatter> dataFormatter = ThreadLocal.withInitial(DataFormatter::new);
     // TODO: Positive;negative;zero;text formats & color codes e.g. $#,##0.00_);[Red]($#,##0.00)
     // TODO: Conditional codes like currency [$K-647]
     static final Pattern NUMERIC_FORMAT = Pattern.compile("^\\?*\\$?[#,]+(0?\\.0[0#\\?]*)?%?$");
@@ -139,14 +141,19 @@ public class ExcelImporter extends TabularImportingParserBase {
             int limit,
             ObjectNode options,
             List<Exception> exceptions) {
-        Workbook wb;
+        Workbook wb = null;
+        XlsxWorkbookReader xlsx = null;
         if (!inputStream.markSupported()) {
             inputStream = new BufferedInputStream(inputStream);
         }
 
         try {
-            wb = FileMagic.valueOf(inputStream) == FileMagic.OOXML ? new XSSFWorkbook(inputStream)
-                    : new HSSFWorkbook(new POIFSFileSystem(inputStream));
+            // .xlsx workbooks are streamed one row at a time, as they can be too large to be loaded in memory
+            if (FileMagic.valueOf(inputStream) == FileMagic.OOXML) {
+                xlsx = new XlsxWorkbookReader(inputStream);
+            } else {
+                wb = new HSSFWorkbook(new POIFSFileSystem(inputStream));
+            }
         } catch (IOException e) {
             exceptions.add(new ImportException(
                     "Attempted to parse as an Excel file but failed. " +
@@ -184,6 +191,19 @@ public class ExcelImporter extends TabularImportingParserBase {
         }
         ArrayNode sheets = (ArrayNode) options.get("sheets");
 
+        if (xlsx != null) {
+            try {
+                readXlsxSheets(project, job, fileSource, xlsx, sheets, limit, options, forceText, exceptions);
+            } finally {
+                try {
+                    xlsx.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close Excel file", e);
+                }
+            }
+            return;
+        }
+
         for (int i = 0; i < sheets.size(); i++) {
             String[] fileNameAndSheetIndex = new String[2];
             ObjectNode sheetObj = (ObjectNode) sheets.get(i);
@@ -238,9 +258,38 @@ public class ExcelImporter extends TabularImportingParserBase {
         }
     }
 
+    private void readXlsxSheets(
+            Project project,
+            ImportingJob job,
+            String fileSource,
+            XlsxWorkbookReader xlsx,
+            ArrayNode sheets,
+            int limit,
+            ObjectNode options,
+            boolean forceText,
+            List<Exception> exceptions) {
+        for (int i = 0; i < sheets.size(); i++) {
+            ObjectNode sheetObj = (ObjectNode) sheets.get(i);
+            // value is fileName#sheetIndex
+            String[] fileNameAndSheetIndex = sheetObj.get("fileNameAndSheetIndex").asText().split("#");
+
+            if (!fileNameAndSheetIndex[0].equals(fileSource))
+                continue;
+
+            try (XlsxWorkbookReader.SheetReader sheet = xlsx.openSheet(Integer.parseInt(fileNameAndSheetIndex[1]), forceText)) {
+                TabularImportingParserBase.readTable(project, job, sheet, limit, options, exceptions);
+            } catch (IOException e) {
+                exceptions.add(new ImportException(
+                        "Attempted to parse as an Excel file but failed. " +
+                                "Invalid XML.",
+                        e));
+            }
+        }
+    }
+
     static protected Cell extractCell(org.apache.poi.ss.usermodel.Cell cell, boolean forceText) {
         if (forceText) {
-            return new Cell(dataFormatter.formatCellValue(cell), null);
+            return new Cell(dataFormatter.get().formatCellValue(cell), null);
         } else {
             return extractCell(cell);
         }
@@ -262,34 +311,8 @@ public class ExcelImporter extends TabularImportingParserBase {
         } else if (cellType.equals(CellType.NUMERIC)) {
             double d = cell.getNumericCellValue();
             ExcelNumberFormat nf = ExcelNumberFormat.from(cell, null);
-            if (DateUtil.isCellDateFormatted(cell)) { // This checks range as well as format, so is more comprehensive
-                // Excel supports dates, times, intervals (via format strings), but we only have a datetime type
-                // all unsupported types (ie if it doesn't have both date & time components in the format string)
-                // are rendered to text and imported as strings
-                if (!isDatetimeFormat(nf)) {
-                    value = dataFormatter.formatCellValue(cell);
-                } else {
-                    value = ParsingUtilities.toDate(DateUtil.getJavaDate(d));
-                }
-            } else {
-                String format = nf.getFormat();
-                if ("General".equals(format)) {
-                    if (d % 1.0 == 0) {
-                        value = (long) d;
-                    } else {
-                        value = d;
-                    }
-                } else if (isNumberFormat(nf)) {
-                    if (format.contains(".")) { // if it's formatted with a decimal separator, always import as float
-                        value = d;
-                    } else {
-                        value = (long) d; // we could be losing a fractional piece here, but it's not visible in Excel
-                    }
-                } else {
-                    // Anything except a pure number (e.g. telephone #, postal code, SSN, etc) gets imported as string
-                    value = dataFormatter.formatCellValue(cell);
-                }
-            }
+            // This checks range as well as format, so is more comprehensive
+            value = extractNumericValue(d, nf, DateUtil.isCellDateFormatted(cell), () -> dataFormatter.get().formatCellValue(cell));
         } else {
             String text = cell.getStringCellValue();
             if (text.length() > 0) {
@@ -300,6 +323,46 @@ public class ExcelImporter extends TabularImportingParserBase {
         return new Cell(value, null);
     }
 
+    /**
+     * Converts the value of a numeric cell according to its number format.
+     *
+     * @param dateFormatted
+     *            whether the cell is formatted as a date and holds a valid date
+     * @param formatted
+     *            supplies the text of the cell as displayed by Excel, for cells which are imported as strings
+     */
+    static protected Serializable extractNumericValue(double d, ExcelNumberFormat nf, boolean dateFormatted,
+            Supplier<String> formatted) {
+        if (dateFormatted) {
+            // Excel supports dates, times, intervals (via format strings), but we only have a datetime type
+            // all unsupported types (ie if it doesn't have both date & time components in the format string)
+            // are rendered to text and imported as strings
+            if (!isDatetimeFormat(nf)) {
+                return formatted.get();
+            } else {
+                return ParsingUtilities.toDate(DateUtil.getJavaDate(d));
+            }
+        } else {
+            String format = nf.getFormat();
+            if ("General".equals(format)) {
+                if (d % 1.0 == 0) {
+                    return (long) d;
+                } else {
+                    return d;
+                }
+            } else if (isNumberFormat(nf)) {
+                if (format.contains(".")) { // if it's formatted with a decimal separator, always import as float
+                    return d;
+                } else {
+                    return (long) d; // we could be losing a fractional piece here, but it's not visible in Excel
+                }
+            } else {
+                // Anything except a pure number (e.g. telephone #, postal code, SSN, etc) gets imported as string
+                return formatted.get();
+            }
+        }
+    }
+
     /**
      * Checks whether a cell format is a datetime format compatible with Refine.
      *
@@ -42,6 +42,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.CharMatcher;
@@ -52,25 +54,27 @@ import com.google.refine.model.Column;
 import com.google.refine.model.ModelException;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.util.NumberScanner;
 import com.google.refine.util.TrackingInputStream;
 
 public class ImporterUtilities {
 
     static public Serializable parseCellValue(String text) {
         if (text.length() > 0) {
-            String text2 = CharMatcher.whitespace().trimFrom(text);
-            if (text2.length() > 0) {
-                try {
-                    return Long.parseLong(text2);
-                } catch (NumberFormatException e) {
-                }
-
-                try {
-                    double d = Double.parseDouble(text2);
-                    if (!Double.isInfinite(d) && !Double.isNaN(d)) {
-                        return d;
-                    }
-                } catch (NumberFormatException e) {
+            int start = 0;
+            int end = text.length();
+            while (start < end && CharMatcher.whitespace().matches(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && CharMatcher.whitespace().matches(text.charAt(end - 1))) {
+                end--;
+            }
+            if (start < end) {
+                Number number = NumberScanner.parse(text, start, end);
+                if (number instanceof Long) {
+                    return (Long) number;
+                } else if (number != null && !Double.isInfinite(number.doubleValue()) && !Double.isNaN(number.doubleValue())) {
+                    return (Double) number;
                 }
             }
         }
@@ -213,28 +217,37 @@ public class ImporterUtilities {
         }
 
         final long totalSize2 = totalSize;
+        // files can be read concurrently, so the progress adds up the bytes read from all the files being read
         return new MultiFileReadingProgress() {
 
-            long totalBytesRead = 0;
+            final AtomicLong totalBytesRead = new AtomicLong();
+            final Map<String, Long> bytesReadByFile = new ConcurrentHashMap<>();
 
-            void setProgress(String fileSource, long bytesRead) {
-                job.setProgress(totalSize2 == 0 ? -1 : (int) (100 * (totalBytesRead + bytesRead) / totalSize2),
+            void setProgress(String fileSource) {
+                long bytesRead = totalBytesRead.get();
+                for (long fileBytesRead : bytesReadByFile.values()) {
+                    bytesRead += fileBytesRead;
+                }
+                job.setProgress(totalSize2 == 0 ? -1 : (int) (100 * bytesRead / totalSize2),
                         "Reading " + fileSource);
             }
 
             @Override
             public void startFile(String fileSource) {
-                setProgress(fileSource, 0);
+                bytesReadByFile.put(fileSource, 0L);
+                setProgress(fileSource);
             }
 
             @Override
             public void readingFile(String fileSource, long bytesRead) {
-                setProgress(fileSource, bytesRead);
+                bytesReadByFile.put(fileSource, bytesRead);
+                setProgress(fileSource);
             }
 
             @Override
             public void endFile(String fileSource, long bytesRead) {
-                totalBytesRead += bytesRead;
+                bytesReadByFile.remove(fileSource);
+                totalBytesRead.addAndGet(bytesRead);
             }
         };
     }
@@ -38,12 +38,22 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.importers.ImporterUtilities.MultiFileReadingProgress;
@@ -63,8 +73,37 @@ abstract public class ImportingParserBase implements ImportingParser {
 
     final static Logger logger = LoggerFactory.getLogger("ImportingParserBase");
 
+    /**
+     * Number of files parsed at the same time when importing several files.
+     */
+    static final public int PARALLEL_FILES = Integer.getInteger("refine.importers.parallelFiles",
+            Runtime.getRuntime().availableProcessors());
+
     final protected boolean useInputStream;
 
+    /**
+     * Number of files parsed at the same time by this parser, for parsers which {@link #canParseFilesInParallel()}.
+     */
+    protected int parallelFiles = PARALLEL_FILES;
+
+    // set on the threads parsing files in parallel, so that parsers do not start threads of their own on top of them
+    static final private ThreadLocal<Boolean> s_parsingFilesInParallel = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * The rows and columns parsed from a file into a project of its own, to be appended to the imported project.
+     */
+    static private class ParsedFile {
+
+        final ObjectNode fileRecord;
+        final Project project = new Project();
+        final ProjectMetadata metadata = new ProjectMetadata();
+        final List<Exception> exceptions = new ArrayList<>();
+
+        ParsedFile(ObjectNode fileRecord) {
+            this.fileRecord = fileRecord;
+        }
+    }
+
     /**
      * @param useInputStream
      *            true if parser takes an InputStream, false if it takes a Reader.
@@ -88,6 +127,11 @@ abstract public class ImportingParserBase implements ImportingParser {
             final ImportingJob job, List<ObjectNode> fileRecords, String format,
             int limit, ObjectNode options, List<Exception> exceptions) {
         MultiFileReadingProgress progress = ImporterUtilities.createMultiFileReadingProgress(job, fileRecords);
+        if (limit <= 0 && parallelFiles > 1 && fileRecords.size() > 1 && canParseFilesInParallel()) {
+            parseInParallel(project, metadata, job, fileRecords, options, exceptions, progress);
+            return;
+        }
+
         for (ObjectNode fileRecord : fileRecords) {
             if (job.canceled) {
                 break;
@@ -105,6 +149,119 @@ abstract public class ImportingParserBase implements ImportingParser {
         }
     }
 
+    /**
+     * Whether several files can be parsed at the same time, each into a project of its own whose columns and rows are
+     * then appended to the imported project, in the order of the files. This requires the parser to be usable from
+     * several threads, and to only add columns and rows to the project: columns are matched by name when the rows are
+     * appended.
+     */
+    protected boolean canParseFilesInParallel() {
+        return false;
+    }
+
+    /**
+     * Whether the calling thread is one of those parsing several files at the same time, in which case a parser should
+     * not parse a file on several threads as well.
+     */
+    static protected boolean isParsingFilesInParallel() {
+        return s_parsingFilesInParallel.get();
+    }
+
+    private void parseInParallel(Project project, ProjectMetadata metadata, ImportingJob job,
+            List<ObjectNode> fileRecords, ObjectNode options, List<Exception> exceptions,
+            MultiFileReadingProgress progress) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelFiles, fileRecords.size()), runnable -> {
+            Thread thread = new Thread(runnable, "file-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // files are parsed ahead of the one being appended, but not too far ahead so that few of them are held in
+        // memory
+        Deque<Future<ParsedFile>> pending = new ArrayDeque<>();
+        Iterator<ObjectNode> remaining = fileRecords.iterator();
+        try {
+            while (!job.canceled) {
+                while (remaining.hasNext() && pending.size() < 2 * parallelFiles) {
+                    ParsedFile parsedFile = new ParsedFile(remaining.next());
+                    pending.add(executor.submit(() -> {
+                        if (!job.canceled) {
+                            s_parsingFilesInParallel.set(true);
+                            try {
+                                parseOneFile(parsedFile.project, parsedFile.metadata, job, parsedFile.fileRecord, -1,
+                                        options, parsedFile.exceptions, progress);
+                            } catch (IOException e) {
+                                parsedFile.exceptions.add(e);
+                            } finally {
+                                s_parsingFilesInParallel.set(false);
+                            }
+                        }
+                        return parsedFile;
+                    }));
+                }
+                Future<ParsedFile> next = pending.poll();
+                if (next == null) {
+                    break;
+                }
+                ParsedFile parsedFile = next.get();
+                appendParsedFile(project, metadata, parsedFile, options);
+                exceptions.addAll(parsedFile.exceptions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exceptions.add(e);
+        } catch (ExecutionException e) {
+            exceptions.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends the rows of a file parsed into a project of its own, moving their cells to the columns of the same names,
+     * which are created if needed.
+     */
+    private void appendParsedFile(Project project, ProjectMetadata metadata, ParsedFile parsedFile, ObjectNode options) {
+        // add these columns to the project as parseOneFile would have, as they are not added at the end
+        int archiveColumnIndex = -1;
+        if (JSONUtilities.getBoolean(options, "includeArchiveFileName", false)
+                && ImportingUtilities.getArchiveFileName(parsedFile.fileRecord) != null) {
+            archiveColumnIndex = addArchiveColumn(project);
+        }
+        if (JSONUtilities.getBoolean(options, "includeFileSources", false)) {
+            addFilenameColumn(project, archiveColumnIndex >= 0);
+        }
+
+        int[] cellIndices = new int[parsedFile.project.columnModel.getMaxCellIndex() + 1];
+        Arrays.fill(cellIndices, -1);
+        for (Column parsedColumn : parsedFile.project.columnModel.columns) {
+            Column column = project.columnModel.getColumnByName(parsedColumn.getName());
+            if (column == null) {
+                column = new Column(project.columnModel.allocateNewCellIndex(), parsedColumn.getName());
+                try {
+                    project.columnModel.addColumn(project.columnModel.columns.size(), column, false);
+                } catch (ModelException e) {
+                    // Shouldn't happen: We already checked for duplicate name.
+                    logger.error("ModelException adding column", e);
+                }
+            }
+            cellIndices[parsedColumn.getCellIndex()] = column.getCellIndex();
+        }
+
+        for (Row parsedRow : parsedFile.project.rows) {
+            Row row = new Row(parsedRow.cells.size());
+            for (int i = 0; i < parsedRow.cells.size() && i < cellIndices.length; i++) {
+                if (cellIndices[i] >= 0) {
+                    row.setCell(cellIndices[i], parsedRow.cells.get(i));
+                }
+            }
+            project.rows.add(row);
+        }
+
+        for (JsonNode fileOptions : parsedFile.metadata.getImportOptionMetadata()) {
+            metadata.appendImportOptionMetadata((ObjectNode) fileOptions);
+        }
+    }
+
     // TODO: Make private? At least protected?
     public void parseOneFile(
             Project project,
@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.importers;
+
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
+
+/**
+ * Reads the records of a CSV or TSV file on several threads. The text is cut into chunks of whole records, which are
+ * parsed by a pool of workers, each with its own {@link CsvParser}. The workers also turn the values of the records
+ * into cells, as {@link TabularImportingParserBase#readTable} would, and the rows are returned in the order of the
+ * file.
+ * <p>
+ * Chunks are only cut at line breaks known to end a record: outside of quoted values, in a part of the file where all
+ * quoted values are closed properly. Once a quoted value spans several lines or is followed by anything else than a
+ * separator or a line break, where records end can no longer be told without parsing the file from its start, so the
+ * rest of the file is parsed sequentially. Files which fit in a single chunk are parsed without any thread.
+ */
+public class ParallelCsvReader implements TableDataReader, Closeable {
+
+    /**
+     * Number of threads parsing a file.
+     */
+    static final public int THREADS = Integer.getInteger("refine.importers.csv.threads", Runtime.getRuntime().availableProcessors());
+    /**
+     * Number of characters in a chunk parsed by a single thread.
+     */
+    static final public int CHUNK_SIZE = Integer.getInteger("refine.importers.csv.chunkSize", 4 * 1024 * 1024);
+
+    // States of the scan for the ends of records
+    static final private int FIELD_START = 0;
+    static final private int UNQUOTED = 1;
+    static final private int QUOTED = 2;
+    static final private int QUOTE_IN_QUOTED = 3;
+    static final private int AFTER_QUOTED = 4;
+    static final private int UNSAFE = 5;
+
+    final private Reader _reader;
+    final private CsvParserSettings _settings;
+    final private char _separator;
+    final private char _quote;
+    final private int _rawRows;
+    final private boolean _trimStrings;
+    final private boolean _guessCellValueTypes;
+    final private int _threads;
+
+    // Characters read but not yet handed over to a worker, of which the first _scanned have been scanned
+    final private char[] _buffer;
+    private int _length = 0;
+    private int _scanned = 0;
+    private int _state = FIELD_START;
+    private boolean _eof = false;
+    private boolean _sequential = false;
+
+    private ExecutorService _executor;
+    final private Deque<Future<Chunk>> _pending = new ArrayDeque<>();
+    // number of chunks kept pending, doubled each time a chunk is consumed, so that little is read ahead of a reader
+    // stopping early
+    private int _readAhead = 1;
+    private Chunk _chunk;
+    private int _next;
+    private CsvParser _sequentialParser;
+    private int _rowsReturned = 0;
+
+    /**
+     * Rows parsed from a chunk, with their values turned into cells. The values of the first records are also kept as
+     * parsed, in case they are the first rows of the file.
+     */
+    static private class Chunk {
+
+        final List<Object[]> rows = new ArrayList<>();
+        final List<String[]> records = new ArrayList<>();
+        RuntimeException error;
+    }
+
+    /**
+     * @param reader
+     *            the text of the file
+     * @param settings
+     *            the settings of the parser, copied for each chunk
+     * @param rawRows
+     *            number of rows at the start of the file to return as parsed, such as ignored lines and headers,
+     *            instead of turning their values into cells
+     * @param threads
+     *            number of threads parsing the chunks
+     * @param chunkSize
+     *            number of characters in a chunk, also the length of the longest record which can be parsed in
+     *            parallel
+     */
+    public ParallelCsvReader(Reader reader, CsvParserSettings settings, int rawRows, boolean trimStrings,
+            boolean guessCellValueTypes, int threads, int chunkSize) {
+        _reader = reader;
+        _settings = settings;
+        _separator = settings.getFormat().getDelimiter();
+        _quote = settings.getFormat().getQuote();
+        _rawRows = rawRows;
+        _trimStrings = trimStrings;
+        _guessCellValueTypes = guessCellValueTypes;
+        _threads = threads;
+        _buffer = new char[chunkSize];
+    }
+
+    /**
+     * Whether files parsed with these settings can be cut into chunks: records must be separated by line feeds, values
+     * by a single character, and quotes must be escaped by doubling them.
+     */
+    static public boolean canSplit(CsvParserSettings settings) {
+        return "\n".equals(settings.getFormat().getLineSeparatorString())
+                && settings.getFormat().getDelimiterString().length() == 1
+                && settings.getFormat().getQuote() == settings.getFormat().getQuoteEscape();
+    }
+
+    @Override
+    public List<Object> getNextRowOfCells() throws IOException {
+        while (true) {
+            if (_chunk != null) {
+                if (_next < _chunk.rows.size()) {
+                    int next = _next++;
+                    if (_rowsReturned < _rawRows) {
+                        _rowsReturned++;
+                        return asRow(_chunk.records.get(next));
+                    }
+                    return asRow(_chunk.rows.get(next));
+                } else if (_chunk.error != null) {
+                    RuntimeException error = _chunk.error;
+                    _chunk.error = null;
+                    throw error;
+                }
+                _chunk = null;
+            }
+
+            if (_sequentialParser != null) {
+                String[] record = _sequentialParser.parseNext();
+                return record != null ? asRow(record) : null;
+            }
+
+            dispatchChunks();
+            Future<Chunk> future = _pending.poll();
+            if (future != null) {
+                _readAhead = Math.min(2 * _threads, 2 * _readAhead);
+                _chunk = await(future);
+                _next = 0;
+            } else if (_sequential) {
+                _sequentialParser = new CsvParser(_settings);
+                _sequentialParser.beginParsing(new PrefixedReader(Arrays.copyOf(_buffer, _length), _reader));
+                _length = 0;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    static private List<Object> asRow(Object[] cells) {
+        return Arrays.asList(cells);
+    }
+
+    @Override
+    public void close() {
+        for (Future<Chunk> future : _pending) {
+            future.cancel(true);
+        }
+        _pending.clear();
+        if (_executor != null) {
+            _executor.shutdownNow();
+        }
+        if (_sequentialParser != null) {
+            _sequentialParser.stopParsing();
+        }
+    }
+
+    /**
+     * Hands chunks over to the workers until enough of them are pending, the end of the file is reached, or the rest
+     * of the file has to be parsed sequentially.
+     */
+    private void dispatchChunks() throws IOException {
+        while (!_sequential && _pending.size() < _readAhead) {
+            char[] text = nextChunk();
+            if (text == null) {
+                break;
+            }
+            if (_executor == null && _eof && _length == 0 && _pending.isEmpty()) {
+                _pending.add(CompletableFuture.completedFuture(parse(text)));
+            } else {
+                if (_executor == null) {
+                    _executor = Executors.newFixedThreadPool(_threads, runnable -> {
+                        Thread thread = new Thread(runnable, "csv-parser");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                _pending.add(_executor.submit(() -> parse(text)));
+            }
+        }
+    }
+
+    /**
+     * Reads the file until the buffer is full, and takes the records it contains out of it.
+     * 
+     * @return the text of the records, or null if there are none to parse in parallel
+     */
+    private char[] nextChunk() throws IOException {
+        while (_length < _buffer.length && !_eof) {
+            int read = _reader.read(_buffer, _length, _buffer.length - _length);
+            if (read < 0) {
+                _eof = true;
+            } else {
+                _length += read;
+            }
+        }
+
+        int end = _eof && _state != UNSAFE ? _length : scan();
+        if (_state == UNSAFE || end == 0 && _length > 0) {
+            // the rest of the file, or a record longer than the buffer
+            _sequential = true;
+        }
+        if (end == 0) {
+            return null;
+        }
+        char[] text = Arrays.copyOf(_buffer, end);
+        System.arraycopy(_buffer, end, _buffer, 0, _length - end);
+        _length -= end;
+        _scanned = Math.max(0, _scanned - end);
+        return text;
+    }
+
+    /**
+     * Scans the characters of the buffer not scanned yet.
+     * 
+     * @return the offset following the last line feed known to end a record, or 0 if there is none
+     */
+    private int scan() {
+        int end = 0;
+        int state = _state;
+        int i = _scanned;
+        for (; i < _length && state != UNSAFE; i++) {
+            char c = _buffer[i];
+            switch (state) {
+                case FIELD_START:
+                case UNQUOTED:
+                    if (c == '\n') {
+                        end = i + 1;
+                        state = FIELD_START;
+                    } else if (c == _separator) {
+                        state = FIELD_START;
+                    } else if (c == _quote && state == FIELD_START) {
+                        state = QUOTED;
+                    } else {
+                        state = UNQUOTED;
+                    }
+                    break;
+                case QUOTED:
+                    if (c == _quote) {
+                        state = QUOTE_IN_QUOTED;
+                    } else if (c == '\n' || c == '\r') {
+                        state = UNSAFE;
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED or AFTER_QUOTED
+                    if (c == _quote && state == QUOTE_IN_QUOTED) {
+                        state = QUOTED;
+                    } else if (c == '\n') {
+                        end = i + 1;
+                        state = FIELD_START;
+                    } else if (c == _separator) {
+                        state = FIELD_START;
+                    } else if (c == ' ' || c == '\t' || c == '\r') {
+                        // the parser skips whitespace following a quoted value
+                        state = AFTER_QUOTED;
+                    } else {
+                        state = UNSAFE;
+                    }
+            }
+        }
+        _scanned = i;
+        _state = state;
+        return end;
+    }
+
+    private Chunk parse(char[] text) {
+        Chunk chunk = new Chunk();
+        CsvParserSettings settings = _settings.clone();
+        // the text is in memory already, and the chunks are parsed in parallel anyway
+        settings.setReadInputOnSeparateThread(false);
+        settings.setInputBufferSize(Math.min(settings.getInputBufferSize(), text.length + 1));
+        CsvParser parser = new CsvParser(settings);
+        try {
+            parser.beginParsing(new CharArrayReader(text));
+            String[] record;
+            while ((record = parser.parseNext()) != null) {
+                Object[] row = new Object[record.length];
+                for (int i = 0; i < record.length; i++) {
+                    row[i] = ExpressionUtils.isNonBlankData(record[i])
+                            ? TabularImportingParserBase.createCell(record[i], _trimStrings, _guessCellValueTypes)
+                            : record[i];
+                }
+                chunk.rows.add(row);
+                // a row can only be among the first rows of the file if it is among the first rows of its chunk
+                if (chunk.records.size() < _rawRows) {
+                    chunk.records.add(record);
+                }
+            }
+        } catch (RuntimeException e) {
+            chunk.error = e;
+        } finally {
+            parser.stopParsing();
+        }
+        return chunk;
+    }
+
+    private Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse", e.getCause());
+        }
+    }
+
+    /**
+     * Reads some characters, then the rest of another reader.
+     */
+    static private class PrefixedReader extends Reader {
+
+        final private char[] _prefix;
+        private int _position = 0;
+        final private Reader _rest;
+
+        PrefixedReader(char[] prefix, Reader rest) {
+            _prefix = prefix;
+            _rest = rest;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (_position < _prefix.length) {
+                int count = Math.min(len, _prefix.length - _position);
+                System.arraycopy(_prefix, _position, cbuf, off, count);
+                _position += count;
+                return count;
+            }
+            return _rest.read(cbuf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            _rest.close();
+        }
+    }
+}
@@ -69,6 +69,15 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
 
     char DEFAULT_QUOTE_CHAR = new CsvParserSettings().getFormat().getQuote();
 
+    /**
+     * Number of threads parsing a file. Files are parsed sequentially when this is 1.
+     */
+    protected int parserThreads = ParallelCsvReader.THREADS;
+    /**
+     * Number of characters of a file parsed at once by each thread.
+     */
+    protected int chunkSize = ParallelCsvReader.CHUNK_SIZE;
+
     public SeparatorBasedImporter() {
         super(false);
     }
@@ -149,9 +158,30 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
         settings.setKeepQuotes(!processQuotes);
         settings.setMaxCharsPerColumn(256 * 1024); // TODO: Perhaps use a lower default and make user configurable?
 
+        ParallelCsvReader parallelReader = null;
         try (final LineNumberReader lnReader = new LineNumberReader(reader);) {
-            CsvParser parser = new CsvParser(settings);
-            parser.beginParsing(lnReader);
+            final TableDataReader recordReader;
+            // a limited parse, such as a preview, only needs the start of the file
+            if (parserThreads > 1 && limit <= 0 && !isParsingFilesInParallel() && ParallelCsvReader.canSplit(settings)) {
+                int rawRows = Math.max(0, JSONUtilities.getInt(options, "ignoreLines", -1))
+                        + Math.max(0, JSONUtilities.getInt(options, "headerLines", 1));
+                parallelReader = new ParallelCsvReader(lnReader, settings, rawRows,
+                        JSONUtilities.getBoolean(options, "trimStrings", false),
+                        JSONUtilities.getBoolean(options, "guessCellValueTypes", false),
+                        parserThreads, chunkSize);
+                recordReader = parallelReader;
+            } else {
+                CsvParser parser = new CsvParser(settings);
+                parser.beginParsing(lnReader);
+                recordReader = () -> {
+                    Record record = parser.parseNextRecord();
+                    if (record != null) {
+                        return Arrays.asList(record.getValues());
+                    } else {
+                        return null;
+                    }
+                };
+            }
 
             TableDataReader dataReader = new TableDataReader() {
 
@@ -163,12 +193,7 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
                         usedColumnNames = true;
                         return columnNames;
                     } else {
-                        Record record = parser.parseNextRecord();
-                        if (record != null) {
-                            return Arrays.asList(record.getValues());
-                        } else {
-                            return null;
-                        }
+                        return recordReader.getNextRowOfCells();
                     }
                 }
             };
@@ -178,6 +203,10 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
             exceptions.add(e);
         } catch (IOException e) {
             exceptions.add(e);
+        } finally {
+            if (parallelReader != null) {
+                parallelReader.close();
+            }
         }
     }
 
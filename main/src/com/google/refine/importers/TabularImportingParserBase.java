@@ -80,6 +80,11 @@ abstract public class TabularImportingParserBase extends ImportingParserBase {
         super(useInputStream);
     }
 
+    @Override
+    protected boolean canParseFilesInParallel() {
+        return true;
+    }
+
     /**
      * @param project
      * @param metadata
@@ -182,18 +187,7 @@ abstract public class TabularImportingParserBase extends ImportingParserBase {
                                 row.setCell(column.getCellIndex(), (Cell) value);
                                 rowHasData = true;
                             } else if (ExpressionUtils.isNonBlankData(value)) {
-                                Serializable storedValue;
-                                if (value instanceof String) {
-                                    if (trimStrings) {
-                                        value = CharMatcher.whitespace().trimFrom(((String) value));
-                                    }
-                                    storedValue = guessCellValueTypes ? ImporterUtilities.parseCellValue((String) value) : (String) value;
-
-                                } else {
-                                    storedValue = ExpressionUtils.wrapStorable(value);
-                                }
-
-                                row.setCell(column.getCellIndex(), new Cell(storedValue, null));
+                                row.setCell(column.getCellIndex(), createCell(value, trimStrings, guessCellValueTypes));
                                 rowHasData = true;
                             } else if (!storeBlankCellsAsNulls) {
                                 row.setCell(column.getCellIndex(), new Cell("", null));
@@ -216,4 +210,23 @@ abstract public class TabularImportingParserBase extends ImportingParserBase {
             exceptions.add(e);
         }
     }
+
+    /**
+     * Turns a non-blank value returned by a {@link TableDataReader} into the cell stored in the project, the way
+     * {@link #readTable(Project, ImportingJob, TableDataReader, int, ObjectNode, List)} does it. Readers can use this to
+     * do that work themselves, for instance on several threads, and return the resulting cells instead.
+     */
+    static protected Cell createCell(Object value, boolean trimStrings, boolean guessCellValueTypes) {
+        Serializable storedValue;
+        if (value instanceof String) {
+            if (trimStrings) {
+                value = CharMatcher.whitespace().trimFrom(((String) value));
+            }
+            storedValue = guessCellValueTypes ? ImporterUtilities.parseCellValue((String) value) : (String) value;
+
+        } else {
+            storedValue = ExpressionUtils.wrapStorable(value);
+        }
+        return new Cell(storedValue, null);
+    }
 }
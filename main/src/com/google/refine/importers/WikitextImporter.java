@@ -102,6 +102,12 @@ public class WikitextImporter extends TabularImportingParserBase {
         super(false);
     }
 
+    @Override
+    protected boolean canParseFilesInParallel() {
+        // reconciled columns and the page caption would not make it to the imported project
+        return false;
+    }
+
     @Override
     public ObjectNode createParserUIInitializationData(
             ImportingJob job, List<ObjectNode> fileRecords, String format) {
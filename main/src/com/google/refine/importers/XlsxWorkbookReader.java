@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.importers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelNumberFormat;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.SAXException;
+
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
+import com.google.refine.model.Cell;
+
+/**
+ * Reads the sheets of an Office Open XML workbook (.xlsx) one row at a time, by streaming the XML of each sheet,
+ * instead of loading the whole workbook in memory as {@link org.apache.poi.xssf.usermodel.XSSFWorkbook} does. Only the
+ * shared strings and the cell styles of the workbook are kept in memory. Cells are converted to values the same way
+ * as {@link ExcelImporter} does for workbooks loaded in memory.
+ */
+public class XlsxWorkbookReader implements Closeable {
+
+    static final private ExcelNumberFormat GENERAL = new ExcelNumberFormat(0, "General");
+
+    final protected OPCPackage _package;
+    final protected XSSFReader _reader;
+    final protected ReadOnlySharedStringsTable _sharedStrings;
+    final protected StylesTable _styles;
+    final protected boolean _date1904;
+    final protected Map<Integer, ExcelNumberFormat> _formats = new HashMap<>();
+    protected File _tempFile;
+
+    /**
+     * Copies the workbook to a temporary file first, so that its parts can be read without loading the whole
+     * (uncompressed) package in memory. The file is deleted when the reader is closed.
+     */
+    public XlsxWorkbookReader(InputStream inputStream) throws IOException {
+        this(copyToTempFile(inputStream), true);
+    }
+
+    public XlsxWorkbookReader(File file) throws IOException {
+        this(file, false);
+    }
+
+    protected XlsxWorkbookReader(File file, boolean temporary) throws IOException {
+        if (temporary) {
+            _tempFile = file;
+        }
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            _package = pkg;
+            _reader = new XSSFReader(pkg);
+            _sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            _styles = _reader.getStylesTable();
+            try (InputStream workbook = _reader.getWorkbookData()) {
+                _date1904 = readDate1904(workbook);
+            }
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            closeQuietly(pkg);
+            throw new POIXMLException(e);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(pkg);
+            throw e;
+        }
+    }
+
+    static private File copyToTempFile(InputStream inputStream) throws IOException {
+        File file = File.createTempFile("openrefine-xlsx-import", ".xlsx");
+        try {
+            Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    private void closeQuietly(OPCPackage pkg) {
+        if (pkg != null) {
+            pkg.revert();
+        }
+        if (_tempFile != null) {
+            _tempFile.delete();
+        }
+    }
+
+    static protected XMLStreamReader createXMLStreamReader(InputStream inputStream) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(inputStream);
+    }
+
+    static private boolean readDate1904(InputStream workbook) throws XMLStreamException {
+        XMLStreamReader parser = createXMLStreamReader(workbook);
+        try {
+            while (parser.hasNext()) {
+                if (parser.next() == XMLStreamConstants.START_ELEMENT) {
+                    if ("workbookPr".equals(parser.getLocalName())) {
+                        String date1904 = parser.getAttributeValue(null, "date1904");
+                        return "1".equals(date1904) || "true".equals(date1904);
+                    } else if ("sheets".equals(parser.getLocalName())) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Opens a sheet for reading.
+     *
+     * @param index
+     *            the position of the sheet in the workbook, starting from 0
+     * @param forceText
+     *            whether to import all cells as their text, as displayed by Excel
+     * @return the sheet, which must be closed after reading it
+     * @throws IllegalArgumentException
+     *             if the workbook has no such sheet
+     */
+    public SheetReader openSheet(int index, boolean forceText) throws IOException {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) _reader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                InputStream sheet = sheets.next();
+                if (i == index) {
+                    return new SheetReader(sheets.getSheetName(), sheet, forceText);
+                }
+                sheet.close();
+            }
+        } catch (OpenXML4JException | XMLStreamException e) {
+            throw new IOException(e);
+        }
+        throw new IllegalArgumentException("Sheet index (" + index + ") is out of range");
+    }
+
+    protected ExcelNumberFormat getFormat(int styleIndex) {
+        return _formats.computeIfAbsent(styleIndex, i -> {
+            CellStyle style = _styles == null || i >= _styles.getNumCellStyles() ? null : _styles.getStyleAt(i);
+            return style == null ? GENERAL : ExcelNumberFormat.from(style);
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the package is opened read-only: reverting closes it without trying to save it
+        _package.revert();
+        if (_tempFile != null) {
+            _tempFile.delete();
+        }
+    }
+
+    /**
+     * Streams the rows of a sheet. Missing rows are returned as empty lists and missing cells as nulls, like for sheets
+     * loaded in memory.
+     */
+    public class SheetReader implements TableDataReader, Closeable {
+
+        final protected String _sheetName;
+        final protected InputStream _inputStream;
+        final protected XMLStreamReader _parser;
+        final protected boolean _forceText;
+        protected int _nextRow = 0;
+        protected int _pendingRow = -1;
+        protected List<Object> _pendingCells;
+        protected boolean _done = false;
+
+        protected SheetReader(String sheetName, InputStream inputStream, boolean forceText) throws XMLStreamException {
+            _sheetName = sheetName;
+            _inputStream = inputStream;
+            _parser = createXMLStreamReader(inputStream);
+            _forceText = forceText;
+        }
+
+        public String getSheetName() {
+            return _sheetName;
+        }
+
+        @Override
+        public List<Object> getNextRowOfCells() throws IOException {
+            try {
+                if (_pendingCells == null && !_done) {
+                    readRow();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            if (_pendingCells == null) {
+                return null;
+            } else if (_pendingRow > _nextRow) {
+                _nextRow++;
+                return new ArrayList<Object>();
+            }
+            List<Object> cells = _pendingCells;
+            _pendingCells = null;
+            _nextRow++;
+            return cells;
+        }
+
+        protected void readRow() throws XMLStreamException {
+            while (_parser.hasNext()) {
+                int event = _parser.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "row".equals(_parser.getLocalName())) {
+                    String r = _parser.getAttributeValue(null, "r");
+                    _pendingRow = r == null ? _nextRow : Math.max(_nextRow, Integer.parseInt(r) - 1);
+                    _pendingCells = readCells();
+                    return;
+                } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(_parser.getLocalName())) {
+                    break;
+                }
+            }
+            _done = true;
+        }
+
+        protected List<Object> readCells() throws XMLStreamException {
+            List<Object> cells = new ArrayList<Object>();
+            while (_parser.hasNext()) {
+                int event = _parser.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(_parser.getLocalName())) {
+                    String ref = _parser.getAttributeValue(null, "r");
+                    int column = ref == null ? cells.size() : getColumnIndex(ref);
+                    while (cells.size() < column) {
+                        cells.add(null);
+                    }
+                    Cell cell = readCell();
+                    if (column < cells.size()) {
+                        cells.set(column, cell);
+                    } else {
+                        cells.add(cell);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(_parser.getLocalName())) {
+                    break;
+                }
+            }
+            return cells;
+        }
+
+        protected Cell readCell() throws XMLStreamException {
+            String type = _parser.getAttributeValue(null, "t");
+            String style = _parser.getAttributeValue(null, "s");
+            String value = null;
+            String formula = null;
+            StringBuilder inlineText = null;
+            while (_parser.hasNext()) {
+                int event = _parser.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = _parser.getLocalName();
+                    if ("v".equals(name)) {
+                        value = _parser.getElementText();
+                    } else if ("f".equals(name)) {
+                        formula = _parser.getElementText();
+                    } else if ("is".equals(name)) {
+                        inlineText = new StringBuilder();
+                        readInlineText(inlineText);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(_parser.getLocalName())) {
+                    break;
+                }
+            }
+
+            if ("s".equals(type)) {
+                String text = value == null ? "" : _sharedStrings.getItemAt(Integer.parseInt(value.trim())).getString();
+                return textCell(text, formula);
+            } else if ("inlineStr".equals(type)) {
+                return textCell(inlineText == null ? (value == null ? "" : value) : inlineText.toString(), formula);
+            } else if ("str".equals(type) || "d".equals(type)) {
+                return textCell(value == null ? "" : value, formula);
+            } else if ("b".equals(type)) {
+                boolean b = value != null && ("1".equals(value.trim()) || "true".equalsIgnoreCase(value.trim()));
+                if (_forceText) {
+                    return new Cell(formula != null && !formula.isEmpty() ? formula : (b ? "TRUE" : "FALSE"), null);
+                }
+                return new Cell(b, null);
+            } else if ("e".equals(type)) {
+                if (_forceText) {
+                    return new Cell(formula != null && !formula.isEmpty() ? formula : (value == null ? "" : value), null);
+                }
+                return null;
+            }
+
+            if ((value == null || value.isEmpty()) && formula == null) {
+                // blank cell
+                return _forceText ? new Cell("", null) : null;
+            }
+            // formulas without a cached result evaluate to zero, like in POI
+            double d = value == null || value.isEmpty() ? 0.0 : Double.parseDouble(value);
+            ExcelNumberFormat format = getFormat(style == null ? 0 : Integer.parseInt(style));
+            if (_forceText) {
+                return new Cell(formula != null && !formula.isEmpty() ? formula : formatNumber(d, format), null);
+            }
+            boolean dateFormatted = DateUtil.isValidExcelDate(d) && DateUtil.isADateFormat(format);
+            Serializable v = ExcelImporter.extractNumericValue(d, format, dateFormatted, () -> formatNumber(d, format));
+            return new Cell(v, null);
+        }
+
+        private Cell textCell(String text, String formula) {
+            if (_forceText) {
+                return new Cell(formula != null && !formula.isEmpty() ? formula : text, null);
+            }
+            return new Cell(text.length() > 0 ? text : null, null);
+        }
+
+        private String formatNumber(double d, ExcelNumberFormat format) {
+            return ExcelImporter.dataFormatter.get().formatRawCellContents(d, format.getIdx(), format.getFormat(), _date1904);
+        }
+
+        /**
+         * Reads the text of a rich text inline string, leaving out its phonetic runs.
+         */
+        private void readInlineText(StringBuilder sb) throws XMLStreamException {
+            int depth = 1;
+            int phonetic = 0;
+            while (depth > 0 && _parser.hasNext()) {
+                int event = _parser.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = _parser.getLocalName();
+                    if ("t".equals(name) && phonetic == 0) {
+                        sb.append(_parser.getElementText());
+                    } else {
+                        depth++;
+                        if ("rPh".equals(name)) {
+                            phonetic++;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    if ("rPh".equals(_parser.getLocalName())) {
+                        phonetic--;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                _parser.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                _inputStream.close();
+            }
+        }
+    }
+
+    /**
+     * @return the index of the column of a cell reference such as "AB12", starting from 0
+     */
+    static protected int getColumnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                column = column * 26 + (c - 'A' + 1);
+            } else if (c >= 'a' && c <= 'z') {
+                column = column * 26 + (c - 'a' + 1);
+            } else {
+                break;
+            }
+        }
+        return column - 1;
+    }
+}
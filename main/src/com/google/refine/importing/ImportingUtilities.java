@@ -95,6 +95,7 @@ import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.importing.ImportingManager.Format;
 import com.google.refine.importing.UrlRewriter.Result;
+import com.google.refine.model.CellDictionary;
 import com.google.refine.model.Project;
 import com.google.refine.util.HttpClient;
 import com.google.refine.util.JSONUtilities;
@@ -1136,6 +1137,8 @@ public class ImportingUtilities {
         if (!job.canceled) {
             if (exceptions.size() == 0) {
                 project.update(); // update all internal models, indexes, caches, etc.
+                long sharedCells = CellDictionary.compact(project);
+                logger.debug("Shared {} cells of project {} between rows", sharedCells, project.id);
 
                 ProjectManager.singleton.registerProject(project, pm);
 
@@ -33,16 +33,32 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.refine.ProjectManager;
 import com.google.refine.history.History;
 import com.google.refine.history.HistoryEntry;
@@ -52,12 +68,64 @@ import com.google.refine.util.Pool;
 
 public class FileHistoryEntryManager implements HistoryEntryManager {
 
+    final static Logger logger = LoggerFactory.getLogger("FileHistoryEntryManager");
+
+    /**
+     * How change files are compressed: "default" for the default deflate level, "fast" for the fastest deflate level,
+     * or "none" to store them uncompressed. Change files can be read whichever way they were written.
+     */
+    final static public String CHANGE_COMPRESSION = System.getProperty("refine.history.changeCompression", "default");
+
+    final static private int WRITER_THREADS = Integer.getInteger("refine.history.writerThreads", 2);
+
+    // writes change files without holding the lock of their project
+    final static protected ExecutorService s_writer = Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "change-file-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the last task queued for each project, each task being chained after the previous one of the same project
+    final static protected Map<Long, CompletableFuture<Void>> s_pendingTasks = new HashMap<>();
+
+    // the change files which could not be written, by project, to be written again before the project is saved
+    final static protected Map<Long, List<ChangeFile>> s_failedWrites = new HashMap<>();
+
+    // how this manager compresses change files, see CHANGE_COMPRESSION
+    protected String _compression = CHANGE_COMPRESSION;
+
+    /**
+     * A change serialized in memory, to be written to its file.
+     */
+    static protected class ChangeFile {
+
+        final File file;
+        final byte[] change;
+        final byte[] pool;
+        final CompletableFuture<Void> saved = new CompletableFuture<>();
+
+        ChangeFile(File file, byte[] change, byte[] pool) {
+            this.file = file;
+            this.change = change;
+            this.pool = pool;
+        }
+    }
+
     @Override
     public void delete(HistoryEntry historyEntry) {
         File file = getChangeFile(historyEntry);
-        if (file.exists()) {
-            file.delete();
+        synchronized (s_failedWrites) {
+            List<ChangeFile> failedWrites = s_failedWrites.get(historyEntry.projectID);
+            if (failedWrites != null) {
+                failedWrites.removeIf(changeFile -> changeFile.file.equals(file));
+            }
         }
+        // the file may still have to be written, in which case it is deleted afterwards
+        enqueue(historyEntry.projectID, () -> {
+            if (file.exists()) {
+                file.delete();
+            }
+        }, false);
     }
 
     @Override
@@ -94,8 +162,10 @@ public class FileHistoryEntryManager implements HistoryEntryManager {
                         zipFile.getInputStream(poolEntry)));
             } // else, it's a legacy project file
 
+            ZipEntry changeEntry = zipFile.getEntry("change.txt");
             historyEntry.setChange(History.readOneChange(
-                    zipFile.getInputStream(zipFile.getEntry("change.txt")), pool));
+                    zipFile.getInputStream(changeEntry), pool));
+            historyEntry.setChangeSize(changeEntry.getSize());
         } finally {
             zipFile.close();
         }
@@ -103,35 +173,182 @@ public class FileHistoryEntryManager implements HistoryEntryManager {
 
     @Override
     public void saveChange(HistoryEntry historyEntry) throws Exception {
+        // the change may be redone while its file is still being written in the background
+        waitForPendingTasks(historyEntry.projectID);
+
         File changeFile = getChangeFile(historyEntry);
         if (!(changeFile.exists())) {
             saveChange(historyEntry, changeFile);
+        } else {
+            // the change is being redone, from the file saved when it was first done
+            try (ZipFile zipFile = new ZipFile(changeFile)) {
+                historyEntry.setChangeSize(zipFile.getEntry("change.txt").getSize());
+            }
         }
     }
 
     protected void saveChange(HistoryEntry historyEntry, File file) throws Exception {
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
-        try {
-            Pool pool = new Pool();
+        writeChangeFile(serializeChange(historyEntry, file));
+    }
 
-            out.putNextEntry(new ZipEntry("change.txt"));
+    /**
+     * Serializes the change right away, as the project may be modified further once its lock is released, but leaves
+     * compressing and writing it to a background thread.
+     */
+    @Override
+    public CompletableFuture<Void> saveChangeInBackground(HistoryEntry historyEntry) throws Exception {
+        File file = getChangeFile(historyEntry);
+        if (file.exists()) {
+            saveChange(historyEntry);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ChangeFile changeFile = serializeChange(historyEntry, file);
+        long projectID = historyEntry.projectID;
+        enqueue(projectID, () -> {
             try {
-                History.writeOneChange(out, historyEntry.getChange(), pool);
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                out.closeEntry();
+                writeChangeFile(changeFile);
+                changeFile.saved.complete(null);
+            } catch (IOException e) {
+                logger.error("Failed to write change file {}, it will be written again when the project is saved",
+                        file.getAbsolutePath(), e);
+                synchronized (s_failedWrites) {
+                    s_failedWrites.computeIfAbsent(projectID, id -> new ArrayList<>()).add(changeFile);
+                }
+            } catch (RuntimeException e) {
+                // not worth retrying: the change is kept in memory instead
+                logger.error("Failed to write change file {}", file.getAbsolutePath(), e);
+                changeFile.saved.completeExceptionally(e);
+            }
+        }, true);
+        return changeFile.saved;
+    }
+
+    @Override
+    public void waitForSavedChanges(long projectID) throws IOException {
+        waitForPendingTasks(projectID);
+
+        List<ChangeFile> failedWrites;
+        synchronized (s_failedWrites) {
+            failedWrites = s_failedWrites.remove(projectID);
+        }
+        if (failedWrites != null) {
+            for (int i = 0; i < failedWrites.size(); i++) {
+                ChangeFile changeFile = failedWrites.get(i);
+                try {
+                    writeChangeFile(changeFile);
+                } catch (IOException e) {
+                    synchronized (s_failedWrites) {
+                        s_failedWrites.computeIfAbsent(projectID, id -> new ArrayList<>())
+                                .addAll(0, failedWrites.subList(i, failedWrites.size()));
+                    }
+                    throw e;
+                }
+                changeFile.saved.complete(null);
             }
+        }
+    }
 
-            out.putNextEntry(new ZipEntry("pool.txt"));
+    protected void waitForPendingTasks(long projectID) {
+        CompletableFuture<Void> pending;
+        synchronized (s_pendingTasks) {
+            pending = s_pendingTasks.get(projectID);
+        }
+        if (pending != null) {
+            pending.join();
+        }
+    }
+
+    /**
+     * Runs a task after the ones already queued for the same project. A task throwing an exception does not prevent the
+     * following ones from running.
+     * 
+     * @param inBackground
+     *            false to run the task in the calling thread if no other task of the project is pending
+     */
+    protected void enqueue(long projectID, Runnable task, boolean inBackground) {
+        Runnable safeTask = () -> {
             try {
-                pool.save(out);
-            } finally {
-                out.closeEntry();
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Failed to run change file task of project {}", projectID, e);
             }
+        };
+        CompletableFuture<Void> running = null;
+        synchronized (s_pendingTasks) {
+            CompletableFuture<Void> previous = s_pendingTasks.get(projectID);
+            CompletableFuture<Void> next;
+            if (previous == null && !inBackground) {
+                // run below, without holding the lock, while later tasks wait for it
+                running = new CompletableFuture<>();
+                next = running;
+            } else {
+                next = previous == null ? CompletableFuture.runAsync(safeTask, s_writer)
+                        : previous.thenRunAsync(safeTask, s_writer);
+            }
+            s_pendingTasks.put(projectID, next);
+            next.whenComplete((result, e) -> {
+                synchronized (s_pendingTasks) {
+                    s_pendingTasks.remove(projectID, next);
+                }
+            });
+        }
+        if (running != null) {
+            safeTask.run();
+            running.complete(null);
+        }
+    }
+
+    protected ChangeFile serializeChange(HistoryEntry historyEntry, File file) throws IOException {
+        Pool pool = new Pool();
+        ByteArrayOutputStream change = new ByteArrayOutputStream();
+        History.writeOneChange(change, historyEntry.getChange(), pool);
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        pool.save(poolBytes);
+        historyEntry.setChangeSize(change.size());
+        return new ChangeFile(file, change.toByteArray(), poolBytes.toByteArray());
+    }
+
+    /**
+     * Writes the change to a temporary file first, so that a change file which exists is always complete.
+     */
+    protected void writeChangeFile(ChangeFile changeFile) throws IOException {
+        File tempFile = new File(changeFile.file.getParentFile(), changeFile.file.getName() + ".part");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(tempFile));
+        boolean written = false;
+        try {
+            if ("fast".equals(_compression)) {
+                out.setLevel(Deflater.BEST_SPEED);
+            }
+            writeZipEntry(out, "change.txt", changeFile.change);
+            writeZipEntry(out, "pool.txt", changeFile.pool);
+            written = true;
         } finally {
             out.close();
+            if (!written) {
+                tempFile.delete();
+            }
+        }
+        try {
+            Files.move(tempFile.toPath(), changeFile.file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), changeFile.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    protected void writeZipEntry(ZipOutputStream out, String name, byte[] bytes) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if ("none".equals(_compression)) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
         }
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
     }
 
     protected File getChangeFile(HistoryEntry historyEntry) {
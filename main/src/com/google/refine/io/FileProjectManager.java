@@ -43,6 +43,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -196,6 +197,7 @@ public class FileProjectManager extends ProjectManager {
 
     @Override
     public void exportProject(long projectId, TarArchiveOutputStream tos) throws IOException {
+        getHistoryEntryManager().waitForSavedChanges(projectId);
         File dir = this.getProjectDir(projectId);
         this.tarDir("", dir, tos);
     }
@@ -254,11 +256,21 @@ public class FileProjectManager extends ProjectManager {
         ProjectUtilities.save(project);
     }
 
+    @Override
+    protected void saveProjectInFull(Project project) throws IOException {
+        ProjectUtilities.save(project, true);
+    }
+
     @Override
     public Project loadProject(long id) {
         return ProjectUtilities.load(getProjectDir(id), id);
     }
 
+    @Override
+    protected Project loadProject(long id, IntConsumer rowsLoaded) {
+        return ProjectUtilities.load(getProjectDir(id), id, rowsLoaded);
+    }
+
     /**
      * Save the workspace's data out to file in a safe way: save to a temporary file first and rename it to the real
      * file.
@@ -341,6 +353,12 @@ public class FileProjectManager extends ProjectManager {
 
     @Override
     public void deleteProject(long projectID) {
+        try {
+            // so that change files are not written to the project directory after it is deleted
+            getHistoryEntryManager().waitForSavedChanges(projectID);
+        } catch (IOException e) {
+            // the project is being deleted anyway
+        }
         synchronized (this) {
             removeProject(projectID);
 
@@ -34,8 +34,21 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.io;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -44,17 +57,74 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.CellDictionary;
 import com.google.refine.model.Project;
+import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
 public class ProjectUtilities {
 
     final static Logger logger = LoggerFactory.getLogger("project_utilities");
 
-    synchronized public static void save(Project project) throws IOException {
+    /**
+     * Number of rows saved in each entry of the project archive. Blocks are compressed independently, so they can be
+     * parsed in parallel when the project is loaded.
+     */
+    final static public int ROW_BLOCK_SIZE = 10000;
+
+    /**
+     * Entry holding the project, apart from its rows. Archives written by earlier versions hold the whole project in
+     * "data.txt" instead, which is still supported for loading.
+     */
+    final static protected String PROJECT_ENTRY = "project.txt";
+    final static protected String LEGACY_DATA_ENTRY = "data.txt";
+    final static protected String POOL_ENTRY = "pool.txt";
+
+    /**
+     * File in the project directory listing the history entries done since the project was last saved in full. Their
+     * changes are already on disk, so an incremental save only has to append the entries to this file, instead of
+     * rewriting the whole project. The first line records the id of the last entry done at the time of the full save
+     * (0 if none), the following lines hold one entry each.
+     */
+    final static public String JOURNAL_FILE = "journal.txt";
+    final static protected String JOURNAL_BASE_FIELD = "base";
+
+    /**
+     * Maximum number of history entries saved incrementally before the project is saved in full again, so that
+     * loading the project does not have to replay too many changes. 0 disables incremental saves.
+     */
+    final static public int MAX_JOURNAL_ENTRIES = Integer.getInteger("refine.autosave.maxJournalEntries", 50);
+
+    /**
+     * Saves a project, incrementally if possible.
+     */
+    public static void save(Project project) throws IOException {
+        save(project, false);
+    }
+
+    /**
+     * Saves a project.
+     * 
+     * @param project
+     *            the project to save
+     * @param full
+     *            true to always rewrite the whole project. Otherwise, if only new history entries were done since the
+     *            project was last saved, they are appended to its journal.
+     */
+    synchronized public static void save(Project project, boolean full) throws IOException {
         synchronized (project) {
             long id = project.id;
             File dir = ((FileProjectManager) ProjectManager.singleton).getProjectDir(id);
+            // the history saved along with the project refers to the change files, which may still be being written
+            ProjectManager.singleton.getHistoryEntryManager().waitForSavedChanges(id);
+
+            if (!full && saveToJournal(project, dir)) {
+                project.setLastSave();
+
+                logger.info("Saved project '{}' incrementally", id);
+                return;
+            }
 
             File tempFile = new File(dir, "data.temp.zip");
             try {
@@ -81,6 +151,13 @@ public class ProjectUtilities {
             if (oldFile.exists()) {
                 oldFile.delete();
             }
+            // only discard the journal once the new snapshot is in place: if we crash before that, the entries
+            // already contained in the snapshot are skipped when the journal is replayed.
+            File journalFile = new File(dir, JOURNAL_FILE);
+            if (journalFile.exists()) {
+                journalFile.delete();
+            }
+            project.history.markSavedInFull();
 
             project.setLastSave();
 
@@ -88,19 +165,69 @@ public class ProjectUtilities {
         }
     }
 
+    /**
+     * Appends the history entries done since the project was last saved to its journal.
+     * 
+     * @return false if the project has to be saved in full instead
+     */
+    static protected boolean saveToJournal(Project project, File dir) throws IOException {
+        List<HistoryEntry> entries = project.history.getUnsavedEntries();
+        if (entries == null
+                || project.history.getJournaledEntryCount() + entries.size() > MAX_JOURNAL_ENTRIES
+                || !new File(dir, "data.zip").exists()) {
+            return false;
+        }
+        if (entries.isEmpty()) {
+            // only the metadata changed, which is saved separately
+            return true;
+        }
+
+        File journalFile = new File(dir, JOURNAL_FILE);
+        boolean newJournal = !journalFile.exists();
+        Properties options = new Properties();
+        options.setProperty("mode", "save");
+
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            if (newJournal) {
+                long baseEntryID = project.history.getPrecedingEntryID(entries.get(0).id);
+                writer.write(JOURNAL_BASE_FIELD + "=" + baseEntryID + "\n");
+            }
+            for (HistoryEntry entry : entries) {
+                entry.save(writer, options);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        project.history.markJournaled(entries.size());
+        return true;
+    }
+
     protected static void saveToFile(Project project, File file) throws IOException {
         ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
         try {
             Pool pool = new Pool();
 
-            out.putNextEntry(new ZipEntry("data.txt"));
+            int rowCount = project.rows.size();
+            int blockCount = (rowCount + ROW_BLOCK_SIZE - 1) / ROW_BLOCK_SIZE;
+            for (int i = 0; i < blockCount; i++) {
+                out.putNextEntry(new ZipEntry(getRowBlockEntryName(i)));
+                try {
+                    project.saveRowsToOutputStream(out, pool, i * ROW_BLOCK_SIZE, Math.min(rowCount, (i + 1) * ROW_BLOCK_SIZE));
+                } finally {
+                    out.closeEntry();
+                }
+            }
+
+            out.putNextEntry(new ZipEntry(PROJECT_ENTRY));
             try {
-                project.saveToOutputStream(out, pool);
+                project.saveToOutputStream(out, pool, blockCount);
             } finally {
                 out.closeEntry();
             }
 
-            out.putNextEntry(new ZipEntry("pool.txt"));
+            out.putNextEntry(new ZipEntry(POOL_ENTRY));
             try {
                 pool.save(out);
             } finally {
@@ -112,10 +239,29 @@ public class ProjectUtilities {
     }
 
     static public Project load(File dir, long id) {
+        return load(dir, id, rowCount -> {
+        });
+    }
+
+    /**
+     * Loads a project, reporting progress as its rows are read.
+     * 
+     * @param rowsLoaded
+     *            called with the number of rows read since its previous call, possibly from several threads
+     */
+    static public Project load(File dir, long id, IntConsumer rowsLoaded) {
+        Project project = loadSnapshot(dir, id, rowsLoaded);
+        if (project != null) {
+            replayJournal(project, dir);
+        }
+        return project;
+    }
+
+    static protected Project loadSnapshot(File dir, long id, IntConsumer rowsLoaded) {
         try {
             File file = new File(dir, "data.zip");
             if (file.exists()) {
-                return loadFromFile(file, id);
+                return loadFromFile(file, id, rowsLoaded);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -124,7 +270,7 @@ public class ProjectUtilities {
         try {
             File file = new File(dir, "data.temp.zip");
             if (file.exists()) {
-                return loadFromFile(file, id);
+                return loadFromFile(file, id, rowsLoaded);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -133,7 +279,7 @@ public class ProjectUtilities {
         try {
             File file = new File(dir, "data.old.zip");
             if (file.exists()) {
-                return loadFromFile(file, id);
+                return loadFromFile(file, id, rowsLoaded);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -142,23 +288,165 @@ public class ProjectUtilities {
         return null;
     }
 
+    /**
+     * Re-applies the history entries saved incrementally since the snapshot of the project was written. Entries which
+     * the snapshot already contains are skipped. Replaying stops at the first entry which cannot be read or applied,
+     * such as one truncated by a crash, and the journal is discarded if it does not follow from the loaded snapshot.
+     */
+    static protected void replayJournal(Project project, File dir) {
+        File journalFile = new File(dir, JOURNAL_FILE);
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        List<HistoryEntry> pastEntries = project.history.getLastPastEntries(0);
+        int position = -1;
+        int journaled = 0;
+        int replayed = 0;
+        boolean complete = false;
+        boolean discard = false;
+        try (LineNumberReader reader = new LineNumberReader(
+                new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(JOURNAL_BASE_FIELD + "=")) {
+                long baseEntryID = Long.parseLong(line.substring(JOURNAL_BASE_FIELD.length() + 1));
+                if (baseEntryID == 0) {
+                    position = 0;
+                } else {
+                    for (int i = 0; i < pastEntries.size(); i++) {
+                        if (pastEntries.get(i).id == baseEntryID) {
+                            position = i + 1;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (position < 0) {
+                discard = true;
+            } else {
+                while ((line = reader.readLine()) != null) {
+                    HistoryEntry entry = HistoryEntry.load(project, line);
+                    if (position < pastEntries.size()) {
+                        if (pastEntries.get(position).id != entry.id) {
+                            logger.warn("Journal of project {} diverges from its snapshot, ignoring the rest of it", project.id);
+                            break;
+                        }
+                        position++;
+                    } else {
+                        project.history.replayEntry(project, entry);
+                        replayed++;
+                    }
+                    journaled++;
+                }
+                complete = line == null;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to replay journal of project " + project.id + " after " + journaled + " entries", e);
+        }
+        if (discard) {
+            logger.warn("Discarding journal of project {} which does not match its snapshot", project.id);
+            journalFile.delete();
+            return;
+        }
+
+        project.history.markSavedInFull();
+        project.history.markJournaled(journaled);
+        if (!complete) {
+            // do not append to a journal with a broken tail: the next save has to be a full one
+            project.history.markRewritten();
+        }
+        if (replayed > 0) {
+            project.update();
+            logger.info("Replayed {} history entries from the journal of project {}", replayed, project.id);
+        }
+    }
+
     static protected Project loadFromFile(
             File file,
             long id) throws Exception {
+        return loadFromFile(file, id, rowCount -> {
+        });
+    }
+
+    static protected Project loadFromFile(
+            File file,
+            long id,
+            IntConsumer rowsLoaded) throws Exception {
         ZipFile zipFile = new ZipFile(file);
         try {
             Pool pool = new Pool();
-            ZipEntry poolEntry = zipFile.getEntry("pool.txt");
+            ZipEntry poolEntry = zipFile.getEntry(POOL_ENTRY);
             if (poolEntry != null) {
                 pool.load(zipFile.getInputStream(poolEntry));
             } // else, it's a legacy project file
 
+            ZipEntry projectEntry = zipFile.getEntry(PROJECT_ENTRY);
+            if (projectEntry == null) {
+                return Project.loadFromInputStream(
+                        zipFile.getInputStream(zipFile.getEntry(LEGACY_DATA_ENTRY)),
+                        id,
+                        pool);
+            }
             return Project.loadFromInputStream(
-                    zipFile.getInputStream(zipFile.getEntry("data.txt")),
+                    zipFile.getInputStream(projectEntry),
                     id,
-                    pool);
+                    pool,
+                    blockCount -> readRowBlocks(zipFile, pool, blockCount, rowsLoaded));
         } finally {
             zipFile.close();
         }
     }
+
+    static protected String getRowBlockEntryName(int blockIndex) {
+        return "rows/" + blockIndex + ".txt";
+    }
+
+    /**
+     * Parses the blocks of rows of a project archive in parallel.
+     */
+    static protected List<Row> readRowBlocks(ZipFile zipFile, Pool pool, int blockCount, IntConsumer rowsLoaded) throws IOException {
+        try {
+            List<List<Row>> blocks = IntStream.range(0, blockCount)
+                    .parallel()
+                    .mapToObj(i -> readRowBlock(zipFile, pool, i, rowsLoaded))
+                    .collect(Collectors.toList());
+
+            List<Row> rows = new ArrayList<>(blocks.stream().mapToInt(List::size).sum());
+            for (List<Row> block : blocks) {
+                rows.addAll(block);
+            }
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static protected List<Row> readRowBlock(ZipFile zipFile, Pool pool, int blockIndex, IntConsumer rowsLoaded) {
+        String entryName = getRowBlockEntryName(blockIndex);
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+            throw new UncheckedIOException(new IOException("Missing entry " + entryName + " in " + zipFile.getName()));
+        }
+
+        // rows are shared within each block here, and across blocks once they are all loaded
+        CellDictionary cellDictionary = new CellDictionary();
+        List<Row> rows = new ArrayList<>(ROW_BLOCK_SIZE);
+        try (LineNumberReader reader = new LineNumberReader(
+                new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Row row = Row.load(line, pool);
+                if (row != null) {
+                    cellDictionary.compact(row);
+                    rows.add(row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException("Failed to read " + entryName + " in " + zipFile.getName(), e));
+        }
+        rowsLoaded.accept(rows.size());
+        return rows;
+    }
 }
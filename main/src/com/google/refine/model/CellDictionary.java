@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the cells of a project, column by column. Since {@link Cell} is immutable, all rows holding
+ * the same value in a column (without reconciliation data) can point to a single Cell instance, so that each distinct
+ * value of a column is stored only once in memory instead of once per row.
+ * <p>
+ * Columns where most values are distinct would not benefit from this: their dictionary is dropped once enough cells
+ * have been seen to tell.
+ */
+public class CellDictionary {
+
+    /**
+     * Number of cells of a column looked up before deciding whether sharing its cells is worthwhile.
+     */
+    static final public int SAMPLE_SIZE = 10000;
+
+    static protected class ColumnDictionary {
+
+        Map<Serializable, Cell> cells = new HashMap<>();
+        int lookups = 0;
+        boolean disabled = false;
+    }
+
+    final protected List<ColumnDictionary> _columns = new ArrayList<>();
+    protected long _sharedCellCount = 0;
+
+    /**
+     * Replaces the cells of a project by shared instances and releases the unused capacity of their cell lists.
+     * 
+     * @return the number of cells which were replaced by a shared instance
+     */
+    static public long compact(Project project) {
+        CellDictionary dictionary = new CellDictionary();
+        for (Row row : project.rows) {
+            dictionary.compact(row);
+        }
+        return dictionary.getSharedCellCount();
+    }
+
+    /**
+     * Replaces the cells of a row by the instances already seen in the same columns, when they hold equal values.
+     */
+    public void compact(Row row) {
+        List<Cell> cells = row.cells;
+        for (int i = 0; i < cells.size(); i++) {
+            Cell cell = cells.get(i);
+            Cell shared = intern(i, cell);
+            if (shared != cell) {
+                cells.set(i, shared);
+            }
+        }
+        if (cells instanceof ArrayList) {
+            ((ArrayList<Cell>) cells).trimToSize();
+        }
+    }
+
+    /**
+     * @return a cell equal to the given one which was previously seen in the same column, or the cell itself
+     */
+    public Cell intern(int cellIndex, Cell cell) {
+        if (cell == null || cell.recon != null || !isShareable(cell.value)) {
+            return cell;
+        }
+        while (_columns.size() <= cellIndex) {
+            _columns.add(new ColumnDictionary());
+        }
+        ColumnDictionary dictionary = _columns.get(cellIndex);
+        if (dictionary.disabled) {
+            return cell;
+        }
+
+        dictionary.lookups++;
+        Cell shared = dictionary.cells.putIfAbsent(cell.value, cell);
+        if (shared != null) {
+            _sharedCellCount++;
+            return shared;
+        }
+        if (dictionary.lookups >= SAMPLE_SIZE && dictionary.cells.size() > dictionary.lookups / 2) {
+            dictionary.disabled = true;
+            dictionary.cells = null;
+        }
+        return cell;
+    }
+
+    public long getSharedCellCount() {
+        return _sharedCellCount;
+    }
+
+    /**
+     * Only values of immutable types with value-based equality can be shared.
+     */
+    protected boolean isShareable(Serializable value) {
+        return value instanceof String
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Boolean
+                || value instanceof OffsetDateTime;
+    }
+}
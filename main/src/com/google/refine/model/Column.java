@@ -35,8 +35,9 @@ package com.google.refine.model;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -53,7 +54,9 @@ public class Column {
     private ReconConfig _reconConfig;
     private ReconStats _reconStats;
 
-    transient protected Map<String, Object> _precomputes;
+    // precomputed values can be requested by expressions evaluated on several threads
+    transient protected Map<String, Object> _precomputes = new ConcurrentHashMap<>();
+    transient private Map<String, Object> _precomputeLocks = new ConcurrentHashMap<>();
 
     @JsonCreator
     public Column(
@@ -113,23 +116,39 @@ public class Column {
      * ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, column.getName())
      */
     public void clearPrecomputes() {
-        if (_precomputes != null) {
-            _precomputes.clear();
-        }
+        _precomputes.clear();
+        _precomputeLocks.clear();
     }
 
     public Object getPrecompute(String key) {
-        if (_precomputes != null) {
-            return _precomputes.get(key);
-        }
-        return null;
+        return _precomputes.get(key);
     }
 
     public void setPrecompute(String key, Object value) {
-        if (_precomputes == null) {
-            _precomputes = new HashMap<String, Object>();
+        if (value == null) {
+            _precomputes.remove(key);
+        } else {
+            _precomputes.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the precomputed value for a key, computing and storing it first if there is none. Threads asking for the
+     * same key at the same time wait for a single computation. The computation is not run while holding a lock on the
+     * map of precomputed values, so it can itself ask for precomputed values, such as with {@code facetCount}.
+     */
+    public Object computePrecomputeIfAbsent(String key, Supplier<?> compute) {
+        Object value = _precomputes.get(key);
+        if (value == null) {
+            synchronized (_precomputeLocks.computeIfAbsent(key, k -> new Object())) {
+                value = _precomputes.get(key);
+                if (value == null) {
+                    value = compute.get();
+                    setPrecompute(key, value);
+                }
+            }
         }
-        _precomputes.put(key, value);
+        return value;
     }
 
     public void save(Writer writer) {
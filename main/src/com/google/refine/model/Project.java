@@ -76,6 +76,15 @@ public class Project {
 
     final static Logger logger = LoggerFactory.getLogger(Project.class);
 
+    // Rough sizes of the objects making up the rows, used to estimate the memory used by a project
+    final static private int MEMORY_SAMPLE_ROWS = 1000;
+    final static private long ROW_BYTES = 64;
+    final static private long CELL_BYTES = 24;
+    final static private long STRING_BYTES = 40;
+    final static private long VALUE_BYTES = 24;
+    final static private long RECON_BYTES = 200;
+    final static private long RECON_CANDIDATE_BYTES = 120;
+
     static public long generateID() {
         return System.currentTimeMillis() + Math.round(Math.random() * 1000000000000L);
     }
@@ -114,9 +123,77 @@ public class Project {
             }
         }
         ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(this.id);
+        ProjectManager.singleton.getSortedRowsCache().flushProject(this.id);
         // The rest of the project should get garbage collected when we return.
     }
 
+    /**
+     * Estimates the number of bytes of heap used by the rows of this project and the changes its history keeps in
+     * memory. Rows are sampled evenly across the project, so the cost of the estimate does not grow with the size of
+     * the project.
+     * <p>
+     * The project is not locked, so that estimating it does not wait for a long operation to finish: rows may be
+     * changed while they are sampled, which is good enough for an estimate.
+     * 
+     * @return an estimate of the memory used by the project, in bytes
+     */
+    public long estimateMemoryUsage() {
+        long bytes = history.getResidentChangeBytes();
+        int rowCount = rows.size();
+        if (rowCount == 0) {
+            return bytes;
+        }
+        int sampleSize = Math.min(rowCount, MEMORY_SAMPLE_ROWS);
+        long sampledBytes = 0;
+        int sampled = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            Row row = getIfPresent(rows, (int) ((long) i * rowCount / sampleSize));
+            if (row != null) {
+                sampledBytes += estimateMemoryUsage(row);
+                sampled++;
+            }
+        }
+        return sampled == 0 ? bytes : bytes + sampledBytes * rowCount / sampled;
+    }
+
+    /**
+     * Gets an element of a list which may be modified by another thread at the same time.
+     * 
+     * @return the element, or null if the list no longer has that many elements
+     */
+    static private <T> T getIfPresent(List<T> list, int index) {
+        try {
+            return index < list.size() ? list.get(index) : null;
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    static private long estimateMemoryUsage(Row row) {
+        List<Cell> cells = row.cells;
+        int cellCount = cells.size();
+        long bytes = ROW_BYTES + 8L * cellCount;
+        for (int i = 0; i < cellCount; i++) {
+            Cell cell = getIfPresent(cells, i);
+            if (cell == null) {
+                continue;
+            }
+            bytes += CELL_BYTES;
+            if (cell.value instanceof String) {
+                bytes += STRING_BYTES + 2L * ((String) cell.value).length();
+            } else if (cell.value != null) {
+                bytes += VALUE_BYTES;
+            }
+            if (cell.recon != null) {
+                bytes += RECON_BYTES;
+                if (cell.recon.candidates != null) {
+                    bytes += RECON_CANDIDATE_BYTES * cell.recon.candidates.size();
+                }
+            }
+        }
+        return bytes;
+    }
+
     public Instant getLastSave() {
         return this._lastSave;
     }
@@ -132,7 +209,31 @@ public class Project {
         return ProjectManager.singleton.getProjectMetadata(id);
     }
 
+    /**
+     * Reads the rows of a project saved with {@link Project#saveToOutputStream(OutputStream, Pool, int)}.
+     */
+    public interface RowBlockReader {
+
+        /**
+         * @param blockCount
+         *            the number of blocks of rows the project was saved with
+         * @return the rows of all blocks, in order
+         */
+        public List<Row> readRowBlocks(int blockCount) throws Exception;
+    }
+
     public void saveToOutputStream(OutputStream out, Pool pool) throws IOException {
+        saveToOutputStream(out, pool, -1);
+    }
+
+    /**
+     * Saves the project without its rows, which are saved separately with
+     * {@link #saveRowsToOutputStream(OutputStream, Pool, int, int)}.
+     * 
+     * @param rowBlockCount
+     *            the number of blocks the rows are saved in, or -1 to save the rows along with the rest of the project
+     */
+    public void saveToOutputStream(OutputStream out, Pool pool, int rowBlockCount) throws IOException {
         for (OverlayModel overlayModel : overlayModels.values()) {
             try {
                 overlayModel.onBeforeSave(this);
@@ -147,7 +248,7 @@ public class Project {
             options.setProperty("mode", "save");
             options.put("pool", pool);
 
-            saveToWriter(writer, options);
+            saveToWriter(writer, options, rowBlockCount);
         } finally {
             writer.flush();
         }
@@ -161,7 +262,26 @@ public class Project {
         }
     }
 
-    protected void saveToWriter(Writer writer, Properties options) throws IOException {
+    /**
+     * Saves a range of rows, one per line.
+     */
+    public void saveRowsToOutputStream(OutputStream out, Pool pool, int fromRowIndex, int toRowIndex) throws IOException {
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        try {
+            Properties options = new Properties();
+            options.setProperty("mode", "save");
+            options.put("pool", pool);
+
+            for (Row row : rows.subList(fromRowIndex, toRowIndex)) {
+                row.save(writer, options);
+                writer.write('\n');
+            }
+        } finally {
+            writer.flush();
+        }
+    }
+
+    protected void saveToWriter(Writer writer, Properties options, int rowBlockCount) throws IOException {
         writer.write(RefineServlet.VERSION);
         writer.write('\n');
 
@@ -179,29 +299,44 @@ public class Project {
             writer.write('\n');
         }
 
-        writer.write("rowCount=");
-        writer.write(Integer.toString(rows.size()));
-        writer.write('\n');
-        for (Row row : rows) {
-            row.save(writer, options);
+        if (rowBlockCount >= 0) {
+            writer.write("rowBlocks=");
+            writer.write(Integer.toString(rowBlockCount));
+            writer.write('\n');
+        } else {
+            writer.write("rowCount=");
+            writer.write(Integer.toString(rows.size()));
             writer.write('\n');
+            for (Row row : rows) {
+                row.save(writer, options);
+                writer.write('\n');
+            }
         }
     }
 
     static public Project loadFromInputStream(InputStream is, long id, Pool pool) throws Exception {
-        return loadFromReader(new LineNumberReader(new InputStreamReader(is, "UTF-8")), id, pool);
+        return loadFromInputStream(is, id, pool, null);
+    }
+
+    /**
+     * Loads a project, reading its rows with the supplied reader if they were saved separately.
+     */
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool, RowBlockReader rowBlockReader) throws Exception {
+        return loadFromReader(new LineNumberReader(new InputStreamReader(is, "UTF-8")), id, pool, rowBlockReader);
     }
 
     static private Project loadFromReader(
             LineNumberReader reader,
             long id,
-            Pool pool) throws Exception {
+            Pool pool,
+            RowBlockReader rowBlockReader) throws Exception {
         long start = System.currentTimeMillis();
 
         // version of Refine which wrote the file
         /* String version = */ reader.readLine();
 
         Project project = new Project(id);
+        CellDictionary cellDictionary = new CellDictionary();
         int maxCellCount = 0;
 
         ObjectMapper mapper = ParsingUtilities.mapper.copy();
@@ -230,10 +365,20 @@ public class Project {
                     line = reader.readLine();
                     if (line != null) {
                         Row row = Row.load(line, pool);
+                        cellDictionary.compact(row);
                         project.rows.add(row);
                         maxCellCount = Math.max(maxCellCount, row.cells.size());
                     }
                 }
+            } else if ("rowBlocks".equals(field)) {
+                if (rowBlockReader == null) {
+                    throw new IOException("The rows of project " + id + " were saved separately and cannot be read");
+                }
+                for (Row row : rowBlockReader.readRowBlocks(Integer.parseInt(value))) {
+                    cellDictionary.compact(row);
+                    project.rows.add(row);
+                    maxCellCount = Math.max(maxCellCount, row.cells.size());
+                }
             } else if (field.startsWith("overlayModel:")) {
                 String modelName = field.substring("overlayModel:".length());
                 if (s_overlayModelClasses.containsKey(modelName)) {
@@ -254,6 +399,7 @@ public class Project {
 
         logger.info(
                 "Loaded project {} from disk in {} sec(s)", id, Long.toString((System.currentTimeMillis() - start) / 1000));
+        logger.debug("Shared {} cells of project {} between rows", cellDictionary.getSharedCellCount(), id);
 
         project.update();
 
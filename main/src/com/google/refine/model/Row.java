@@ -220,8 +220,9 @@ public class Row implements HasFields {
     static public Row loadStreaming(String s, Pool pool) throws Exception {
         InjectableValues injectableValues = new InjectableValues.Std()
                 .addValue("pool", pool);
-        return ParsingUtilities.mapper.setInjectableValues(injectableValues)
-                .readValue(s, Row.class);
+        return ParsingUtilities.mapper.readerFor(Row.class)
+                .with(injectableValues)
+                .readValue(s);
     }
 
     @Override
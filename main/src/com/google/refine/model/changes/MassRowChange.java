@@ -36,7 +36,6 @@ package com.google.refine.model.changes;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -46,12 +45,18 @@ import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
-// TODO: This replaces all rows in the project with a new set of rows, but if only a small percentage of the rows
-// are being changed, it'd be much more efficient to apply a change list of new/modified rows.
+/**
+ * Replaces the rows of a project with a new list of rows. Only the rows which differ between the old and the new list
+ * are kept by the change once applied, so the rows an operation leaves untouched should be reused in the new list
+ * rather than duplicated.
+ */
 public class MassRowChange implements Change {
 
-    final protected List<Row> _newRows;
+    // the new rows, until the change is applied for the first time
+    protected List<Row> _newRows;
+    // both lists of rows in full, for changes loaded from change files written before row differences were recorded
     protected List<Row> _oldRows;
+    protected RowListDiff _diff;
 
     public MassRowChange(List<Row> newRows) {
         _newRows = newRows;
@@ -60,9 +65,16 @@ public class MassRowChange implements Change {
     @Override
     public void apply(Project project) {
         synchronized (project) {
-            _oldRows = new ArrayList<Row>(project.rows);
-            project.rows.clear();
-            project.rows.addAll(_newRows);
+            if (_diff == null && _oldRows == null) {
+                _diff = RowListDiff.compute(project.rows, _newRows);
+                _newRows = null;
+            }
+            if (_diff != null) {
+                _diff.apply(project.rows);
+            } else {
+                project.rows.clear();
+                project.rows.addAll(_newRows);
+            }
 
             project.columnModel.clearPrecomputes();
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
@@ -74,8 +86,12 @@ public class MassRowChange implements Change {
     @Override
     public void revert(Project project) {
         synchronized (project) {
-            project.rows.clear();
-            project.rows.addAll(_oldRows);
+            if (_diff != null) {
+                _diff.revert(project.rows);
+            } else {
+                project.rows.clear();
+                project.rows.addAll(_oldRows);
+            }
 
             project.columnModel.clearPrecomputes();
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
@@ -86,57 +102,49 @@ public class MassRowChange implements Change {
 
     @Override
     public void save(Writer writer, Properties options) throws IOException {
-        writer.write("newRowCount=");
-        writer.write(Integer.toString(_newRows.size()));
-        writer.write('\n');
-        for (Row row : _newRows) {
-            row.save(writer, options);
-            writer.write('\n');
+        if (_diff != null) {
+            _diff.save(writer, options);
+        } else {
+            writeRows(writer, options, "newRowCount", _newRows);
+            writeRows(writer, options, "oldRowCount", _oldRows);
         }
-        writer.write("oldRowCount=");
-        writer.write(Integer.toString(_oldRows.size()));
+        writer.write("/ec/\n"); // end of change marker
+    }
+
+    static protected void writeRows(Writer writer, Properties options, String field, List<Row> rows) throws IOException {
+        writer.write(field);
+        writer.write('=');
+        writer.write(Integer.toString(rows.size()));
         writer.write('\n');
-        for (Row row : _oldRows) {
+        for (Row row : rows) {
             row.save(writer, options);
             writer.write('\n');
         }
-        writer.write("/ec/\n"); // end of change marker
     }
 
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
         List<Row> oldRows = null;
         List<Row> newRows = null;
+        RowListDiff diff = null;
 
         String line;
         while ((line = reader.readLine()) != null && !"/ec/".equals(line)) {
             int equal = line.indexOf('=');
             CharSequence field = line.subSequence(0, equal);
+            int count = Integer.parseInt(line.substring(equal + 1));
 
             if ("oldRowCount".equals(field)) {
-                int count = Integer.parseInt(line.substring(equal + 1));
-
-                oldRows = new ArrayList<Row>(count);
-                for (int i = 0; i < count; i++) {
-                    line = reader.readLine();
-                    if (line != null) {
-                        oldRows.add(Row.load(line, pool));
-                    }
-                }
+                oldRows = RowListDiff.loadRows(reader, pool, count);
             } else if ("newRowCount".equals(field)) {
-                int count = Integer.parseInt(line.substring(equal + 1));
-
-                newRows = new ArrayList<Row>(count);
-                for (int i = 0; i < count; i++) {
-                    line = reader.readLine();
-                    if (line != null) {
-                        newRows.add(Row.load(line, pool));
-                    }
-                }
+                newRows = RowListDiff.loadRows(reader, pool, count);
+            } else if ("rowHunkCount".equals(field)) {
+                diff = RowListDiff.load(reader, pool, count);
             }
         }
 
         MassRowChange change = new MassRowChange(newRows);
         change._oldRows = oldRows;
+        change._diff = diff;
 
         return change;
     }
@@ -52,9 +52,12 @@ import com.google.refine.util.Pool;
 public class MassRowColumnChange implements Change {
 
     final protected List<Column> _newColumns;
-    final protected List<Row> _newRows;
+    // the new rows, until the change is applied for the first time
+    protected List<Row> _newRows;
     protected List<Column> _oldColumns;
+    // both lists of rows in full, for changes loaded from change files written before row differences were recorded
     protected List<Row> _oldRows;
+    protected RowListDiff _diff;
     protected List<ColumnGroup> _oldColumnGroups;
 
     public MassRowColumnChange(List<Column> newColumns, List<Row> newRows) {
@@ -71,16 +74,21 @@ public class MassRowColumnChange implements Change {
             if (_oldColumns == null) {
                 _oldColumns = new ArrayList<Column>(project.columnModel.columns);
             }
-            if (_oldRows == null) {
-                _oldRows = new ArrayList<Row>(project.rows);
+            if (_diff == null && _oldRows == null) {
+                _diff = RowListDiff.compute(project.rows, _newRows);
+                _newRows = null;
             }
 
             project.columnModel.columns.clear();
             project.columnModel.columns.addAll(_newColumns);
             project.columnModel.columnGroups.clear();
 
-            project.rows.clear();
-            project.rows.addAll(_newRows);
+            if (_diff != null) {
+                _diff.apply(project.rows);
+            } else {
+                project.rows.clear();
+                project.rows.addAll(_newRows);
+            }
 
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
 
@@ -97,8 +105,12 @@ public class MassRowColumnChange implements Change {
             project.columnModel.columnGroups.clear();
             project.columnModel.columnGroups.addAll(_oldColumnGroups);
 
-            project.rows.clear();
-            project.rows.addAll(_oldRows);
+            if (_diff != null) {
+                _diff.revert(project.rows);
+            } else {
+                project.rows.clear();
+                project.rows.addAll(_oldRows);
+            }
 
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
 
@@ -122,19 +134,11 @@ public class MassRowColumnChange implements Change {
             column.save(writer);
             writer.write('\n');
         }
-        writer.write("newRowCount=");
-        writer.write(Integer.toString(_newRows.size()));
-        writer.write('\n');
-        for (Row row : _newRows) {
-            row.save(writer, options);
-            writer.write('\n');
-        }
-        writer.write("oldRowCount=");
-        writer.write(Integer.toString(_oldRows.size()));
-        writer.write('\n');
-        for (Row row : _oldRows) {
-            row.save(writer, options);
-            writer.write('\n');
+        if (_diff != null) {
+            _diff.save(writer, options);
+        } else {
+            MassRowChange.writeRows(writer, options, "newRowCount", _newRows);
+            MassRowChange.writeRows(writer, options, "oldRowCount", _oldRows);
         }
         ColumnChange.writeOldColumnGroups(writer, options, _oldColumnGroups);
         writer.write("/ec/\n"); // end of change marker
@@ -147,6 +151,7 @@ public class MassRowColumnChange implements Change {
 
         List<Row> oldRows = null;
         List<Row> newRows = null;
+        RowListDiff diff = null;
 
         String line;
         while ((line = reader.readLine()) != null && !"/ec/".equals(line)) {
@@ -154,25 +159,11 @@ public class MassRowColumnChange implements Change {
             CharSequence field = line.subSequence(0, equal);
 
             if ("oldRowCount".equals(field)) {
-                int count = Integer.parseInt(line.substring(equal + 1));
-
-                oldRows = new ArrayList<Row>(count);
-                for (int i = 0; i < count; i++) {
-                    line = reader.readLine();
-                    if (line != null) {
-                        oldRows.add(Row.load(line, pool));
-                    }
-                }
+                oldRows = RowListDiff.loadRows(reader, pool, Integer.parseInt(line.substring(equal + 1)));
             } else if ("newRowCount".equals(field)) {
-                int count = Integer.parseInt(line.substring(equal + 1));
-
-                newRows = new ArrayList<Row>(count);
-                for (int i = 0; i < count; i++) {
-                    line = reader.readLine();
-                    if (line != null) {
-                        newRows.add(Row.load(line, pool));
-                    }
-                }
+                newRows = RowListDiff.loadRows(reader, pool, Integer.parseInt(line.substring(equal + 1)));
+            } else if ("rowHunkCount".equals(field)) {
+                diff = RowListDiff.load(reader, pool, Integer.parseInt(line.substring(equal + 1)));
             } else if ("oldColumnCount".equals(field)) {
                 int count = Integer.parseInt(line.substring(equal + 1));
 
@@ -203,6 +194,7 @@ public class MassRowColumnChange implements Change {
         MassRowColumnChange change = new MassRowColumnChange(newColumns, newRows);
         change._oldColumns = oldColumns;
         change._oldRows = oldRows;
+        change._diff = diff;
         change._oldColumnGroups = oldColumnGroups != null ? oldColumnGroups : new LinkedList<ColumnGroup>();
 
         return change;
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.changes;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.google.refine.model.Row;
+import com.google.refine.util.Pool;
+
+/**
+ * The differences between two lists of rows, as the ranges of rows removed from the old list along with the rows
+ * inserted in their place. Rows are compared by identity: the rows an operation leaves untouched are shared by both
+ * lists, so they are neither held by the change nor written to its change file.
+ */
+public class RowListDiff {
+
+    static protected class Hunk {
+
+        // where the removed rows start in the old list
+        final int index;
+        final List<Row> removed;
+        final List<Row> inserted;
+
+        Hunk(int index, List<Row> removed, List<Row> inserted) {
+            this.index = index;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+    }
+
+    final protected List<Hunk> _hunks;
+
+    protected RowListDiff(List<Hunk> hunks) {
+        _hunks = hunks;
+    }
+
+    /**
+     * Computes the differences between two lists of rows. The rows found in both lists, in the same order, are kept.
+     */
+    static public RowListDiff compute(List<Row> oldRows, List<Row> newRows) {
+        Map<Row, Integer> oldIndices = new IdentityHashMap<>(oldRows.size());
+        for (int i = 0; i < oldRows.size(); i++) {
+            oldIndices.put(oldRows.get(i), i);
+        }
+
+        List<Hunk> hunks = new ArrayList<>();
+        List<Row> inserted = new ArrayList<>();
+        int oldPos = 0;
+        for (Row row : newRows) {
+            Integer oldIndex = oldIndices.get(row);
+            if (oldIndex != null && oldIndex >= oldPos) {
+                if (oldIndex > oldPos || !inserted.isEmpty()) {
+                    hunks.add(new Hunk(oldPos, new ArrayList<>(oldRows.subList(oldPos, oldIndex)), inserted));
+                    inserted = new ArrayList<>();
+                }
+                oldPos = oldIndex + 1;
+            } else {
+                inserted.add(row);
+            }
+        }
+        if (oldPos < oldRows.size() || !inserted.isEmpty()) {
+            hunks.add(new Hunk(oldPos, new ArrayList<>(oldRows.subList(oldPos, oldRows.size())), inserted));
+        }
+        return new RowListDiff(hunks);
+    }
+
+    /**
+     * Turns the old list of rows into the new one.
+     */
+    public void apply(List<Row> rows) {
+        List<Row> result = new ArrayList<>(rows.size() + getSizeDifference());
+        int pos = 0;
+        for (Hunk hunk : _hunks) {
+            result.addAll(rows.subList(pos, hunk.index));
+            result.addAll(hunk.inserted);
+            pos = hunk.index + hunk.removed.size();
+        }
+        result.addAll(rows.subList(pos, rows.size()));
+        rows.clear();
+        rows.addAll(result);
+    }
+
+    /**
+     * Turns the new list of rows back into the old one.
+     */
+    public void revert(List<Row> rows) {
+        List<Row> result = new ArrayList<>(rows.size() - getSizeDifference());
+        int pos = 0;
+        int offset = 0;
+        for (Hunk hunk : _hunks) {
+            int index = hunk.index + offset;
+            result.addAll(rows.subList(pos, index));
+            result.addAll(hunk.removed);
+            pos = index + hunk.inserted.size();
+            offset += hunk.inserted.size() - hunk.removed.size();
+        }
+        result.addAll(rows.subList(pos, rows.size()));
+        rows.clear();
+        rows.addAll(result);
+    }
+
+    protected int getSizeDifference() {
+        int difference = 0;
+        for (Hunk hunk : _hunks) {
+            difference += hunk.inserted.size() - hunk.removed.size();
+        }
+        return difference;
+    }
+
+    public void save(Writer writer, Properties options) throws IOException {
+        writer.write("rowHunkCount=");
+        writer.write(Integer.toString(_hunks.size()));
+        writer.write('\n');
+        for (Hunk hunk : _hunks) {
+            writer.write(hunk.index + "," + hunk.removed.size() + "," + hunk.inserted.size());
+            writer.write('\n');
+            for (Row row : hunk.removed) {
+                row.save(writer, options);
+                writer.write('\n');
+            }
+            for (Row row : hunk.inserted) {
+                row.save(writer, options);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Loads the hunks following a "rowHunkCount" line.
+     */
+    static public RowListDiff load(LineNumberReader reader, Pool pool, int hunkCount) throws Exception {
+        List<Hunk> hunks = new ArrayList<>(hunkCount);
+        for (int i = 0; i < hunkCount; i++) {
+            String[] counts = reader.readLine().split(",");
+            int index = Integer.parseInt(counts[0]);
+            List<Row> removed = loadRows(reader, pool, Integer.parseInt(counts[1]));
+            List<Row> inserted = loadRows(reader, pool, Integer.parseInt(counts[2]));
+            hunks.add(new Hunk(index, removed, inserted));
+        }
+        return new RowListDiff(hunks);
+    }
+
+    static protected List<Row> loadRows(LineNumberReader reader, Pool pool, int count) throws Exception {
+        List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String line = reader.readLine();
+            if (line != null) {
+                rows.add(Row.load(line, pool));
+            }
+        }
+        return rows;
+    }
+}
@@ -113,6 +113,18 @@ abstract public class ReconConfig {
 
     abstract public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID);
 
+    /**
+     * Reconciles a batch of jobs like {@link #batchRecon(List, long)}, but lets failures to reach the service surface
+     * as exceptions rather than as recons holding the error, so that callers can tell an overloaded service apart and
+     * send the batch again later. Configurations which do not query services keep the behaviour of batchRecon.
+     * 
+     * @throws IOException
+     *             if the service could not be queried
+     */
+    public List<Recon> tryBatchRecon(List<ReconJob> jobs, long historyEntryID) throws IOException {
+        return batchRecon(jobs, historyEntryID);
+    }
+
     abstract public Recon createNewRecon(long historyEntryID);
 
     public void save(Writer writer) {
@@ -172,9 +172,17 @@ public class ReconciledDataExtensionJob {
         formulateQuery(ids, extension, writer);
 
         String query = writer.toString();
-        String response = postExtendQuery(this.endpoint, query);
+        ServiceResponseCache cache = ServiceResponseCache.getInstance();
+        String response = cache == null ? null : cache.get(this.endpoint, query);
+        boolean cached = response != null;
+        if (!cached) {
+            response = postExtendQuery(this.endpoint, query);
+        }
 
         ObjectNode o = ParsingUtilities.mapper.readValue(response, ObjectNode.class);
+        if (cache != null && !cached && o.get("rows") instanceof ObjectNode) {
+            cache.put(this.endpoint, query, o.toString());
+        }
 
         if (columns.size() == 0) {
             // Extract the column metadata
@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the answers of reconciliation and data extension services, or of any web service, across operations,
+ * projects and restarts, so that reconciling or fetching the same values again does not query the service again.
+ * <p>
+ * Answers are keyed by the URL of the service and the query (such as its JSON), and kept for {@link #TTL}
+ * milliseconds (set with the refine.services.cache.ttlHours system property, 0 turning the cache off). When they take
+ * more than {@link #MAX_BYTES} (refine.services.cache.maxBytes), the least recently used ones are dropped.
+ * <p>
+ * The cache lives in the workspace: all answers are held in memory and each new answer is appended to a journal file,
+ * which is read back at startup and rewritten without its stale lines when it gets much larger than the cache. There
+ * is no cache until {@link #initialize(File)} is called with the directory of the journal.
+ */
+public class ServiceResponseCache {
+
+    final static Logger logger = LoggerFactory.getLogger("service-response-cache");
+
+    static final public long TTL = TimeUnit.HOURS.toMillis(Long.getLong("refine.services.cache.ttlHours", 24 * 7));
+    static final public long MAX_BYTES = Long.getLong("refine.services.cache.maxBytes", 64L * 1024 * 1024);
+
+    static final protected String JOURNAL_FILE = "responses.log";
+    // approximate memory used by an entry besides its answer: the key, the entry and its map node
+    static final protected int ENTRY_OVERHEAD = 64 * 2 + 96;
+
+    static private ServiceResponseCache s_instance = null;
+
+    static protected class Entry {
+
+        final String response;
+        final long expiresAt;
+
+        Entry(String response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        long getSize() {
+            return ENTRY_OVERHEAD + 2L * response.length();
+        }
+    }
+
+    final protected File _journal;
+    final protected long _ttl;
+    final protected long _maxBytes;
+    // in access order, so that the least recently used entries come first
+    final protected LinkedHashMap<String, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+    protected long _bytes = 0;
+    protected int _journalLines = 0;
+    protected Writer _writer = null;
+    protected long _hits = 0;
+    protected long _misses = 0;
+
+    protected ServiceResponseCache(File dir, long ttl, long maxBytes) {
+        _journal = new File(dir, JOURNAL_FILE);
+        _ttl = ttl;
+        _maxBytes = maxBytes;
+        load();
+    }
+
+    /**
+     * Sets up the cache of the workspace, reading back the answers saved in the given directory.
+     */
+    static public synchronized void initialize(File dir) {
+        if (s_instance != null) {
+            s_instance.close();
+        }
+        s_instance = TTL > 0 && MAX_BYTES > 0 ? new ServiceResponseCache(dir, TTL, MAX_BYTES) : null;
+    }
+
+    /**
+     * Closes the cache of the workspace, which stays on disk.
+     */
+    static public synchronized void dispose() {
+        if (s_instance != null) {
+            s_instance.close();
+            s_instance = null;
+        }
+    }
+
+    /**
+     * @return the cache of the workspace, or null if there is none
+     */
+    static public synchronized ServiceResponseCache getInstance() {
+        return s_instance;
+    }
+
+    static protected String getKey(String service, String query) {
+        return DigestUtils.sha256Hex(service + "\n" + query);
+    }
+
+    /**
+     * @return the answer of the service to the query, or null if it is not in the cache
+     */
+    public synchronized String get(String service, String query) {
+        String key = getKey(service, query);
+        Entry entry = _entries.get(key);
+        if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            _misses++;
+            return null;
+        }
+        _hits++;
+        return entry.response;
+    }
+
+    /**
+     * Remembers the answers of a service to several queries, saving them to the journal at once.
+     * 
+     * @param service
+     *            the URL of the service
+     * @param responses
+     *            the answers, by query
+     */
+    public synchronized void putAll(String service, Map<String, String> responses) {
+        long expiresAt = System.currentTimeMillis() + _ttl;
+        try {
+            Writer writer = getWriter();
+            for (Map.Entry<String, String> response : responses.entrySet()) {
+                String key = getKey(service, response.getKey());
+                Entry entry = new Entry(response.getValue(), expiresAt);
+                add(key, entry);
+                writeEntry(writer, key, entry);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Failed to save service responses to " + _journal, e);
+        }
+        evict();
+        if (_journalLines > 2 * _entries.size() + 1000) {
+            compact();
+        }
+    }
+
+    public void put(String service, String query, String response) {
+        putAll(service, Map.of(query, response));
+    }
+
+    /**
+     * Forgets all answers, in memory and on disk.
+     */
+    public synchronized void purge() {
+        logger.info("Purging {} service responses ({} bytes)", _entries.size(), _bytes);
+        closeWriter();
+        _entries.clear();
+        _bytes = 0;
+        _journalLines = 0;
+        if (_journal.exists() && !_journal.delete()) {
+            logger.warn("Failed to delete " + _journal);
+        }
+    }
+
+    public synchronized int getEntryCount() {
+        return _entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return _bytes;
+    }
+
+    public synchronized long getHits() {
+        return _hits;
+    }
+
+    public synchronized long getMisses() {
+        return _misses;
+    }
+
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    protected void add(String key, Entry entry) {
+        remove(key);
+        _entries.put(key, entry);
+        _bytes += entry.getSize();
+    }
+
+    protected void remove(String key) {
+        Entry old = _entries.remove(key);
+        if (old != null) {
+            _bytes -= old.getSize();
+        }
+    }
+
+    protected void evict() {
+        Iterator<Entry> it = _entries.values().iterator();
+        while (_bytes > _maxBytes && it.hasNext()) {
+            _bytes -= it.next().getSize();
+            it.remove();
+        }
+    }
+
+    protected Writer getWriter() throws IOException {
+        if (_writer == null) {
+            _journal.getParentFile().mkdirs();
+            _writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(_journal, true), StandardCharsets.UTF_8));
+        }
+        return _writer;
+    }
+
+    protected void closeWriter() {
+        if (_writer != null) {
+            try {
+                _writer.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close " + _journal, e);
+            }
+            _writer = null;
+        }
+    }
+
+    protected void writeEntry(Writer writer, String key, Entry entry) throws IOException {
+        writer.write(Long.toString(entry.expiresAt));
+        writer.write(' ');
+        writer.write(key);
+        writer.write(' ');
+        writer.write(escape(entry.response));
+        writer.write('\n');
+        _journalLines++;
+    }
+
+    protected void load() {
+        if (!_journal.exists()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(_journal), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                _journalLines++;
+                int space1 = line.indexOf(' ');
+                int space2 = space1 < 0 ? -1 : line.indexOf(' ', space1 + 1);
+                if (space2 < 0) {
+                    continue; // truncated by a crash
+                }
+                try {
+                    long expiresAt = Long.parseLong(line.substring(0, space1));
+                    if (expiresAt >= now) {
+                        add(line.substring(space1 + 1, space2), new Entry(unescape(line.substring(space2 + 1)), expiresAt));
+                    }
+                } catch (NumberFormatException e) {
+                    // truncated by a crash
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read service responses from " + _journal, e);
+        }
+        evict();
+        logger.info("Loaded {} service responses ({} bytes)", _entries.size(), _bytes);
+        if (_journalLines > _entries.size()) {
+            compact();
+        }
+    }
+
+    // answers are written one per line: their line breaks and backslashes are escaped
+    static protected String escape(String response) {
+        if (response.indexOf('\\') < 0 && response.indexOf('\n') < 0 && response.indexOf('\r') < 0) {
+            return response;
+        }
+        return response.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static protected String unescape(String line) {
+        if (line.indexOf('\\') < 0) {
+            return line;
+        }
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rewrites the journal with the answers currently in the cache only.
+     */
+    protected void compact() {
+        closeWriter();
+        File temp = new File(_journal.getParentFile(), JOURNAL_FILE + ".temp");
+        _journalLines = 0;
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+                for (Map.Entry<String, Entry> entry : _entries.entrySet()) {
+                    writeEntry(writer, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(temp.toPath(), _journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to rewrite " + _journal, e);
+        }
+    }
+}
@@ -426,7 +426,7 @@ public class StandardReconConfig extends ReconConfig {
         return job;
     }
 
-    private HttpClient getHttpClient() {
+    private synchronized HttpClient getHttpClient() {
         if (httpClient == null) {
             httpClient = new HttpClient();
         }
@@ -444,64 +444,101 @@ public class StandardReconConfig extends ReconConfig {
 
     @Override
     public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID) {
-        List<Recon> recons = new ArrayList<Recon>(jobs.size());
+        try {
+            return tryBatchRecon(jobs, historyEntryID);
+        } catch (IOException e) {
+            List<Recon> recons = new ArrayList<Recon>(jobs.size());
+            Recon recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
+            recon.error = e.toString();
+            recons.add(recon);
+            while (recons.size() < jobs.size()) {
+                recons.add(null);
+            }
+            return recons;
+        }
+    }
 
-        StringWriter stringWriter = new StringWriter();
+    @Override
+    public List<Recon> tryBatchRecon(List<ReconJob> jobs, long historyEntryID) throws IOException {
+        List<Recon> recons = new ArrayList<Recon>(jobs.size());
 
-        stringWriter.write("{");
+        // the answer to each job, from the cache of the workspace or from the service
+        ObjectNode[] answers = new ObjectNode[jobs.size()];
+        List<Integer> queried = new ArrayList<Integer>(jobs.size());
+        ServiceResponseCache cache = ServiceResponseCache.getInstance();
         for (int i = 0; i < jobs.size(); i++) {
-            StandardReconJob job = (StandardReconJob) jobs.get(i);
-            if (i > 0) {
-                stringWriter.write(",");
+            String cached = cache == null ? null : cache.get(service, ((StandardReconJob) jobs.get(i)).code);
+            if (cached != null) {
+                answers[i] = ParsingUtilities.evaluateJsonStringToObjectNode(cached);
+            }
+            if (answers[i] == null) {
+                queried.add(i);
             }
-            stringWriter.write("\"q" + i + "\":");
-            stringWriter.write(job.code);
         }
-        stringWriter.write("}");
-        String queriesString = stringWriter.toString();
 
-        try {
+        ObjectNode o = null;
+        if (!queried.isEmpty()) {
+            StringWriter stringWriter = new StringWriter();
+
+            stringWriter.write("{");
+            for (int k = 0; k < queried.size(); k++) {
+                StandardReconJob job = (StandardReconJob) jobs.get(queried.get(k));
+                if (k > 0) {
+                    stringWriter.write(",");
+                }
+                stringWriter.write("\"q" + k + "\":");
+                stringWriter.write(job.code);
+            }
+            stringWriter.write("}");
+            String queriesString = stringWriter.toString();
+
             String responseString = postQueries(service, queriesString);
-            ObjectNode o = ParsingUtilities.evaluateJsonStringToObjectNode(responseString);
+            o = ParsingUtilities.evaluateJsonStringToObjectNode(responseString);
 
             if (o == null) { // utility method returns null instead of throwing
                 logger.error("Failed to parse string as JSON: " + responseString);
             } else {
-                for (int i = 0; i < jobs.size(); i++) {
-                    StandardReconJob job = (StandardReconJob) jobs.get(i);
-                    Recon recon = null;
-
-                    String text = job.text;
-                    String key = "q" + i;
+                Map<String, String> toCache = new HashMap<String, String>();
+                for (int k = 0; k < queried.size(); k++) {
+                    String key = "q" + k;
                     if (o.has(key) && o.get(key) instanceof ObjectNode) {
                         ObjectNode o2 = (ObjectNode) o.get(key);
+                        answers[queried.get(k)] = o2;
                         if (o2.has("result") && o2.get("result") instanceof ArrayNode) {
-                            ArrayNode results = (ArrayNode) o2.get("result");
-
-                            recon = createReconServiceResults(text, results, historyEntryID);
-                        } else {
-                            recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
-                            recon.error = o2.toString();
+                            toCache.put(((StandardReconJob) jobs.get(queried.get(k))).code, o2.toString());
                         }
-                    } else {
-                        recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
-                        recon.error = o.toString();
-                    }
-
-                    if (recon != null) {
-                        recon.service = service;
                     }
-                    recons.add(recon);
+                }
+                if (cache != null && !toCache.isEmpty()) {
+                    cache.putAll(service, toCache);
                 }
             }
-        } catch (IOException e) {
-            Recon recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
-            recon.error = e.toString();
-            recons.add(recon);
         }
 
-        while (recons.size() < jobs.size()) {
-            recons.add(null);
+        for (int i = 0; i < jobs.size(); i++) {
+            StandardReconJob job = (StandardReconJob) jobs.get(i);
+            Recon recon = null;
+
+            String text = job.text;
+            if (answers[i] != null) {
+                ObjectNode o2 = answers[i];
+                if (o2.has("result") && o2.get("result") instanceof ArrayNode) {
+                    ArrayNode results = (ArrayNode) o2.get("result");
+
+                    recon = createReconServiceResults(text, results, historyEntryID);
+                } else {
+                    recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
+                    recon.error = o2.toString();
+                }
+            } else if (o != null) {
+                recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
+                recon.error = o.toString();
+            }
+
+            if (recon != null) {
+                recon.service = service;
+            }
+            recons.add(recon);
         }
 
         return recons;
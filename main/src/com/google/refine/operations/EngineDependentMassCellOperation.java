@@ -42,6 +42,7 @@ import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.FilteredRows;
 import com.google.refine.browsing.RowVisitor;
+import com.google.refine.browsing.util.ParallelRowEvaluator;
 import com.google.refine.history.Change;
 import com.google.refine.history.HistoryEntry;
 import com.google.refine.model.Column;
@@ -76,7 +77,8 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
 
         FilteredRows filteredRows = engine.getAllFilteredRows();
         try {
-            filteredRows.accept(project, createRowVisitor(project, cellChanges, historyEntryID));
+            ParallelRowEvaluator.visit(project, filteredRows, canVisitRowsInParallel(project),
+                    results -> createRowVisitor(project, results, historyEntryID), cellChanges);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -97,6 +99,14 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
         return _columnName;
     }
 
+    /**
+     * Whether the rows can be split into chunks visited in parallel, each by its own row visitor. This requires the
+     * visitor not to depend on the rows visited before it.
+     */
+    protected boolean canVisitRowsInParallel(Project project) {
+        return false;
+    }
+
     abstract protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception;
 
     abstract protected String createDescription(Column column, List<CellChange> cellChanges);
@@ -105,7 +105,7 @@ public class MultiValuedCellJoinOperation extends AbstractOperation {
             Row oldRow = project.rows.get(r);
 
             if (oldRow.isCellBlank(keyCellIndex)) {
-                newRows.add(oldRow.dup());
+                newRows.add(oldRow);
                 continue;
             }
 
@@ -115,7 +115,7 @@ public class MultiValuedCellJoinOperation extends AbstractOperation {
             }
 
             if (r2 == r + 1) {
-                newRows.add(oldRow.dup());
+                newRows.add(oldRow);
                 continue;
             }
 
@@ -183,7 +183,7 @@ public class MultiValuedCellSplitOperation extends AbstractOperation {
         for (int r = 0; r < oldRowCount; r++) {
             Row oldRow = project.rows.get(r);
             if (oldRow.isCellBlank(cellIndex)) {
-                newRows.add(oldRow.dup());
+                newRows.add(oldRow);
                 continue;
             }
 
@@ -210,9 +210,9 @@ public class MultiValuedCellSplitOperation extends AbstractOperation {
                 values = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, _separator);
             }
 
-            // Split didn't change anything. Just copy the row
+            // Split didn't change anything. Just keep the row
             if (values.length < 2) {
-                newRows.add(oldRow.dup());
+                newRows.add(oldRow);
                 continue;
             }
 
@@ -37,12 +37,16 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Properties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.model.Cell;
@@ -56,6 +60,8 @@ import com.google.refine.operations.OperationDescription;
 
 public class TextTransformOperation extends EngineDependentMassCellOperation {
 
+    final static Logger logger = LoggerFactory.getLogger("text-transform-operation");
+
     @JsonProperty("expression")
     final protected String _expression;
     @JsonProperty("onError")
@@ -112,11 +118,20 @@ public class TextTransformOperation extends EngineDependentMassCellOperation {
         return OperationDescription.cell_text_transform_desc(cellChanges.size(), column.getName(), _expression);
     }
 
+    /**
+     * Each row visitor parses the expression again and evaluates it with its own bindings, so the rows can be
+     * transformed in parallel if the language of the expression supports it.
+     */
+    @Override
+    protected boolean canVisitRowsInParallel(Project project) {
+        return MetaParser.isThreadSafe(_expression);
+    }
+
     @Override
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
         Column column = project.columnModel.getColumnByName(_columnName);
 
-        Evaluable eval = MetaParser.parse(_expression);
+        Evaluable eval = MemoizedEvaluable.memoize(MetaParser.parse(_expression));
         Properties bindings = ExpressionUtils.createBindings(project);
 
         return new RowVisitor() {
@@ -141,7 +156,7 @@ public class TextTransformOperation extends EngineDependentMassCellOperation {
 
             @Override
             public void end(Project project) {
-                // nothing to do
+                MemoizedEvaluable.logHitRate(eval, logger, "Transform of column " + _columnName);
             }
 
             @Override
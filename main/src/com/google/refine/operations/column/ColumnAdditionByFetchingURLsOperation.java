@@ -38,15 +38,26 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import com.google.refine.operations.OperationDescription;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.message.BasicHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -68,14 +79,28 @@ import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.model.changes.CellAtRow;
 import com.google.refine.model.changes.ColumnAdditionChange;
+import com.google.refine.model.recon.ServiceResponseCache;
 import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.operations.OnError;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.HostThrottle;
 import com.google.refine.util.HttpClient;
+import com.google.refine.util.HttpClient.HttpStatusException;
 
 public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperation {
 
+    final static Logger logger = LoggerFactory.getLogger("column-addition-by-fetching-urls");
+
+    /**
+     * How many threads can fetch URLs at once for an operation, whatever the number of hosts.
+     */
+    final static public int MAX_FETCH_THREADS = Integer.getInteger("refine.fetch.maxThreads", 32);
+
+    // how many times a URL is fetched again after its host asked to retry later, and how long we wait at most
+    final static protected int MAX_RETRY_AFTER_TRIALS = 1;
+    final static protected long MAX_RETRY_AFTER = 5 * 60 * 1000;
+
     public static final class HttpHeader {
 
         @JsonProperty("name")
@@ -100,10 +125,36 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
     final protected int _columnInsertIndex;
     final protected int _delay;
     final protected boolean _cacheResponses;
+    final protected int _concurrency;
+    final protected boolean _persistentCache;
     final protected List<HttpHeader> _httpHeadersJson;
     private Header[] httpHeaders = new Header[0];
     private HttpClient _httpClient;
 
+    public ColumnAdditionByFetchingURLsOperation(
+            EngineConfig engineConfig,
+            String baseColumnName,
+            String urlExpression,
+            OnError onError,
+            String newColumnName,
+            int columnInsertIndex,
+            int delay,
+            boolean cacheResponses,
+            List<HttpHeader> httpHeadersJson) {
+        this(engineConfig, baseColumnName, urlExpression, onError, newColumnName, columnInsertIndex, delay,
+                cacheResponses, httpHeadersJson, 0, false);
+    }
+
+    /**
+     * @param delay
+     *            the delay between two requests, in milliseconds. When fetching concurrently, the delay applies to each
+     *            host separately.
+     * @param concurrency
+     *            0 to fetch the URLs one after the other, or how many requests can be in flight to each host at once
+     * @param persistentCache
+     *            whether to look up and store responses in the cache of the workspace, which is shared by all
+     *            operations and kept across restarts
+     */
     @JsonCreator
     public ColumnAdditionByFetchingURLsOperation(
             @JsonProperty("engineConfig") EngineConfig engineConfig,
@@ -114,7 +165,9 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             @JsonProperty("columnInsertIndex") int columnInsertIndex,
             @JsonProperty("delay") int delay,
             @JsonProperty("cacheResponses") boolean cacheResponses,
-            @JsonProperty("httpHeadersJson") List<HttpHeader> httpHeadersJson) {
+            @JsonProperty("httpHeadersJson") List<HttpHeader> httpHeadersJson,
+            @JsonProperty("concurrency") int concurrency,
+            @JsonProperty("persistentCache") boolean persistentCache) {
         super(engineConfig);
 
         _baseColumnName = baseColumnName;
@@ -126,6 +179,8 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
 
         _delay = delay;
         _cacheResponses = cacheResponses;
+        _concurrency = Math.max(0, concurrency);
+        _persistentCache = persistentCache;
         _httpHeadersJson = httpHeadersJson;
 
         List<Header> headers = new ArrayList<Header>();
@@ -137,7 +192,8 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
         httpHeaders = headers.toArray(httpHeaders);
-        _httpClient = new HttpClient(_delay);
+        // when fetching concurrently, the delay is enforced for each host by the process instead
+        _httpClient = _concurrency > 0 ? new HttpClient(0, Math.max(_delay, 200)) : new HttpClient(_delay);
 
     }
 
@@ -181,6 +237,18 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         return _cacheResponses;
     }
 
+    @JsonProperty("concurrency")
+    @JsonInclude(Include.NON_DEFAULT)
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    @JsonProperty("persistentCache")
+    @JsonInclude(Include.NON_DEFAULT)
+    public boolean getPersistentCache() {
+        return _persistentCache;
+    }
+
     @Override
     protected String getBriefDescription(Project project) {
         return OperationDescription.column_addition_by_fetching_urls_brief(_newColumnName, _columnInsertIndex, _baseColumnName,
@@ -269,6 +337,25 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             FilteredRows filteredRows = _engine.getAllFilteredRows();
             filteredRows.accept(_project, createRowVisitor(urls));
 
+            List<CellAtRow> responseBodies = _concurrency > 0 ? fetchConcurrently(urls) : fetchSequentially(urls);
+
+            if (!_canceled) {
+                HistoryEntry historyEntry = new HistoryEntry(
+                        _historyEntryID,
+                        _project,
+                        _description,
+                        ColumnAdditionByFetchingURLsOperation.this,
+                        new ColumnAdditionChange(
+                                _newColumnName,
+                                _columnInsertIndex,
+                                responseBodies));
+
+                _project.history.addEntry(historyEntry);
+                _project.processManager.onDoneProcess(this);
+            }
+        }
+
+        protected List<CellAtRow> fetchSequentially(List<CellAtRow> urls) {
             int count = urls.size();
             List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
             int i = 0;
@@ -296,21 +383,96 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
                     break;
                 }
             }
+            return responseBodies;
+        }
 
-            if (!_canceled) {
-                HistoryEntry historyEntry = new HistoryEntry(
-                        _historyEntryID,
-                        _project,
-                        _description,
-                        ColumnAdditionByFetchingURLsOperation.this,
-                        new ColumnAdditionChange(
-                                _newColumnName,
-                                _columnInsertIndex,
-                                responseBodies));
+        /**
+         * Fetches the URLs on a pool of threads, with at most {@link #_concurrency} requests in flight to each host
+         * and the delay of the operation between the starts of two requests to the same host. Each response is stored
+         * in the slot of its row as soon as it arrives, and the cells keep the order of the rows whatever the order of
+         * the responses.
+         */
+        protected List<CellAtRow> fetchConcurrently(List<CellAtRow> urls) {
+            int count = urls.size();
+            Serializable[] responses = new Serializable[count];
+            HostThrottle throttle = new HostThrottle(_concurrency, _delay);
 
-                _project.history.addEntry(historyEntry);
-                _project.processManager.onDoneProcess(this);
+            Set<String> hosts = new HashSet<>();
+            for (CellAtRow urlData : urls) {
+                hosts.add(HostThrottle.getHost(urlData.cell.value.toString()));
             }
+            int threads = (int) Math.max(1, Math.min(MAX_FETCH_THREADS, (long) _concurrency * hosts.size()));
+            ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "url-fetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+            try {
+                for (int i = 0; i < count; i++) {
+                    int index = i;
+                    completionService.submit(() -> {
+                        responses[index] = throttledFetch(urls.get(index).cell.value.toString(), throttle);
+                        return index;
+                    });
+                }
+                for (int done = 1; done <= count && !_canceled; done++) {
+                    completionService.take().get();
+                    _progress = done * 100 / count;
+                }
+            } catch (InterruptedException e) {
+                _canceled = true;
+            } catch (ExecutionException e) {
+                logger.error("Failed to fetch URL", e.getCause());
+                _canceled = true;
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
+            for (int i = 0; i < count; i++) {
+                if (responses[i] != null) {
+                    responseBodies.add(new CellAtRow(urls.get(i).row, new Cell(responses[i], null)));
+                }
+            }
+            return responseBodies;
+        }
+
+        /**
+         * Fetches a URL once the throttle lets a request to its host through. If the host answers with a Retry-After
+         * header once the client has run out of retries, requests to the host are held back for that long and the URL
+         * is fetched once more.
+         */
+        Serializable throttledFetch(String urlString, HostThrottle throttle) throws InterruptedException {
+            if (_urlCache != null) {
+                Serializable cached = _urlCache.getIfPresent(urlString);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            String host = HostThrottle.getHost(urlString);
+            Serializable response = null;
+            for (int trial = 0;; trial++) {
+                throttle.acquire(host);
+                try {
+                    response = fetchOrThrow(urlString, httpHeaders);
+                    break;
+                } catch (Exception e) {
+                    HttpStatusException status = HttpStatusException.find(e);
+                    if (status != null && status.getRetryAfter() >= 0 && trial < MAX_RETRY_AFTER_TRIALS) {
+                        throttle.pause(host, Math.min(status.getRetryAfter(), MAX_RETRY_AFTER));
+                        continue;
+                    }
+                    response = onFetchError(e);
+                    break;
+                } finally {
+                    throttle.release(host);
+                }
+            }
+            if (_urlCache != null && response != null) {
+                _urlCache.put(urlString, response);
+            }
+            return response;
         }
 
         Serializable cachedFetch(String urlString) {
@@ -322,15 +484,44 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         }
 
         Serializable fetch(String urlString, Header[] headers) {
-            try { // HttpClients.createDefault()) {
-                try {
-                    return _httpClient.getAsString(urlString, headers);
-                } catch (IOException e) {
-                    return _onError == OnError.StoreError ? new EvalError(e) : null;
-                }
+            try {
+                return fetchOrThrow(urlString, headers);
             } catch (Exception e) {
-                return _onError == OnError.StoreError ? new EvalError(e.getMessage()) : null;
+                return onFetchError(e);
+            }
+        }
+
+        /**
+         * @return the body of the response, looked up in the cache of the workspace first if the operation uses it, or
+         *         null for invalid URLs
+         */
+        Serializable fetchOrThrow(String urlString, Header[] headers) throws IOException {
+            ServiceResponseCache cache = _persistentCache ? ServiceResponseCache.getInstance() : null;
+            String cacheKey = cache == null ? null : getCacheKey(headers);
+            String body = cache == null ? null : cache.get(urlString, cacheKey);
+            if (body == null) {
+                body = _httpClient.getAsString(urlString, headers);
+                if (cache != null && body != null) {
+                    cache.put(urlString, cacheKey, body);
+                }
+            }
+            return body;
+        }
+
+        Serializable onFetchError(Exception e) {
+            if (e instanceof IOException) {
+                return _onError == OnError.StoreError ? new EvalError(e) : null;
+            }
+            return _onError == OnError.StoreError ? new EvalError(e.getMessage()) : null;
+        }
+
+        // responses to the same URL can differ with the headers sent
+        String getCacheKey(Header[] headers) {
+            StringBuilder sb = new StringBuilder("GET");
+            for (Header header : headers) {
+                sb.append('\n').append(header.getName()).append(": ").append(header.getValue());
             }
+            return sb.toString();
         }
 
         RowVisitor createRowVisitor(List<CellAtRow> cellsAtRows) {
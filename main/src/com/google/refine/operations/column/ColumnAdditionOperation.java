@@ -38,14 +38,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.FilteredRows;
 import com.google.refine.browsing.RowVisitor;
+import com.google.refine.browsing.util.ParallelRowEvaluator;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.history.Change;
@@ -62,6 +67,8 @@ import com.google.refine.operations.OperationDescription;
 
 public class ColumnAdditionOperation extends EngineDependentOperation {
 
+    final static Logger logger = LoggerFactory.getLogger("column-addition-operation");
+
     final protected String _baseColumnName;
     final protected String _expression;
     final protected OnError _onError;
@@ -135,8 +142,10 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
 
         List<CellAtRow> cellsAtRows = new ArrayList<CellAtRow>(project.rows.size());
 
+        // each row visitor parses the expression again and evaluates it with its own bindings
         FilteredRows filteredRows = engine.getAllFilteredRows();
-        filteredRows.accept(project, createRowVisitor(project, cellsAtRows));
+        ParallelRowEvaluator.visit(project, filteredRows, MetaParser.isThreadSafe(_expression),
+                results -> createRowVisitor(project, results), cellsAtRows);
 
         String description = createDescription(column, cellsAtRows);
 
@@ -149,7 +158,7 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
     protected RowVisitor createRowVisitor(Project project, List<CellAtRow> cellsAtRows) throws Exception {
         Column column = project.columnModel.getColumnByName(_baseColumnName);
 
-        Evaluable eval = MetaParser.parse(_expression);
+        Evaluable eval = MemoizedEvaluable.memoize(MetaParser.parse(_expression));
         Properties bindings = ExpressionUtils.createBindings(project);
 
         return new RowVisitor() {
@@ -174,7 +183,7 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
 
             @Override
             public void end(Project project) {
-                // nothing to do
+                MemoizedEvaluable.logHitRate(eval, logger, "Addition of column " + _newColumnName);
             }
 
             @Override
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.operations.recon;
+
+/**
+ * Decides how many reconciliation batches are sent to a service at once, and how many jobs go in each batch.
+ * <p>
+ * Reconciliation starts with a single batch in flight. Each batch answered without slowing down the service lets one
+ * more batch be in flight, up to a configured maximum. A batch which takes noticeably longer per job than the fastest
+ * one seen so far means that requests are queuing up on the service side, and one batch less is kept in flight. A
+ * service which asks to slow down (HTTP 429) or fails (HTTP 5xx) halves both the number of batches in flight and their
+ * size, and the batches are only sent again after a delay which doubles with each consecutive failure. Batches grow
+ * back to their configured size as the service answers.
+ * <p>
+ * Not thread-safe: the process sending the batches reports their outcome from a single thread.
+ */
+public class ReconBatchController {
+
+    /**
+     * How many batches can be in flight at once, at most.
+     */
+    static final public int MAX_CONCURRENT_BATCHES = Integer.getInteger("refine.recon.maxConcurrentBatches", 4);
+
+    /**
+     * How much longer than the fastest batch seen so far a batch can take per job before it counts as slowed down.
+     */
+    static final protected double LATENCY_TOLERANCE = 2.0;
+
+    static final protected long INITIAL_BACKOFF = 500;
+    static final protected long MAX_BACKOFF = 30000;
+
+    final protected int _maxConcurrency;
+    final protected int _maxBatchSize;
+
+    protected int _concurrency = 1;
+    protected int _batchSize;
+    protected double _fastestLatencyPerJob = Double.MAX_VALUE;
+    protected long _backoff = 0;
+
+    public ReconBatchController(int maxBatchSize, int maxConcurrency) {
+        _maxBatchSize = Math.max(1, maxBatchSize);
+        _maxConcurrency = Math.max(1, maxConcurrency);
+        _batchSize = _maxBatchSize;
+    }
+
+    public int getMaxConcurrency() {
+        return _maxConcurrency;
+    }
+
+    /**
+     * @return how many batches should be in flight
+     */
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    /**
+     * @return how many jobs the next batches should hold
+     */
+    public int getBatchSize() {
+        return _batchSize;
+    }
+
+    /**
+     * @return how long to wait before sending more batches, in milliseconds
+     */
+    public long getBackoffDelay() {
+        return _backoff;
+    }
+
+    /**
+     * Records a batch answered by the service.
+     * 
+     * @param jobCount
+     *            the number of jobs in the batch
+     * @param latency
+     *            how long the service took to answer, in milliseconds
+     */
+    public void onSuccess(int jobCount, long latency) {
+        double latencyPerJob = (double) latency / Math.max(1, jobCount);
+        _backoff = 0;
+        if (latencyPerJob <= _fastestLatencyPerJob * LATENCY_TOLERANCE) {
+            _fastestLatencyPerJob = Math.min(_fastestLatencyPerJob, latencyPerJob);
+            _concurrency = Math.min(_maxConcurrency, _concurrency + 1);
+            _batchSize = Math.min(_maxBatchSize, _batchSize * 2);
+        } else {
+            _concurrency = Math.max(1, _concurrency - 1);
+        }
+    }
+
+    /**
+     * Records a batch rejected by an overloaded service.
+     */
+    public void onOverload() {
+        _concurrency = Math.max(1, _concurrency / 2);
+        _batchSize = Math.max(1, _batchSize / 2);
+        _backoff = _backoff == 0 ? INITIAL_BACKOFF : Math.min(MAX_BACKOFF, _backoff * 2);
+    }
+}
@@ -35,10 +35,18 @@ package com.google.refine.operations.recon;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.messages.OpenRefineMessage;
@@ -68,6 +76,7 @@ import com.google.refine.model.recon.StandardReconConfig;
 import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.HttpClient.HttpStatusException;
 import com.google.refine.util.ParsingUtilities;
 
 public class ReconOperation extends EngineDependentOperation {
@@ -121,11 +130,22 @@ public class ReconOperation extends EngineDependentOperation {
         }
     }
 
+    /**
+     * How many times a job is sent to a service which reports being overloaded before giving up on it.
+     */
+    static final protected int MAX_TRIALS = 3;
+
+    static protected boolean isOverloaded(IOException e) {
+        HttpStatusException status = HttpStatusException.find(e);
+        return status != null && status.isOverloaded();
+    }
+
     static protected class JobGroup {
 
         final public ReconJob job;
         final public List<ReconEntry> entries = new ArrayList<ReconEntry>();
         public int trials = 0;
+        public Recon recon = null;
 
         public JobGroup(ReconJob job) {
             this.job = job;
@@ -234,6 +254,43 @@ public class ReconOperation extends EngineDependentOperation {
             });
         }
 
+        /**
+         * A batch of jobs sent to the service on a thread of its own. It never throws, its outcome is recorded in the
+         * batch.
+         */
+        protected class ReconBatch implements Callable<ReconBatch> {
+
+            final protected List<JobGroup> groups;
+            protected IOException failure = null;
+            protected long latency = 0;
+
+            protected ReconBatch(List<JobGroup> groups) {
+                this.groups = groups;
+            }
+
+            @Override
+            public ReconBatch call() {
+                List<ReconJob> jobs = new ArrayList<ReconJob>(groups.size());
+                for (JobGroup group : groups) {
+                    jobs.add(group.job);
+                }
+
+                long start = System.currentTimeMillis();
+                try {
+                    List<Recon> recons = _reconConfig.tryBatchRecon(jobs, _historyEntryID);
+                    for (int i = 0; recons != null && i < recons.size() && i < groups.size(); i++) {
+                        groups.get(i).recon = recons.get(i);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException e) {
+                    failure = new IOException(e);
+                }
+                latency = System.currentTimeMillis() - start;
+                return this;
+            }
+        }
+
         @Override
         public void run() {
             try {
@@ -243,7 +300,9 @@ public class ReconOperation extends EngineDependentOperation {
                 e2.printStackTrace();
             }
 
-            Map<String, JobGroup> jobKeyToGroup = new HashMap<String, JobGroup>();
+            // groups keep the order in which their values first appear, so that results do not depend on the order
+            // in which batches are answered
+            Map<String, JobGroup> jobKeyToGroup = new LinkedHashMap<String, JobGroup>();
 
             for (ReconEntry entry : _entries) {
                 ReconJob job = _reconConfig.createJob(
@@ -262,64 +321,97 @@ public class ReconOperation extends EngineDependentOperation {
                 group.entries.add(entry);
             }
 
-            int batchSize = _reconConfig.getBatchSize(_project.rows.size());
-            int done = 0;
-
-            List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
             List<JobGroup> groups = new ArrayList<JobGroup>(jobKeyToGroup.values());
+            ReconBatchController controller = new ReconBatchController(
+                    _reconConfig.getBatchSize(_project.rows.size()), ReconBatchController.MAX_CONCURRENT_BATCHES);
 
-            List<ReconJob> jobs = new ArrayList<ReconJob>(batchSize);
-            Map<ReconJob, JobGroup> jobToGroup = new HashMap<ReconJob, ReconOperation.JobGroup>();
-
-            for (int i = 0; i < groups.size(); /* don't increment here */) {
-                while (jobs.size() < batchSize && i < groups.size()) {
-                    JobGroup group = groups.get(i++);
-
-                    jobs.add(group.job);
-                    jobToGroup.put(group.job, group);
-                }
-
-                List<Recon> recons = _reconConfig.batchRecon(jobs, _historyEntryID);
-                for (int j = jobs.size() - 1; j >= 0; j--) {
-                    ReconJob job = jobs.get(j);
-                    Recon recon = j < recons.size() ? recons.get(j) : null;
-                    JobGroup group = jobToGroup.get(job);
-                    List<ReconEntry> entries = group.entries;
-
-                    jobToGroup.remove(job);
-                    jobs.remove(j);
-                    done++;
-
-                    if (recon != null) {
-                        recon.judgmentBatchSize = entries.size();
+            ExecutorService executor = Executors.newFixedThreadPool(controller.getMaxConcurrency(), runnable -> {
+                Thread thread = new Thread(runnable, "recon-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            CompletionService<ReconBatch> completionService = new ExecutorCompletionService<>(executor);
+            Deque<List<JobGroup>> retries = new ArrayDeque<>();
+            int next = 0;
+            int inFlight = 0;
+            int done = 0;
+            try {
+                while (!_canceled && (next < groups.size() || !retries.isEmpty() || inFlight > 0)) {
+                    while (inFlight < controller.getConcurrency() && (next < groups.size() || !retries.isEmpty())) {
+                        List<JobGroup> batchGroups;
+                        if (!retries.isEmpty()) {
+                            batchGroups = retries.poll();
+                        } else {
+                            int end = Math.min(groups.size(), next + controller.getBatchSize());
+                            batchGroups = groups.subList(next, end);
+                            next = end;
+                        }
+                        completionService.submit(new ReconBatch(batchGroups));
+                        inFlight++;
                     }
 
-                    for (ReconEntry entry : entries) {
-                        if (recon == null) {
-                            // TODO add EvalError instead? That is not so convenient
-                            // for users because they would lose the cell contents.
-                            // Better leave the cell unreconciled so they can be reconciled again later.
-                            continue;
+                    ReconBatch batch = completionService.take().get();
+                    inFlight--;
+
+                    if (batch.failure == null) {
+                        controller.onSuccess(batch.groups.size(), batch.latency);
+                        done += batch.groups.size();
+                    } else if (isOverloaded(batch.failure) && batch.groups.get(0).trials < MAX_TRIALS) {
+                        controller.onOverload();
+                        logger.warn("Reconciliation service overloaded, sending {} jobs again with {} batches in flight",
+                                batch.groups.size(), controller.getConcurrency());
+                        for (JobGroup group : batch.groups) {
+                            group.trials++;
+                        }
+                        for (int i = 0; i < batch.groups.size(); i += controller.getBatchSize()) {
+                            retries.add(batch.groups.subList(i,
+                                    Math.min(batch.groups.size(), i + controller.getBatchSize())));
                         }
-                        Cell oldCell = entry.cell;
-                        Cell newCell = new Cell(oldCell.value, recon);
-
-                        CellChange cellChange = new CellChange(
-                                entry.rowIndex,
-                                _cellIndex,
-                                oldCell,
-                                newCell);
-                        cellChanges.add(cellChange);
+                        Thread.sleep(controller.getBackoffDelay());
+                    } else {
+                        // the first job holds the error, as with ReconConfig.batchRecon
+                        Recon recon = _reconConfig.createNewRecon(_historyEntryID);
+                        recon.error = batch.failure.toString();
+                        batch.groups.get(0).recon = recon;
+                        done += batch.groups.size();
                     }
+
+                    _progress = done * 100 / groups.size();
                 }
+            } catch (InterruptedException e) {
+                if (!_canceled) {
+                    logger.warn("Reconciliation interrupted", e);
+                    _canceled = true;
+                }
+            } catch (ExecutionException e) {
+                // batches catch their own exceptions
+                logger.error("Reconciliation batch failed", e.getCause());
+                _canceled = true;
+            } finally {
+                executor.shutdownNow();
+            }
 
-                _progress = done * 100 / groups.size();
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    if (_canceled) {
-                        break;
-                    }
+            List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
+            for (JobGroup group : groups) {
+                Recon recon = group.recon;
+                if (recon == null) {
+                    // TODO add EvalError instead? That is not so convenient
+                    // for users because they would lose the cell contents.
+                    // Better leave the cell unreconciled so they can be reconciled again later.
+                    continue;
+                }
+                recon.judgmentBatchSize = group.entries.size();
+
+                for (ReconEntry entry : group.entries) {
+                    Cell oldCell = entry.cell;
+                    Cell newCell = new Cell(oldCell.value, recon);
+
+                    CellChange cellChange = new CellChange(
+                            entry.rowIndex,
+                            _cellIndex,
+                            oldCell,
+                            newCell);
+                    cellChanges.add(cellChange);
                 }
             }
 
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.Engine.Mode;
+import com.google.refine.browsing.RecordVisitor;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.Project;
+import com.google.refine.model.Record;
+import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Caches the order in which the filtered rows (or records) of a project are listed under a sorting, so that paging
+ * through a sorted grid does not compute the sorting keys and sort all the rows again for each page.
+ * <p>
+ * Entries are keyed on the project, the engine configuration, the sorting configuration and the last applied history
+ * entry, and are flushed whenever the history of their project changes. When only the first pages are requested, only
+ * the first rows of the order are computed, with a partial sort.
+ */
+public class SortedRowsCache {
+
+    /**
+     * Maximum number of sorted orders kept in memory, across all projects.
+     */
+    final static public int MAX_ENTRIES = Integer.getInteger("refine.sorting.cache.maxEntries", 8);
+    /**
+     * Minimum number of rows (or records) put in order by a partial sort.
+     */
+    final static public int MIN_PARTIAL_SORT = Integer.getInteger("refine.sorting.partialSort.minRows", 1000);
+
+    /**
+     * The filtered rows (or records) of a project in sorted order, of which only the first ones may be known.
+     */
+    static public class SortedRows {
+
+        final protected long projectID;
+        final protected int[] indices;
+        final protected int filteredCount;
+
+        protected SortedRows(long projectID, int[] indices, int filteredCount) {
+            this.projectID = projectID;
+            this.indices = indices;
+            this.filteredCount = filteredCount;
+        }
+
+        /**
+         * @return the number of rows (or records) which match the facets
+         */
+        public int getFilteredCount() {
+            return filteredCount;
+        }
+
+        /**
+         * @return the number of rows (or records), from the first one, whose position is known
+         */
+        public int getSortedCount() {
+            return indices.length;
+        }
+
+        /**
+         * @return the index of the row (or record) at the given position in the sorted order
+         */
+        public int get(int position) {
+            return indices[position];
+        }
+    }
+
+    private final Map<String, SortedRows> _cache;
+
+    public SortedRowsCache() {
+        this(MAX_ENTRIES);
+    }
+
+    public SortedRowsCache(int maxEntries) {
+        _cache = new LinkedHashMap<String, SortedRows>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 6206393618577960361L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SortedRows> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the filtered rows (or records, depending on the mode of the engine) of a project in sorted order.
+     * 
+     * @param project
+     *            the project to sort
+     * @param engine
+     *            the engine selecting the rows to sort
+     * @param sortingConfig
+     *            the sorting to apply, which must have criteria
+     * @param needed
+     *            the number of rows (or records) whose position is needed, from the first one. More may be returned.
+     */
+    public SortedRows getSortedRows(Project project, Engine engine, SortingConfig sortingConfig, int needed)
+            throws JsonProcessingException {
+        long lastEntryID = getLastEntryID(project);
+        String key = project.id + "|" + lastEntryID + "|" + project.rows.size() + "|"
+                + ParsingUtilities.mapper.writeValueAsString(engine.getConfig()) + "|"
+                + ParsingUtilities.mapper.writeValueAsString(sortingConfig);
+
+        synchronized (this) {
+            SortedRows sortedRows = _cache.get(key);
+            if (sortedRows != null && Math.min(needed, sortedRows.filteredCount) <= sortedRows.indices.length) {
+                return sortedRows;
+            }
+        }
+
+        SortedRows sortedRows = sort(project, engine, sortingConfig, needed);
+        // do not keep orders which may have been computed while the project was changing
+        if (getLastEntryID(project) == lastEntryID) {
+            synchronized (this) {
+                _cache.put(key, sortedRows);
+            }
+        }
+        return sortedRows;
+    }
+
+    /**
+     * Forgets all the sorted orders of a project, for instance because its history changed.
+     */
+    synchronized public void flushProject(long projectID) {
+        _cache.values().removeIf(sortedRows -> sortedRows.projectID == projectID);
+    }
+
+    synchronized public int size() {
+        return _cache.size();
+    }
+
+    private static long getLastEntryID(Project project) {
+        List<HistoryEntry> entries = project.history.getLastPastEntries(1);
+        return entries.isEmpty() ? 0 : entries.get(0).id;
+    }
+
+    protected SortedRows sort(Project project, Engine engine, SortingConfig sortingConfig, int needed) {
+        IndexCollector collector = new IndexCollector();
+        Comparator<Integer> comparator;
+        if (engine.getMode() == Mode.RowBased) {
+            engine.getAllFilteredRows().accept(project, collector);
+            SortingRowVisitor sorter = new SortingRowVisitor(null);
+            sorter.initializeFromConfig(project, sortingConfig);
+            sorter._keys = new ArrayList<Object[]>();
+            comparator = (i1, i2) -> sorter.compare(project, project.rows.get(i1), i1, project.rows.get(i2), i2);
+        } else {
+            engine.getFilteredRecords().accept(project, collector);
+            SortingRecordVisitor sorter = new SortingRecordVisitor(null);
+            sorter.initializeFromConfig(project, sortingConfig);
+            sorter._keys = new ArrayList<Object[]>();
+            comparator = (i1, i2) -> sorter.compare(project,
+                    project.recordModel.getRecord(i1), i1, project.recordModel.getRecord(i2), i2);
+        }
+
+        int count = collector.size;
+        int partialSize = Math.max(2 * needed, MIN_PARTIAL_SORT);
+        int[] indices;
+        if (partialSize < count / 4) {
+            indices = sortFirst(collector.indices, count, partialSize, comparator);
+        } else {
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = collector.indices[i];
+            }
+            // stable, so rows with equal keys stay in their original order
+            Arrays.sort(boxed, comparator);
+            indices = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = boxed[i];
+            }
+        }
+        return new SortedRows(project.id, indices, count);
+    }
+
+    /**
+     * Partial sort of the first elements of an order, consistent with a stable sort of the whole array (which must be
+     * in increasing order).
+     */
+    static int[] sortFirst(int[] indices, int count, int size, Comparator<Integer> comparator) {
+        Comparator<Integer> order = comparator.thenComparing(Comparator.naturalOrder());
+        // the heap holds the smallest elements seen so far, the largest one on top
+        PriorityQueue<Integer> heap = new PriorityQueue<>(size + 1, order.reversed());
+        for (int i = 0; i < count; i++) {
+            Integer index = indices[i];
+            if (heap.size() < size) {
+                heap.add(index);
+            } else if (order.compare(index, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(index);
+            }
+        }
+        int[] first = new int[heap.size()];
+        for (int i = first.length - 1; i >= 0; i--) {
+            first[i] = heap.poll();
+        }
+        return first;
+    }
+
+    static private class IndexCollector implements RowVisitor, RecordVisitor {
+
+        int[] indices = new int[1024];
+        int size = 0;
+
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            add(rowIndex);
+            return false;
+        }
+
+        @Override
+        public boolean visit(Project project, Record record) {
+            add(record.recordIndex);
+            return false;
+        }
+
+        private void add(int index) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+    }
+}
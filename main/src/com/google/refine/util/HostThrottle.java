@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Paces requests sent concurrently to several hosts. Each host gets its own limit on concurrent requests and its own
+ * delay between the starts of consecutive requests, so that a slow or rate-limited host does not hold back requests to
+ * the others. A host which asks clients to wait (such as with a Retry-After header) can be paused.
+ */
+public class HostThrottle {
+
+    final protected int _maxConcurrentRequests;
+    final protected long _delay;
+    final protected Map<String, HostState> _hosts = new HashMap<>();
+
+    static protected class HostState {
+
+        final Semaphore slots;
+        long nextRequestTime = 0;
+
+        HostState(int maxConcurrentRequests) {
+            slots = new Semaphore(maxConcurrentRequests, true);
+        }
+    }
+
+    /**
+     * @param maxConcurrentRequests
+     *            how many requests can be in flight to the same host
+     * @param delay
+     *            the minimum delay between the starts of two requests to the same host, in milliseconds
+     */
+    public HostThrottle(int maxConcurrentRequests, long delay) {
+        _maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+        _delay = Math.max(0, delay);
+    }
+
+    /**
+     * @return the host of a URL, or an empty string for URLs without a host, which are all paced together
+     */
+    static public String getHost(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (URISyntaxException e) {
+            return "";
+        }
+    }
+
+    protected synchronized HostState getState(String host) {
+        return _hosts.computeIfAbsent(host, h -> new HostState(_maxConcurrentRequests));
+    }
+
+    /**
+     * Waits until a request can be sent to a host. Every call must be followed by a call to {@link #release(String)}
+     * once the request is done.
+     */
+    public void acquire(String host) throws InterruptedException {
+        HostState state = getState(host);
+        state.slots.acquire();
+        try {
+            long wait;
+            synchronized (state) {
+                long now = System.currentTimeMillis();
+                long start = Math.max(now, state.nextRequestTime);
+                state.nextRequestTime = start + _delay;
+                wait = start - now;
+            }
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        } catch (InterruptedException e) {
+            state.slots.release();
+            throw e;
+        }
+    }
+
+    public void release(String host) {
+        getState(host).slots.release();
+    }
+
+    /**
+     * Holds back the requests to a host which are not sent yet.
+     * 
+     * @param delay
+     *            how long to wait before the next request, in milliseconds
+     */
+    public void pause(String host, long delay) {
+        HostState state = getState(host);
+        synchronized (state) {
+            state.nextRequestTime = Math.max(state.nextRequestTime, System.currentTimeMillis() + delay);
+        }
+    }
+}
@@ -32,6 +32,7 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -49,10 +50,12 @@ import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
+import org.apache.hc.client5.http.utils.DateUtils;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.EntityDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
@@ -76,6 +79,11 @@ public class HttpClient {
 
     final static Logger logger = LoggerFactory.getLogger("http-client");
 
+    /**
+     * How many requests a client can have in flight to the same host, for callers which send them concurrently.
+     */
+    final static public int MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger("refine.http.maxConnectionsPerRoute", 16);
+
     final private RequestConfig defaultRequestConfig;
     private HttpClientBuilder httpClientBuilder;
     private CloseableHttpClient httpClient;
@@ -104,6 +112,8 @@ public class HttpClient {
                 .setSoTimeout(60, TimeUnit.SECONDS)
                 .build();
         connManager.setDefaultSocketConfig(socketConfig);
+        connManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connManager.setMaxTotal(Math.max(connManager.getMaxTotal(), MAX_CONNECTIONS_PER_ROUTE));
 
         defaultRequestConfig = RequestConfig.custom()
                 .setConnectTimeout(60, TimeUnit.SECONDS)
@@ -234,8 +244,8 @@ public class HttpClient {
                     }
                 } else {
                     // String errorBody = EntityUtils.toString(response.getEntity());
-                    throw new ClientProtocolException(String.format("HTTP error %d : %s for URL %s", status,
-                            response.getReasonPhrase(), urlString));
+                    throw new HttpStatusException(status, String.format("HTTP error %d : %s for URL %s", status,
+                            response.getReasonPhrase(), urlString), getRetryAfter(response));
                 }
             }
         };
@@ -271,7 +281,7 @@ public class HttpClient {
             String reasonPhrase = response.getReasonPhrase();
             int statusCode = response.getCode();
             if (statusCode >= 400) { // We should never see 3xx since they get handled automatically
-                throw new IOException(String.format("HTTP error %d : %s for URL %s", statusCode, reasonPhrase,
+                throw new HttpStatusException(statusCode, String.format("HTTP error %d : %s for URL %s", statusCode, reasonPhrase,
                         request.getRequestUri()));
             }
 
@@ -279,6 +289,75 @@ public class HttpClient {
         }
     }
 
+    /**
+     * Reads the Retry-After header of a response, given either as a number of seconds or as a date.
+     * 
+     * @return the delay in milliseconds, or -1 if the response has no valid Retry-After header
+     */
+    static protected long getRetryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null || header.getValue() == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return date == null ? -1 : Math.max(0, date.toEpochMilli() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * An error status returned by the server, after retries if the status allowed them.
+     */
+    static public class HttpStatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        final private int statusCode;
+        final private long retryAfter;
+
+        public HttpStatusException(int statusCode, String message) {
+            this(statusCode, message, -1);
+        }
+
+        public HttpStatusException(int statusCode, String message, long retryAfter) {
+            super(message);
+            this.statusCode = statusCode;
+            this.retryAfter = retryAfter;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return how long the server asked to wait before sending more requests, in milliseconds, or -1 if it did not
+         */
+        public long getRetryAfter() {
+            return retryAfter;
+        }
+
+        /**
+         * Whether the server asked clients to slow down (429) or failed on its side (5xx), in which case the same
+         * request may succeed later, under less load.
+         */
+        public boolean isOverloaded() {
+            return statusCode == HttpStatus.SC_TOO_MANY_REQUESTS || statusCode >= HttpStatus.SC_SERVER_ERROR;
+        }
+
+        /**
+         * Finds the status error at the origin of an exception, if any.
+         */
+        static public HttpStatusException find(Throwable e) {
+            while (e != null && !(e instanceof HttpStatusException)) {
+                e = e.getCause();
+            }
+            return (HttpStatusException) e;
+        }
+    }
+
     /**
      * Use binary exponential backoff strategy, instead of the default fixed retry interval, if the server doesn't
      * provide a Retry-After time.
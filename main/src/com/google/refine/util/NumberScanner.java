@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+/**
+ * Parses numbers in a single pass over their text, without throwing and catching {@link NumberFormatException} for
+ * text which is not a number. This matters when guessing the types of millions of cells, most of which are not
+ * numbers, since building the stack trace of an exception costs far more than parsing the number.
+ * <p>
+ * The numbers accepted and their values are the same as with {@link Long#parseLong(String)} and
+ * {@link Double#parseDouble(String)}. Decimal numbers with up to 15 significant digits and small exponents, which are
+ * by far the most common, are computed directly. Other numbers are handed over to {@link Double#parseDouble(String)}
+ * once they are known to be valid.
+ */
+public class NumberScanner {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // mantissas up to 2^53 and powers of ten up to 10^22 are exact doubles, so their product or quotient is correctly
+    // rounded
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100000;
+
+    /**
+     * @return the number as a {@link Long} if {@link Long#parseLong(String)} accepts it, otherwise as a {@link Double}
+     *         if {@link Double#parseDouble(String)} accepts it, otherwise null
+     */
+    static public Number parse(String s) {
+        return parse(s, 0, s.length());
+    }
+
+    /**
+     * Parses the characters of a sequence between two indices, like {@link #parse(String)}.
+     */
+    static public Number parse(CharSequence s, int start, int end) {
+        Long l = parseLong(s, start, end);
+        if (l != null) {
+            return l;
+        }
+        return parseDouble(s, start, end);
+    }
+
+    /**
+     * @return the number, or null if {@link Long#parseLong(String)} would reject the text
+     */
+    static public Long parseLong(String s) {
+        return parseLong(s, 0, s.length());
+    }
+
+    static public Long parseLong(CharSequence s, int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) {
+                return null;
+            }
+        }
+        // accumulated negatively, as the range of negative longs is larger
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                // Long.parseLong also accepts the digits of other scripts
+                digit = c < 128 ? -1 : Character.digit(c, 10);
+                if (digit < 0) {
+                    return null;
+                }
+            }
+            if (result < multmin) {
+                return null;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return null;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * @return the number, or null if {@link Double#parseDouble(String)} would reject the text
+     */
+    static public Double parseDouble(String s) {
+        return parseDouble(s, 0, s.length());
+    }
+
+    static public Double parseDouble(CharSequence s, int start, int end) {
+        // Double.parseDouble ignores leading and trailing control characters and spaces
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return null;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == end) {
+                return null;
+            }
+            c = s.charAt(i);
+        }
+        if (c == 'N' || c == 'I') {
+            if (matches(s, i, end, "NaN")) {
+                return Double.NaN;
+            } else if (matches(s, i, end, "Infinity")) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            return null;
+        }
+        if (c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+            // hexadecimal floating point numbers are rare enough to be left to the JDK
+            return slowParseDouble(s, start, end);
+        }
+
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        boolean truncated = false;
+        int scale = 0;
+        boolean digits = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (point) {
+                    scale++;
+                }
+                if (mantissa == 0 && c == '0') {
+                    continue;
+                } else if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    mantissaDigits++;
+                } else {
+                    truncated = true;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!digits) {
+            return null;
+        }
+
+        int exponent = 0;
+        if (i < end && (c == 'e' || c == 'E')) {
+            if (++i == end) {
+                return null;
+            }
+            boolean negativeExponent = false;
+            c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == end) {
+                    return null;
+                }
+            }
+            boolean exponentDigits = false;
+            for (; i < end; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                exponentDigits = true;
+                if (exponent < MAX_EXPONENT) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            if (!exponentDigits) {
+                return null;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        // a type suffix, as in Java literals
+        if (i < end && (c == 'd' || c == 'D' || c == 'f' || c == 'F')) {
+            i++;
+        }
+        if (i != end) {
+            return null;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        int decimalExponent = exponent - scale;
+        if (!truncated && mantissa <= MAX_EXACT_MANTISSA && decimalExponent >= -22 && decimalExponent <= 22) {
+            double value = decimalExponent >= 0 ? mantissa * POWERS_OF_TEN[decimalExponent]
+                    : mantissa / POWERS_OF_TEN[-decimalExponent];
+            return negative ? -value : value;
+        }
+        return slowParseDouble(s, start, end);
+    }
+
+    private static boolean matches(CharSequence s, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (s.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Double slowParseDouble(CharSequence s, int start, int end) {
+        try {
+            return Double.parseDouble(s.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
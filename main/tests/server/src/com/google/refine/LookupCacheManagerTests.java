@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.LookupCacheManager.ProjectLookup;
+import com.google.refine.expr.functions.Cross;
+import com.google.refine.model.Project;
+import com.google.refine.util.LookupException;
+
+public class LookupCacheManagerTests extends RefineTest {
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("key,value\n"
+                + "a,1\n"
+                + "b,2\n"
+                + "a,3\n"
+                + ",4\n");
+    }
+
+    @Test
+    public void testRowIndices() throws LookupException {
+        LookupCacheManager manager = new LookupCacheManager();
+        ProjectLookup lookup = manager.getLookup(project.id, "key");
+
+        assertEquals(lookup.getRowIndices("a"), new int[] { 0, 2 });
+        assertEquals(lookup.getRowIndices("b"), new int[] { 1 });
+        assertNull(lookup.getRowIndices("c"));
+        assertNull(lookup.getRowIndices(""));
+        assertEquals(lookup.getRows("a").size(), 2);
+
+        assertSame(manager.getLookup(project.id, "key"), lookup);
+        assertEquals(manager.getMissCount(), 1);
+        assertEquals(manager.getHitCount(), 1);
+    }
+
+    @Test
+    public void testIndexColumn() throws LookupException {
+        ProjectLookup lookup = new LookupCacheManager().getLookup(project.id, Cross.INDEX_COLUMN_NAME);
+
+        assertEquals(lookup.getRowIndices(3), new int[] { 3 });
+        assertEquals(lookup.getRowIndices("0"), new int[] { 0 });
+        assertNull(lookup.getRowIndices(4));
+        assertNull(lookup.getRowIndices("01"));
+        assertNull(lookup.getRowIndices("a"));
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LookupCacheManager manager = new LookupCacheManager() {
+
+            @Override
+            protected void computeLookup(ProjectLookup lookup) throws LookupException {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new LookupException("interrupted");
+                }
+                super.computeLookup(lookup);
+            }
+        };
+
+        List<Thread> threads = IntStream.range(0, 4)
+                .mapToObj(i -> new Thread(() -> {
+                    try {
+                        manager.getLookup(project.id, "key");
+                    } catch (LookupException e) {
+                        throw new RuntimeException(e);
+                    }
+                }))
+                .collect(Collectors.toList());
+        threads.forEach(Thread::start);
+        started.await();
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(computations.get(), 1);
+        assertEquals(manager.getMissCount(), 1);
+        assertEquals(manager.getHitCount(), 3);
+    }
+
+    @Test
+    public void testEviction() throws LookupException {
+        LookupCacheManager manager = new LookupCacheManager(1);
+        ProjectLookup keyLookup = manager.getLookup(project.id, "key");
+        manager.getLookup(project.id, "value");
+
+        assertEquals(manager.getEvictionCount(), 1);
+        // the lookup of the first column was evicted
+        assertEquals(manager.getLookup(project.id, "key").getRowIndices("a"), keyLookup.getRowIndices("a"));
+        assertEquals(manager.getMissCount(), 3);
+    }
+
+    @Test
+    public void testFlush() throws LookupException {
+        LookupCacheManager manager = new LookupCacheManager();
+        manager.getLookup(project.id, "key");
+        manager.getLookup(project.id, "value");
+
+        manager.flushLookupsInvolvingProjectColumn(project.id, "key");
+        manager.getLookup(project.id, "value");
+        assertEquals(manager.getMissCount(), 2);
+
+        manager.flushLookupsInvolvingProject(project.id);
+        assertEquals(manager.getEstimatedBytes(), 0);
+    }
+}
@@ -38,6 +38,13 @@ import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 import com.google.refine.model.Row;
 import org.mockito.Mockito;
@@ -48,6 +55,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.ProjectStub;
 import com.google.refine.process.ProcessManager;
@@ -243,6 +251,146 @@ public class ProjectManagerTests extends RefineTest {
         whenMetadataGetModified(meta, secondsDifference);
     }
 
+    @Test
+    public void concurrentRequestsShareOneLoad() throws Exception {
+        long loadingID = 1234L;
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        AtomicInteger loadCount = new AtomicInteger();
+        ProjectManagerStub slowManager = new ProjectManagerStub() {
+
+            @Override
+            protected Project loadProject(long id, IntConsumer rowsLoaded) {
+                if (id != loadingID) {
+                    return null;
+                }
+                loadCount.incrementAndGet();
+                rowsLoaded.accept(1);
+                loadStarted.countDown();
+                try {
+                    loadReleased.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return project;
+            }
+        };
+        when(metadata.getRowCount()).thenReturn(4);
+        slowManager._projectsMetadata.put(loadingID, metadata);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Project> first = executor.submit(() -> slowManager.getProject(loadingID));
+            loadStarted.await();
+            Future<Project> second = executor.submit(() -> slowManager.getProject(loadingID));
+
+            // other projects are not blocked by the loading
+            Assert.assertNull(slowManager.getProject(5678L));
+            Assert.assertFalse(slowManager.isProjectLoaded(loadingID));
+            Assert.assertEquals(slowManager.getProjectLoadingProgress(loadingID), 25);
+
+            loadReleased.countDown();
+            Assert.assertSame(first.get(), project);
+            Assert.assertSame(second.get(), project);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(loadCount.get(), 1);
+        Assert.assertTrue(slowManager.isProjectLoaded(loadingID));
+        Assert.assertEquals(slowManager.getProjectLoadingProgress(loadingID), -1);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedProjectsOverBudget() throws Exception {
+        Project oldest = mockProject(1L, 100);
+        Project modified = mockProject(2L, 100);
+        Project recent = mockProject(3L, 100);
+        ProjectMetadata oldestMetadata = mock(ProjectMetadata.class);
+        ProjectMetadata modifiedMetadata = mock(ProjectMetadata.class);
+        ProjectMetadata recentMetadata = mock(ProjectMetadata.class);
+        // the oldest project is saved, the other one gets saved before being evicted
+        whenMetadataGetModified(oldestMetadata, -10);
+        whenProjectGetLastSave(oldest);
+        whenMetadataGetModified(modifiedMetadata, 10);
+        when(modified.getLastSave()).thenReturn(BASE_DATE, BASE_DATE.plusSeconds(20));
+        SUT.registerProject(oldest, oldestMetadata);
+        SUT.registerProject(modified, modifiedMetadata);
+        SUT.registerProject(recent, recentMetadata);
+        SUT._projectAccessTimes.put(1L, Instant.now().minusSeconds(600));
+        SUT._projectAccessTimes.put(2L, Instant.now().minusSeconds(300));
+        SUT._maxProjectBytes = 150;
+
+        SUT.enforceMemoryBudget();
+
+        Assert.assertFalse(SUT.isProjectLoaded(1L));
+        Assert.assertFalse(SUT.isProjectLoaded(2L));
+        Assert.assertTrue(SUT.isProjectLoaded(3L));
+        verify(SUT, never()).saveProject(oldest);
+        verify(SUT, times(1)).saveProject(modified);
+        verify(oldest, times(1)).dispose();
+        verify(modified, times(1)).dispose();
+        verify(recent, never()).dispose();
+    }
+
+    @Test
+    public void keepsProjectsModifiedWhileBeingSaved() throws Exception {
+        Project modified = mockProject(2L, 100);
+        ProjectMetadata modifiedMetadata = mock(ProjectMetadata.class);
+        whenMetadataGetModified(modifiedMetadata, 10);
+        whenProjectGetLastSave(modified);
+        SUT.registerProject(modified, modifiedMetadata);
+        SUT._projectAccessTimes.put(2L, Instant.now().minusSeconds(300));
+        SUT._maxProjectBytes = 50;
+
+        SUT.enforceMemoryBudget();
+
+        Assert.assertTrue(SUT.isProjectLoaded(2L));
+        verify(SUT, times(1)).saveProject(modified);
+        verify(modified, never()).dispose();
+    }
+
+    @Test
+    public void estimatesProjectsLockedByOperations() throws Exception {
+        Project locked = new ProjectStub(3L);
+        for (int i = 0; i < 10; i++) {
+            Row row = new Row(1);
+            row.setCell(0, new Cell("value " + i, null));
+            locked.rows.add(row);
+        }
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> {
+                // like a long-running operation
+                synchronized (locked) {
+                    lockHeld.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            lockHeld.await();
+            Future<Long> estimate = executor.submit(() -> locked.estimateMemoryUsage());
+            Assert.assertTrue(estimate.get(10, TimeUnit.SECONDS) > 0);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private Project mockProject(long id, long estimatedBytes) throws NoSuchFieldException, IllegalAccessException {
+        Project mockedProject = mock(Project.class);
+        Field field = Project.class.getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(mockedProject, id);
+        field = Project.class.getDeclaredField("rows");
+        field.setAccessible(true);
+        field.set(mockedProject, new ArrayList<>());
+        when(mockedProject.estimateMemoryUsage()).thenReturn(estimatedBytes);
+        when(mockedProject.getProcessManager()).thenReturn(procmgr);
+        return mockedProject;
+    }
+
     protected void whenProjectGetLastSave(Project proj) {
         when(proj.getLastSave()).thenReturn(BASE_DATE);
     }
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.facets.Facet;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.LanguageSpecificParser;
+import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsingException;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+
+public class ParallelFacetEvaluatorTests extends RefineTest {
+
+    private static final String engineConfigJson = "{"
+            + "\"mode\":\"%s\","
+            + "\"facets\":["
+            + "  {\"type\":\"list\",\"name\":\"key\",\"columnName\":\"key\",\"expression\":\"value\","
+            + "   \"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "   \"selection\":[{\"v\":{\"v\":\"b\",\"l\":\"b\"}},{\"v\":{\"v\":\"c\",\"l\":\"c\"}}]},"
+            + "  {\"type\":\"range\",\"name\":\"number\",\"columnName\":\"number\",\"expression\":\"value.toNumber()\","
+            + "   \"from\":10,\"to\":40,\"selectNumeric\":true,\"selectNonNumeric\":true,\"selectBlank\":true,\"selectError\":true},"
+            + "  {\"type\":\"list\",\"name\":\"label\",\"columnName\":\"label\",\"expression\":\"value.length()\","
+            + "   \"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "   \"selection\":[]},"
+            + "  {\"type\":\"text\",\"name\":\"label\",\"columnName\":\"label\",\"query\":\"o\",\"mode\":\"text\","
+            + "   \"caseSensitive\":false,\"invert\":false}"
+            + "]}";
+
+    private Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("key,number,label\n");
+        String[] keys = { "a", "b", "c", "d" };
+        String[] labels = { "foo", "bar", "", "hello world", "o" };
+        for (int i = 0; i < 103; i++) {
+            // leave some keys blank to create multi-row records
+            sb.append(i % 3 == 2 ? "" : keys[i % keys.length]).append(',')
+                    .append(i % 7 == 0 ? "n/a" : Integer.toString(i % 50)).append(',')
+                    .append(labels[i % labels.length]).append('\n');
+        }
+        project = createCSVProject(sb.toString());
+    }
+
+    @Test
+    public void testRowBasedChoicesMatchSequentialComputation() throws JsonProcessingException {
+        EngineConfig config = EngineConfig.reconstruct(String.format(engineConfigJson, "row-based"));
+        List<Facet> expected = createFacets(config);
+        for (Facet facet : expected) {
+            facet.computeChoices(project, filteredRowsExcept(expected, facet));
+        }
+
+        for (int chunkSize : new int[] { 1, 10, 1000 }) {
+            List<Facet> actual = createFacets(config);
+            Assert.assertTrue(new ParallelFacetEvaluator(project, actual, chunkSize).computeRowBasedChoices());
+            Assert.assertEquals(ParsingUtilities.mapper.writeValueAsString(actual),
+                    ParsingUtilities.mapper.writeValueAsString(expected));
+        }
+    }
+
+    @Test
+    public void testRecordBasedChoicesMatchSequentialComputation() throws JsonProcessingException {
+        EngineConfig config = EngineConfig.reconstruct(String.format(engineConfigJson, "record-based"));
+        List<Facet> expected = createFacets(config);
+        for (Facet facet : expected) {
+            facet.computeChoices(project, filteredRecordsExcept(expected, facet));
+        }
+
+        for (int chunkSize : new int[] { 1, 10, 1000 }) {
+            List<Facet> actual = createFacets(config);
+            Assert.assertTrue(new ParallelFacetEvaluator(project, actual, chunkSize).computeRecordBasedChoices());
+            Assert.assertEquals(ParsingUtilities.mapper.writeValueAsString(actual),
+                    ParsingUtilities.mapper.writeValueAsString(expected));
+        }
+    }
+
+    @Test
+    public void testFacetWithoutConcurrentEvaluation() {
+        // a language which does not declare its evaluables as thread-safe
+        MetaParser.registerLanguageParser("sequential", "Sequential GREL", new LanguageSpecificParser() {
+
+            @Override
+            public Evaluable parse(String s) throws ParsingException {
+                return MetaParser.parse(s);
+            }
+        }, "value");
+        EngineConfig config = EngineConfig.reconstruct(String.format(engineConfigJson, "row-based")
+                .replace("\"expression\":\"value.length()\"", "\"expression\":\"sequential:value.length()\""));
+        List<Facet> facets = createFacets(config);
+        Assert.assertFalse(new ParallelFacetEvaluator(project, facets, 10).computeRowBasedChoices());
+    }
+
+    private List<Facet> createFacets(EngineConfig config) {
+        return config.getFacetConfigs().stream()
+                .map(c -> c.apply(project))
+                .collect(Collectors.toList());
+    }
+
+    private ConjunctiveFilteredRows filteredRowsExcept(List<Facet> facets, Facet except) {
+        ConjunctiveFilteredRows filteredRows = new ConjunctiveFilteredRows();
+        for (Facet facet : facets) {
+            if (facet != except && facet.getRowFilter(project) != null) {
+                filteredRows.add(facet.getRowFilter(project));
+            }
+        }
+        return filteredRows;
+    }
+
+    private ConjunctiveFilteredRecords filteredRecordsExcept(List<Facet> facets, Facet except) {
+        ConjunctiveFilteredRecords filteredRecords = new ConjunctiveFilteredRecords();
+        for (Facet facet : facets) {
+            if (facet != except && facet.getRecordFilter(project) != null) {
+                filteredRecords.add(facet.getRecordFilter(project));
+            }
+        }
+        return filteredRecords;
+    }
+}
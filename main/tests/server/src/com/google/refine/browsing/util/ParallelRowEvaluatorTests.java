@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MetaParser;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class ParallelRowEvaluatorTests extends RefineTest {
+
+    private static final String engineConfigJson = "{"
+            + "\"mode\":\"%s\","
+            + "\"facets\":["
+            + "  {\"type\":\"list\",\"name\":\"key\",\"columnName\":\"key\",\"expression\":\"value\","
+            + "   \"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "   \"selection\":[{\"v\":{\"v\":\"b\",\"l\":\"b\"}},{\"v\":{\"v\":\"c\",\"l\":\"c\"}}]}"
+            + "]}";
+
+    private Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("key,label\n");
+        String[] keys = { "a", "b", "c", "d" };
+        for (int i = 0; i < 103; i++) {
+            // leave some keys blank to create multi-row records
+            sb.append(i % 3 == 2 ? "" : keys[i % keys.length]).append(',').append("label").append(i).append('\n');
+        }
+        project = createCSVProject(sb.toString());
+    }
+
+    @Test
+    public void testRowBasedResultsMatchSequentialVisit() throws Exception {
+        assertResultsMatchSequentialVisit("row-based");
+    }
+
+    @Test
+    public void testRecordBasedResultsMatchSequentialVisit() throws Exception {
+        assertResultsMatchSequentialVisit("record-based");
+    }
+
+    private void assertResultsMatchSequentialVisit(String mode) throws Exception {
+        Engine engine = new Engine(project);
+        engine.initializeFromConfig(EngineConfig.reconstruct(String.format(engineConfigJson, mode)));
+        FilteredRows filteredRows = engine.getAllFilteredRows();
+
+        List<String> expected = new ArrayList<>();
+        ParallelRowEvaluator.visit(project, filteredRows, false, results -> createVisitor(results), expected);
+        Assert.assertFalse(expected.isEmpty());
+
+        int[] rowIndices = ParallelRowEvaluator.getRowIndices(project, filteredRows);
+        for (int chunkSize : new int[] { 1, 10, 1000 }) {
+            List<String> actual = new ArrayList<>();
+            ParallelRowEvaluator.visitInChunks(project, rowIndices, chunkSize, results -> createVisitor(results), actual);
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    private RowVisitor createVisitor(List<String> results) throws Exception {
+        Evaluable eval = MetaParser.parse("value + '/' + rowIndex");
+        Properties bindings = ExpressionUtils.createBindings(project);
+        int cellIndex = project.columnModel.getColumnByName("label").getCellIndex();
+
+        return new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+                // nothing to do
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                ExpressionUtils.bind(bindings, row, rowIndex, "label", row.getCell(cellIndex));
+                results.add((String) eval.evaluate(bindings));
+                return false;
+            }
+
+            @Override
+            public void end(Project project) {
+                // nothing to do
+            }
+        };
+    }
+}
@@ -97,4 +97,19 @@ public class BinningClustererTests extends RefineTest {
         clusterer.computeClusters(new Engine(project));
         assertEquals(clusterer.getJsonRepresentation().size(), 1);
     }
+
+    @Test
+    public void testRepeatedValuesAreCounted() throws JsonParseException, JsonMappingException, IOException {
+        Project project = createCSVProject("column\n"
+                + "a\n"
+                + "à\n"
+                + "a\n"
+                + "c\n"
+                + "a\n"
+                + "à\n");
+        BinningClustererConfig config = ParsingUtilities.mapper.readValue(configJson, BinningClustererConfig.class);
+        BinningClusterer clusterer = config.apply(project);
+        clusterer.computeClusters(new Engine(project));
+        TestUtils.isSerializedTo(clusterer, "[[{\"v\":\"a\",\"c\":3},{\"v\":\"à\",\"c\":2}]]");
+    }
 }
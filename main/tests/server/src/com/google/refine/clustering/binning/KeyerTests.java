@@ -31,6 +31,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.clustering.binning;
 
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -38,6 +42,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.common.base.CharMatcher;
 import com.google.refine.RefineTest;
 
 public class KeyerTests extends RefineTest {
@@ -175,4 +180,35 @@ public class KeyerTests extends RefineTest {
         }
     }
 
+    /**
+     * The keyers translate ASCII strings through lookup tables; check them against the general normalization.
+     */
+    @Test
+    public void testAsciiFastPath() {
+        Pattern whitespace = Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
+        NGramFingerprintKeyer ngramKeyer = new NGramFingerprintKeyer();
+        String alphabet = " \t\n.,;-_'^`$+|~Aa9";
+        Random random = new Random(42);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                sb.append(random.nextBoolean() ? alphabet.charAt(random.nextInt(alphabet.length())) : (char) random.nextInt(128));
+            }
+            String s = sb.toString();
+
+            String normalized = CharMatcher.whitespace().trimFrom(s).toLowerCase();
+            normalized = FingerprintKeyer.stripDiacritics(normalized);
+            normalized = FingerprintKeyer.punctctrl.matcher(normalized).replaceAll("");
+            String expected = whitespace.splitAsStream(normalized).sorted().distinct().collect(Collectors.joining(" "));
+            Assert.assertEquals(keyer.key(s), expected, "Fingerprint for string: " + s + " failed");
+
+            String stripped = NGramFingerprintKeyer.ctrlspace.matcher(normalized).replaceAll("");
+            for (int size = 1; size <= 3; size++) {
+                String expectedNGrams = ngramKeyer.sorted_ngrams(stripped, size).collect(Collectors.joining());
+                Assert.assertEquals(ngramKeyer.key(s, size), expectedNGrams, "N-gram fingerprint for string: " + s + " failed");
+            }
+        }
+    }
+
 }
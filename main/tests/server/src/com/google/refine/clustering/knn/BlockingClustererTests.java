@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.knn;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.clustering.knn.BlockingClusterer.NGramBlocker;
+
+public class BlockingClustererTests {
+
+    SimilarityDistance levenshtein = DistanceFactory.get("levenshtein");
+
+    protected List<String> generateValues(int count) {
+        Random random = new Random(1234);
+        String[] words = { "apple", "banana", "cherry", "date", "elder", "fig", "grape" };
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder(words[random.nextInt(words.length)]);
+            sb.append(' ').append(words[random.nextInt(words.length)]);
+            if (random.nextBoolean()) {
+                // introduce a typo
+                int pos = random.nextInt(sb.length());
+                sb.setCharAt(pos, (char) ('a' + random.nextInt(26)));
+            }
+            values.add(sb.toString());
+        }
+        return values;
+    }
+
+    /**
+     * Compares all pairs of values sharing a block, without any parallelism nor deduplication.
+     */
+    protected Set<Set<Serializable>> computeReferenceClusters(List<String> values, NGramBlocker blocker, double radius) {
+        Map<String, Set<Serializable>> clusters = new HashMap<>();
+        for (String a : values) {
+            for (String b : values) {
+                Set<String> sharedKeys = new HashSet<>(blocker.getKeys(a));
+                sharedKeys.retainAll(blocker.getKeys(b));
+                if (!a.equals(b) && !sharedKeys.isEmpty() && levenshtein.compute(a, b) <= radius) {
+                    clusters.computeIfAbsent(a, k -> new TreeSet<>(Collections.singleton(k))).add(b);
+                }
+            }
+        }
+        return new HashSet<>(clusters.values());
+    }
+
+    @Test
+    public void testSameClustersAsExhaustiveComparison() {
+        List<String> values = generateValues(300);
+
+        NGramBlocker blocker = new NGramBlocker(3);
+        BlockingClusterer clusterer = new BlockingClusterer(levenshtein, blocker);
+        for (String value : values) {
+            clusterer.populate(value);
+        }
+
+        List<Set<Serializable>> clusters = clusterer.getClusters(1.0);
+        assertEquals(new HashSet<>(clusters), computeReferenceClusters(values, blocker, 1.0));
+    }
+
+    @Test
+    public void testOversizedBlocks() {
+        List<String> values = generateValues(300);
+
+        BlockingClusterer capped = new BlockingClusterer(levenshtein, new NGramBlocker(3), 20);
+        BlockingClusterer uncapped = new BlockingClusterer(levenshtein, new NGramBlocker(3), Integer.MAX_VALUE);
+        for (String value : values) {
+            capped.populate(value);
+            uncapped.populate(value);
+        }
+
+        List<Set<Serializable>> clusters = capped.getClusters(1.0);
+        assertTrue(clusters.size() > 0);
+        // capping blocks can only lose neighbours
+        Set<Set<Serializable>> uncappedClusters = new HashSet<>(uncapped.getClusters(1.0));
+        for (Set<Serializable> cluster : clusters) {
+            assertTrue(uncappedClusters.stream().anyMatch(c -> c.containsAll(cluster)));
+        }
+    }
+
+    @Test
+    public void testClustersOrderedBySize() {
+        BlockingClusterer clusterer = new BlockingClusterer(levenshtein, new NGramBlocker(2));
+        for (String value : Arrays.asList("abcd", "abce", "abcf", "xyzw", "xyzv", "unrelated")) {
+            clusterer.populate(value);
+        }
+
+        List<Set<Serializable>> clusters = clusterer.getClusters(1.0);
+        assertEquals(clusters.size(), 2);
+        assertEquals(clusters.get(0), new HashSet<>(Arrays.asList("abcd", "abce", "abcf")));
+        assertEquals(clusters.get(1), new HashSet<>(Arrays.asList("xyzv", "xyzw")));
+    }
+
+    @Test
+    public void testFirstSharedKey() {
+        String[] a = { "ab", "bc", "cd" };
+        String[] b = { "bc", "cd", "de" };
+        assertEquals(BlockingClusterer.getFirstSharedKey(a, b, Collections.emptySet()), "bc");
+        assertEquals(BlockingClusterer.getFirstSharedKey(a, b, Collections.singleton("bc")), "cd");
+        assertNull(BlockingClusterer.getFirstSharedKey(a, new String[] { "zz" }, Collections.emptySet()));
+    }
+}
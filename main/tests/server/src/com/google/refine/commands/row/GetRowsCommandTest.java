@@ -38,12 +38,15 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.refine.RefineTest;
 import com.google.refine.commands.Command;
 import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
 
 public class GetRowsCommandTest extends RefineTest {
@@ -139,4 +142,19 @@ public class GetRowsCommandTest extends RefineTest {
         command.doPost(request, response);
         TestUtils.assertEqualsAsJson(writer.toString(), recordJson);
     }
+
+    @Test
+    public void testSortedRows() throws ServletException, IOException {
+        when(request.getParameter("engine")).thenReturn("{\"mode\":\"row-based\",\"facets\":[]}");
+        when(request.getParameter("sorting")).thenReturn("{\"criteria\":[{\"valueType\":\"string\",\"column\":\"b\","
+                + "\"blankPosition\":2,\"errorPosition\":1,\"reverse\":true,\"caseSensitive\":false}]}");
+        when(request.getParameter("limit")).thenReturn("1");
+
+        command.doPost(request, response);
+
+        JsonNode result = ParsingUtilities.mapper.readTree(writer.toString());
+        Assert.assertEquals(result.get("filtered").asInt(), 2);
+        Assert.assertEquals(result.get("rows").size(), 1);
+        Assert.assertEquals(result.get("rows").get(0).get("i").asInt(), 1);
+    }
 }
@@ -407,6 +407,46 @@ public class SqlExporterTests extends RefineTest {
 
     }
 
+    @Test
+    public void testExportSqlInBatches() {
+        createGrid(5, 2);
+        String tableName = "sql_table_test";
+        ObjectNode optionsJson = createOptionsFromProject(tableName, null, null, null, false);
+        optionsJson.put("includeStructure", false);
+        optionsJson.put("insertBatchSize", 2);
+
+        when(options.getProperty("options")).thenReturn(optionsJson.toString());
+        try {
+            SUT.export(project, options, engine, writer);
+        } catch (IOException e) {
+            Assert.fail();
+        }
+
+        String insert = "INSERT INTO sql_table_test (\"column0\",\"column1\") VALUES \n";
+        Assert.assertEquals(writer.toString(),
+                insert + "( 'row0cell0','row0cell1' ),\n( 'row1cell0','row1cell1' );\n" +
+                        insert + "( 'row2cell0','row2cell1' ),\n( 'row3cell0','row3cell1' );\n" +
+                        insert + "( 'row4cell0','row4cell1' );\n");
+    }
+
+    @Test
+    public void testExportSqlInSingleStatement() {
+        createGrid(1500, 2);
+        String tableName = "sql_table_test";
+        ObjectNode optionsJson = createOptionsFromProject(tableName, null, null, null, false);
+        optionsJson.put("insertBatchSize", 0);
+
+        when(options.getProperty("options")).thenReturn(optionsJson.toString());
+        try {
+            SUT.export(project, options, engine, writer);
+        } catch (IOException e) {
+            Assert.fail();
+        }
+
+        Assert.assertEquals(countWordInString(writer.toString(), "INSERT INTO"), 1);
+        Assert.assertEquals(countWordInString(writer.toString(), "row1499cell1"), 1);
+    }
+
     // helper methods
 
     public int countWordInString(String input, String word) {
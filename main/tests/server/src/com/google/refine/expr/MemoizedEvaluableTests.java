@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.expr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.grel.ExpressionCompiler;
+import com.google.refine.grel.Parser;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class MemoizedEvaluableTests extends RefineTest {
+
+    static final String[] VALUE_ONLY = {
+            "value",
+            "value.trim().toLowercase()",
+            "if(isBlank(value), 'empty', value + '!')",
+            "forEach(value.split(' '), v, v.length()).join(',')",
+            "forEachIndex(value.split(' '), i, v, i + v)",
+            "forRange(0, 3, 1, i, value + i)",
+            "filter(value.split(' '), v, v != 'b')",
+            "with(value + '!', x, x + x)",
+            "forNonBlank(value, v, v, 'blank')",
+            "value.parseJson().a",
+            "1 + 2",
+    };
+
+    static final String[] ROW_DEPENDENT = {
+            "row.index",
+            "rowIndex + value",
+            "cells['n'].value",
+            "cell.value",
+            "value + columnName",
+            "with(value, x, x) + x",
+            "forNonBlank(value, v, v, v)",
+            "with(row, value, value.index)",
+            "now()",
+            "random()",
+            "value.cross('other', 'key')",
+            "facetCount(value, 'value', 'text')",
+    };
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("text,n\n"
+                + " Hello World ,3\n"
+                + "a b c,4\n"
+                + " Hello World ,5\n"
+                + ",6\n"
+                + "a b c,7\n");
+    }
+
+    @Test
+    public void testDetectsValueOnlyExpressions() throws ParsingException {
+        for (String expression : VALUE_ONLY) {
+            assertTrue(ExpressionCompiler.dependsOnlyOnValue(new Parser(expression).getExpression()), expression);
+            assertTrue(MetaParser.parse(expression) != null
+                    && MemoizedEvaluable.memoize(MetaParser.parse(expression)) instanceof MemoizedEvaluable, expression);
+        }
+        for (String expression : ROW_DEPENDENT) {
+            assertFalse(ExpressionCompiler.dependsOnlyOnValue(new Parser(expression).getExpression()), expression);
+            Evaluable parsed = MetaParser.parse(expression);
+            assertSame(MemoizedEvaluable.memoize(parsed), parsed, expression);
+        }
+    }
+
+    @Test
+    public void testMemoizedResultsMatchEvaluation() throws ParsingException {
+        Properties bindings = ExpressionUtils.createBindings(project);
+        for (String expression : VALUE_ONLY) {
+            Evaluable parsed = MetaParser.parse(expression);
+            Evaluable memoized = MemoizedEvaluable.memoize(parsed);
+            for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
+                Row row = project.rows.get(rowIndex);
+                ExpressionUtils.bind(bindings, row, rowIndex, "text", row.getCell(0));
+                assertEquals(toString(memoized.evaluate(bindings)), toString(parsed.evaluate(bindings)),
+                        expression + " on row " + rowIndex);
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluatesOncePerDistinctValue() throws ParsingException {
+        MemoizedEvaluable memoized = (MemoizedEvaluable) MemoizedEvaluable.memoize(MetaParser.parse("value.trim()"));
+        Properties bindings = ExpressionUtils.createBindings(project);
+        for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
+            Row row = project.rows.get(rowIndex);
+            ExpressionUtils.bind(bindings, row, rowIndex, "text", row.getCell(0));
+            memoized.evaluate(bindings);
+        }
+
+        assertEquals(memoized.getMisses(), 3);
+        assertEquals(memoized.getHits(), 2);
+    }
+
+    @Test
+    public void testStopsRememberingWhenFull() throws ParsingException {
+        Evaluable parsed = MetaParser.parse("value.trim()");
+        MemoizedEvaluable memoized = (MemoizedEvaluable) MemoizedEvaluable.memoize(parsed, 1);
+        Properties bindings = ExpressionUtils.createBindings(project);
+        for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
+            Row row = project.rows.get(rowIndex);
+            ExpressionUtils.bind(bindings, row, rowIndex, "text", row.getCell(0));
+            assertEquals(toString(memoized.evaluate(bindings)), toString(parsed.evaluate(bindings)));
+        }
+
+        assertEquals(memoized.getHits(), 1);
+        assertEquals(memoized.getMisses(), 4);
+    }
+
+    private static String toString(Object value) {
+        return value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+    }
+}
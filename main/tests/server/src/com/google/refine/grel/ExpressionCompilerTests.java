@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.grel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.ParsingException;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class ExpressionCompilerTests extends RefineTest {
+
+    static final String[] EXPRESSIONS = {
+            "value",
+            "value.trim()",
+            "value + ' suffix'",
+            "value.toLowercase().replace('-', ' ')",
+            "if(value.length() > 3, value.substring(0, 3), value)",
+            "if(isBlank(value), 'empty', value)",
+            "value + ' ' + (1 + 2 * 3)",
+            "1 + 2 * 3 - 4 / 2 % 3",
+            "1.5 * 2 + 1",
+            "'a' + 'b' == 'ab'",
+            "1 / 0",
+            "0 / 0",
+            "(1 > 2) != (3 <= 4)",
+            "toNumber(cells['n'].value) * 2 + 1",
+            "cells['n'].value + cells['text'].value",
+            "forEach(value.split(' '), v, v.length()).join(',')",
+            "with(value + '!', x, x + x)",
+            "row.index + rowIndex",
+            "value.substring('x')",
+            "1 + value.substring('x')",
+            "toNumber('x') + 1",
+    };
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("text,n\n"
+                + " Hello-World ,3\n"
+                + ",4.5\n"
+                + "a b c,x\n");
+    }
+
+    @Test
+    public void testCompiledExpressionsEvaluateLikeTheInterpreter() throws ParsingException {
+        Properties bindings = ExpressionUtils.createBindings(project);
+        for (String expression : EXPRESSIONS) {
+            Evaluable interpreted = new Parser(expression).getExpression();
+            Evaluable compiled = ExpressionCompiler.compile(new Parser(expression).getExpression());
+            assertEquals(compiled.toString(), interpreted.toString());
+
+            for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
+                Row row = project.rows.get(rowIndex);
+                ExpressionUtils.bind(bindings, row, rowIndex, "text", row.getCell(0));
+                Object expected = evaluate(interpreted, bindings);
+                Object actual = evaluate(compiled, bindings);
+                if (expected instanceof EvalError) {
+                    assertTrue(actual instanceof EvalError, expression);
+                    assertEquals(((EvalError) actual).message, ((EvalError) expected).message, expression);
+                } else {
+                    assertEquals(actual, expected, expression + " on row " + rowIndex);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConstantFolding() throws ParsingException {
+        Evaluable compiled = ExpressionCompiler.compile(new Parser("(1 + 2) * 3").getExpression());
+
+        assertTrue(compiled instanceof ExpressionCompiler.Constant);
+        assertEquals(compiled.evaluate(new Properties()), 9L);
+        assertEquals(compiled.toString(), "1 + 2 * 3");
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testDivisionByZeroIsNotFolded() throws ParsingException {
+        Evaluable compiled = ExpressionCompiler.compile(new Parser("1 / 0").getExpression());
+
+        compiled.evaluate(new Properties());
+    }
+
+    private static Object evaluate(Evaluable evaluable, Properties bindings) {
+        try {
+            return evaluable.evaluate(bindings);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -3,16 +3,26 @@ package com.google.refine.history;
 
 import static org.mockito.Mockito.mock;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
 import com.google.refine.io.FileHistoryEntryManager;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
 import com.google.refine.operations.OperationRegistry;
 import com.google.refine.operations.column.ColumnAdditionOperation;
 import com.google.refine.util.TestUtils;
@@ -37,4 +47,120 @@ public class FileHistoryEntryManagerTests extends RefineTest {
         sut.save(historyEntry, writer, options);
         TestUtils.equalAsJson(HistoryEntryTests.fullJson, writer.toString());
     }
+
+    @Test
+    public void testSaveChangeInBackground() throws Exception {
+        File dir = TestUtils.createTempDirectory("openrefine-change-files");
+        FileHistoryEntryManager manager = new FileHistoryEntryManager() {
+
+            {
+                _compression = "none";
+            }
+
+            @Override
+            protected File getChangeFile(HistoryEntry historyEntry) {
+                return new File(dir, historyEntry.id + ".change.zip");
+            }
+        };
+        HistoryEntry historyEntry = HistoryEntry.load(project, HistoryEntryTests.fullJson);
+        historyEntry.setChange(new CellChange(0, 0, null, new Cell("value", null)));
+
+        CompletableFuture<Void> saved = manager.saveChangeInBackground(historyEntry);
+        manager.waitForSavedChanges(historyEntry.projectID);
+
+        Assert.assertTrue(saved.isDone());
+        File changeFile = new File(dir, historyEntry.id + ".change.zip");
+        try (ZipFile zipFile = new ZipFile(changeFile)) {
+            Assert.assertEquals(zipFile.getEntry("change.txt").getMethod(), ZipEntry.STORED);
+        }
+        historyEntry.setChange(null);
+        manager.loadChange(historyEntry);
+        Assert.assertEquals(((CellChange) historyEntry.getChange()).newCell.value, "value");
+
+        manager.delete(historyEntry);
+        manager.waitForSavedChanges(historyEntry.projectID);
+        Assert.assertFalse(changeFile.exists());
+    }
+
+    @Test
+    public void testFailedWriteDoesNotBlockLaterTasks() throws Exception {
+        File dir = TestUtils.createTempDirectory("openrefine-change-files");
+        FileHistoryEntryManager manager = new FileHistoryEntryManager() {
+
+            @Override
+            protected File getChangeFile(HistoryEntry historyEntry) {
+                return new File(dir, historyEntry.id + ".change.zip");
+            }
+
+            @Override
+            protected void writeChangeFile(ChangeFile changeFile) throws IOException {
+                throw new IllegalStateException("unexpected failure");
+            }
+        };
+        HistoryEntry historyEntry = HistoryEntry.load(project, HistoryEntryTests.fullJson);
+        historyEntry.setChange(new CellChange(0, 0, null, new Cell("value", null)));
+
+        CompletableFuture<Void> saved = manager.saveChangeInBackground(historyEntry);
+        // the deletion is queued after the failed write, if that is still pending
+        File changeFile = new File(dir, historyEntry.id + ".change.zip");
+        Assert.assertTrue(changeFile.createNewFile());
+        manager.delete(historyEntry);
+        manager.waitForSavedChanges(historyEntry.projectID);
+
+        Assert.assertTrue(saved.isCompletedExceptionally());
+        Assert.assertFalse(changeFile.exists());
+    }
+
+    @Test
+    public void testRedoWhileChangeFileIsWritten() throws Exception {
+        File dir = TestUtils.createTempDirectory("openrefine-change-files");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        FileHistoryEntryManager manager = new FileHistoryEntryManager() {
+
+            @Override
+            protected File getChangeFile(HistoryEntry historyEntry) {
+                return new File(dir, historyEntry.id + ".change.zip");
+            }
+
+            @Override
+            protected void writeZipEntry(ZipOutputStream out, String name, byte[] bytes) throws IOException {
+                super.writeZipEntry(out, name, bytes);
+                // leave the first change file half written until the redo is under way
+                if (first.getAndSet(false)) {
+                    started.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+        };
+        HistoryEntry historyEntry = HistoryEntry.load(project, HistoryEntryTests.fullJson);
+        historyEntry.setChange(new CellChange(0, 0, null, new Cell("value", null)));
+
+        manager.saveChangeInBackground(historyEntry);
+        CompletableFuture<Void> redone;
+        try {
+            started.await();
+            redone = CompletableFuture.runAsync(() -> {
+                try {
+                    manager.saveChange(historyEntry);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Assert.assertFalse(new File(dir, historyEntry.id + ".change.zip").exists());
+        } finally {
+            resume.countDown();
+        }
+        redone.join();
+        manager.waitForSavedChanges(historyEntry.projectID);
+
+        historyEntry.setChange(null);
+        manager.loadChange(historyEntry);
+        Assert.assertEquals(((CellChange) historyEntry.getChange()).newCell.value, "value");
+    }
 }
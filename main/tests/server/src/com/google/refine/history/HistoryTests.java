@@ -35,6 +35,8 @@ package com.google.refine.history;
 
 import static org.mockito.Mockito.*;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.mockito.Mockito;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -67,7 +69,7 @@ public class HistoryTests extends RefineTest {
     HistoryEntryManager historyEntryManager;
 
     @BeforeMethod
-    public void SetUp() {
+    public void SetUp() throws Exception {
         projectManager = mock(ProjectManager.class);
         historyEntryManager = mock(HistoryEntryManager.class);
         ProjectManager.singleton = projectManager;
@@ -78,6 +80,7 @@ public class HistoryTests extends RefineTest {
         when(projectManager.getProject(Mockito.anyLong())).thenReturn(proj);
         when(projectManager.getProjectMetadata(Mockito.anyLong())).thenReturn(projectMetadata);
         when(projectManager.getHistoryEntryManager()).thenReturn(historyEntryManager);
+        when(historyEntryManager.saveChangeInBackground(Mockito.any())).thenReturn(CompletableFuture.completedFuture(null));
 
         SUT = new History(proj);
     }
@@ -102,6 +105,33 @@ public class HistoryTests extends RefineTest {
         Assert.assertEquals(SUT.getLastPastEntries(1).get(0), entry);
     }
 
+    @Test
+    public void releasesOldChangesAndLoadsThemOnUndo() throws Exception {
+        Change change = mock(Change.class);
+        doAnswer(invocation -> {
+            ((HistoryEntry) invocation.getArgument(0)).setChange(change);
+            return null;
+        }).when(historyEntryManager).loadChange(Mockito.any());
+        int entryCount = History.MAX_RESIDENT_CHANGES + 2;
+        HistoryEntry[] entries = new HistoryEntry[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            entries[i] = new HistoryEntry(i + 1, proj, "change " + i, null, change);
+            SUT.addEntry(entries[i]);
+        }
+
+        Assert.assertNull(entries[0].getChange());
+        Assert.assertNull(entries[1].getChange());
+        Assert.assertNotNull(entries[2].getChange());
+        Assert.assertNotNull(entries[entryCount - 1].getChange());
+        verify(historyEntryManager, never()).loadChange(Mockito.any());
+
+        SUT.undoRedo(0);
+
+        verify(historyEntryManager, times(1)).loadChange(entries[0]);
+        verify(historyEntryManager, times(1)).loadChange(entries[1]);
+        verify(change, times(entryCount)).revert(proj);
+    }
+
     @Test
     public void serializeHistory() throws Exception {
         String json1 = "{\"id\":1533650900300,"
@@ -53,6 +53,7 @@ import java.time.format.DateTimeFormatter;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -446,6 +447,63 @@ public class ExcelImporterTests extends ImporterTest {
         verify(options, times(SHEETS)).get("storeBlankCellsAsNulls");
     }
 
+    @Test
+    public void readStreamedXlsxWithGaps() throws IOException {
+        File file = createSparseStreamedSpreadsheet();
+        ArrayNode sheets = ParsingUtilities.mapper.createArrayNode();
+        sheets.add(ParsingUtilities.mapper
+                .readTree("{name: \"file-source#Sparse\", fileNameAndSheetIndex: \"file-source#0\", rows: 4, selected: true}"));
+        whenGetArrayOption("sheets", options, sheets);
+
+        whenGetIntegerOption("ignoreLines", options, 0);
+        whenGetIntegerOption("headerLines", options, 0);
+        whenGetIntegerOption("skipDataLines", options, 0);
+        whenGetIntegerOption("limit", options, -1);
+        whenGetBooleanOption("storeBlankCellsAsNulls", options, true);
+        whenGetBooleanOption("storeBlankRows", options, true);
+
+        try (InputStream stream = new FileInputStream(file)) {
+            parseOneFile(SUT, stream);
+        }
+
+        Assert.assertEquals(project.rows.size(), 4);
+        // inline strings, as written by the streaming API of POI
+        Assert.assertEquals(project.rows.get(0).getCellValue(0), "first");
+        Assert.assertNull(project.rows.get(0).getCell(1));
+        Assert.assertEquals(project.rows.get(0).getCellValue(2), 1.5);
+        // missing row
+        Assert.assertTrue(project.rows.get(1).isEmpty());
+        Assert.assertNull(project.rows.get(2).getCell(0));
+        Assert.assertEquals(project.rows.get(2).getCellValue(1), "third");
+        Assert.assertEquals(project.rows.get(3).getCellValue(3), 42L);
+    }
+
+    @Test
+    public void testColumnIndex() {
+        assertEquals(XlsxWorkbookReader.getColumnIndex("A1"), 0);
+        assertEquals(XlsxWorkbookReader.getColumnIndex("Z10"), 25);
+        assertEquals(XlsxWorkbookReader.getColumnIndex("AA3"), 26);
+        assertEquals(XlsxWorkbookReader.getColumnIndex("XFD1048576"), 16383);
+    }
+
+    private static File createSparseStreamedSpreadsheet() throws IOException {
+        File file = File.createTempFile("openrefine-importer-test", ".xlsx");
+        file.deleteOnExit();
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(); OutputStream outputStream = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("Sparse");
+            Row r = sheet.createRow(0);
+            r.createCell(0).setCellValue("first");
+            r.createCell(2).setCellValue(1.5);
+            r = sheet.createRow(2);
+            r.createCell(1).setCellValue("third");
+            r = sheet.createRow(3);
+            r.createCell(3).setCellValue(42);
+            wb.write(outputStream);
+            wb.dispose();
+        }
+        return file;
+    }
+
     private static File createSpreadsheet(boolean xml, LocalDateTime date) {
 
         final Workbook wb = xml ? new XSSFWorkbook() : new HSSFWorkbook();
@@ -35,12 +35,17 @@ package com.google.refine.importers;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.univocity.parsers.csv.CsvParserSettings;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -50,6 +55,11 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.refine.ProjectMetadata;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
 import com.google.refine.util.ParsingUtilities;
 
 import static org.testng.AssertJUnit.assertEquals;
@@ -642,6 +652,113 @@ public class SeparatorBasedImporterTests extends ImporterTest {
         Assert.assertEquals((String) project.rows.get(0).cells.get(3).value, "data4");
     }
 
+    @Test
+    public void readInParallel() {
+        StringBuilder input = new StringBuilder("id,name,value\r\n");
+        for (int i = 0; i < 1000; i++) {
+            input.append(i).append(",\"name, \"\"").append(i).append("\"\"\",").append(i).append(".5\r\n");
+        }
+        SUT.parserThreads = 4;
+        SUT.chunkSize = 64;
+        prepareOptions(",", -1, 0, 0, 1, true, false);
+
+        parseOneFile(SUT, new StringReader(input.toString()));
+
+        Assert.assertEquals(project.columnModel.columns.get(1).getName(), "name");
+        Assert.assertEquals(project.rows.size(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(project.rows.get(i).cells.get(0).value, (long) i);
+            Assert.assertEquals(project.rows.get(i).cells.get(1).value, "name, \"" + i + "\"");
+            Assert.assertEquals(project.rows.get(i).cells.get(2).value, i + 0.5);
+        }
+    }
+
+    @Test
+    public void readInParallelWithMultilineValues() {
+        StringBuilder input = new StringBuilder("id,text\n");
+        for (int i = 0; i < 100; i++) {
+            input.append(i).append(i == 50 ? ",\"first line\nsecond line\"\n" : ",text\n");
+        }
+        SUT.parserThreads = 4;
+        SUT.chunkSize = 32;
+        prepareOptions(",", -1, 0, 0, 1, false, false);
+
+        parseOneFile(SUT, new StringReader(input.toString()));
+
+        Assert.assertEquals(project.rows.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(project.rows.get(i).cells.get(0).value, Integer.toString(i));
+            Assert.assertEquals(project.rows.get(i).cells.get(1).value, i == 50 ? "first line\nsecond line" : "text");
+        }
+    }
+
+    @Test
+    public void readInParallelLikeSequentially() {
+        String[] pieces = { "a", "12", "3.5", " ", ",", "\"", "\"\"", "\n", "\r\n", "\t", "#", "" };
+        Random random = new Random(42);
+        prepareOptions(",", -1, 0, 1, 1, true, false);
+        for (int i = 0; i < 300; i++) {
+            StringBuilder input = new StringBuilder("ignored\nh1,h2\n");
+            int length = random.nextInt(200);
+            for (int j = 0; j < length; j++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+            for (int chunkSize : new int[] { 1, 8, 32 }) {
+                Assert.assertEquals(readRows(input.toString(), 4, chunkSize), readRows(input.toString(), 1, chunkSize),
+                        input.toString());
+            }
+        }
+    }
+
+    @Test
+    public void readInParallelOnlyAheadOfNeed() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append(i).append(",value\n");
+        }
+        int[] read = { 0 };
+        Reader reader = new StringReader(input.toString()) {
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                read[0] += Math.max(0, count);
+                return count;
+            }
+        };
+        CsvParserSettings settings = new CsvParserSettings();
+        settings.getFormat().setLineSeparator("\n");
+
+        try (ParallelCsvReader parallelReader = new ParallelCsvReader(reader, settings, 1, false, false, 4, 64)) {
+            Assert.assertEquals(parallelReader.getNextRowOfCells(), Arrays.asList("0", "value"));
+        }
+        // a reader stopping after the first row, such as a preview, does not read many chunks ahead
+        Assert.assertTrue(read[0] <= 2 * 64, "read " + read[0] + " characters");
+    }
+
+    @Test
+    public void readFilesInParallelLikeSequentially() throws IOException {
+        List<ObjectNode> fileRecords = new ArrayList<>();
+        for (int f = 0; f < 12; f++) {
+            StringBuilder input = new StringBuilder(f % 3 == 0 ? "id,name\n" : f % 3 == 1 ? "name,id,extra\n" : "other,id\n");
+            for (int i = 0; i < 50 * f; i++) {
+                input.append(f).append(',').append(i).append(f % 3 == 1 ? ",x\n" : "\n");
+            }
+            FileUtils.writeStringToFile(new File(job.getRawDataDir(), "file" + f + ".csv"), input.toString(), "UTF-8");
+            fileRecords.add(ParsingUtilities.evaluateJsonStringToObjectNode(
+                    String.format("{\"location\": \"file%d.csv\", \"fileName\": \"file%d.csv\"}", f, f)));
+        }
+        ObjectNode options = ParsingUtilities.evaluateJsonStringToObjectNode(
+                "{\"separator\": \",\", \"headerLines\": 1, \"guessCellValueTypes\": true, \"includeFileSources\": true}");
+
+        List<List<Object>> sequentially = importFiles(fileRecords, options, 1);
+        List<List<Object>> inParallel = importFiles(fileRecords, options, 4);
+
+        Assert.assertEquals(inParallel.get(0), Arrays.asList("File", "id", "name", "extra", "other"));
+        Assert.assertEquals(inParallel.size(), 1 + 50 * 66);
+        Assert.assertEquals(inParallel, sequentially);
+    }
+
     // ---------------------guess separators------------------------
 
     @Test
@@ -724,6 +841,55 @@ public class SeparatorBasedImporterTests extends ImporterTest {
         whenGetBooleanOption("includeArchiveFileName", options, includeArchiveFileName);
     }
 
+    private List<List<Object>> importFiles(List<ObjectNode> fileRecords, ObjectNode options, int parallelFiles) {
+        SeparatorBasedImporter importer = new SeparatorBasedImporter();
+        importer.parallelFiles = parallelFiles;
+        Project project = new Project();
+        ProjectMetadata metadata = new ProjectMetadata();
+        List<Exception> exceptions = new ArrayList<>();
+        importer.parse(project, metadata, job, fileRecords, "text/csv", -1, options, exceptions);
+        project.update();
+        Assert.assertEquals(exceptions.size(), 0);
+        Assert.assertEquals(metadata.getImportOptionMetadata().size(), fileRecords.size());
+        Assert.assertEquals(metadata.getImportOptionMetadata().get(5).get("fileSource").asText(), "file5.csv");
+
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(new ArrayList<>(project.columnModel.getColumnNames()));
+        for (Row row : project.rows) {
+            List<Object> values = new ArrayList<>();
+            for (Column column : project.columnModel.columns) {
+                Cell cell = row.getCell(column.getCellIndex());
+                values.add(cell != null ? cell.value : null);
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    private List<List<Object>> readRows(String input, int parserThreads, int chunkSize) {
+        SeparatorBasedImporter importer = new SeparatorBasedImporter();
+        importer.parserThreads = parserThreads;
+        importer.chunkSize = chunkSize;
+        Project project = new Project();
+        List<Exception> exceptions = new ArrayList<>();
+        importer.parseOneFile(project, metadata, job, "file-source", new StringReader(input), -1, options, exceptions);
+        project.update();
+
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(new ArrayList<>(project.columnModel.getColumnNames()));
+        for (Row row : project.rows) {
+            List<Object> values = new ArrayList<>();
+            for (Cell cell : row.cells) {
+                values.add(cell != null ? cell.value : null);
+            }
+            rows.add(values);
+        }
+        for (Exception exception : exceptions) {
+            rows.add(Collections.singletonList(exception.getClass().getName()));
+        }
+        return rows;
+    }
+
     private List<ObjectNode> prepareFileRecords(final String FILE) throws IOException {
         String filename = ClassLoader.getSystemResource(FILE).getPath();
         // File is assumed to be in job.getRawDataDir(), so copy it there
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.operations.column.ColumnRenameOperation;
+import com.google.refine.util.Pool;
+import com.google.refine.util.TestUtils;
+
+public class ProjectUtilitiesTests extends RefineTest {
+
+    Project project;
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder("id,name\n");
+        int rowCount = 2 * ProjectUtilities.ROW_BLOCK_SIZE + 5;
+        for (int i = 0; i < rowCount; i++) {
+            sb.append(i).append(",name ").append(i % 17).append('\n');
+        }
+        project = createCSVProject(sb.toString());
+        Recon recon = new Recon(1L, "http://my.space", "http://my.schema");
+        project.rows.get(ProjectUtilities.ROW_BLOCK_SIZE + 1).setCell(1, new Cell("reconciled", recon));
+        dir = TestUtils.createTempDirectory("openrefine-project-utilities-test");
+    }
+
+    @Test
+    public void testSaveAndLoadRowBlocks() throws Exception {
+        File file = new File(dir, "data.zip");
+        ProjectUtilities.saveToFile(project, file);
+
+        try (ZipFile zipFile = new ZipFile(file)) {
+            assertNotNull(zipFile.getEntry("project.txt"));
+            assertNotNull(zipFile.getEntry("rows/2.txt"));
+            assertNull(zipFile.getEntry("rows/3.txt"));
+            assertNull(zipFile.getEntry("data.txt"));
+        }
+
+        assertSameRows(ProjectUtilities.loadFromFile(file, project.id), project);
+    }
+
+    @Test
+    public void testLoadLegacyArchive() throws Exception {
+        File file = new File(dir, "data.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            Pool pool = new Pool();
+            out.putNextEntry(new ZipEntry("data.txt"));
+            project.saveToOutputStream(out, pool);
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("pool.txt"));
+            pool.save(out);
+            out.closeEntry();
+        }
+
+        assertSameRows(ProjectUtilities.loadFromFile(file, project.id), project);
+    }
+
+    protected void assertSameRows(Project loaded, Project expected) {
+        assertEquals(loaded.columnModel.getColumnNames(), expected.columnModel.getColumnNames());
+        assertEquals(loaded.rows.size(), expected.rows.size());
+        for (int i = 0; i < expected.rows.size(); i++) {
+            assertEquals(loaded.rows.get(i).toString(), expected.rows.get(i).toString());
+        }
+        Cell reconciled = loaded.rows.get(ProjectUtilities.ROW_BLOCK_SIZE + 1).getCell(1);
+        assertEquals(reconciled.recon.identifierSpace, "http://my.space");
+    }
+
+    protected void renameColumn(Project project, String oldName, String newName) throws Exception {
+        new ColumnRenameOperation(oldName, newName).createProcess(project, new Properties()).performImmediate();
+    }
+
+    @Test
+    public void testIncrementalSave() throws Exception {
+        FileProjectManager.initialize(TestUtils.createTempDirectory("openrefine-journal-test"));
+        Project project = createCSVProject("a,b\n1,2\n");
+        File projectDir = ((FileProjectManager) ProjectManager.singleton).getProjectDir(project.id);
+        File journal = new File(projectDir, ProjectUtilities.JOURNAL_FILE);
+        File snapshot = new File(projectDir, "data.zip");
+
+        ProjectUtilities.save(project);
+        assertTrue(snapshot.exists());
+        assertFalse(journal.exists());
+        byte[] snapshotContents = Files.readAllBytes(snapshot.toPath());
+
+        renameColumn(project, "a", "c");
+        ProjectUtilities.save(project);
+        renameColumn(project, "b", "d");
+        ProjectUtilities.save(project);
+
+        // only the journal was written
+        assertTrue(journal.exists());
+        assertEquals(Files.readAllBytes(snapshot.toPath()), snapshotContents);
+        assertEquals(Files.readAllLines(journal.toPath()).size(), 3);
+
+        Project loaded = ProjectUtilities.load(projectDir, project.id);
+        assertEquals(loaded.columnModel.getColumnNames(), Arrays.asList("c", "d"));
+        assertEquals(loaded.history.getLastPastEntries(0).size(), 2);
+
+        // undoing rewrites the history, which requires a full save
+        project.history.undoRedo(project.history.getPrecedingEntryID(project.history.getLastPastEntries(1).get(0).id));
+        ProjectUtilities.save(project);
+        assertFalse(journal.exists());
+        loaded = ProjectUtilities.load(projectDir, project.id);
+        assertEquals(loaded.columnModel.getColumnNames(), Arrays.asList("c", "b"));
+    }
+
+    @Test
+    public void testReplayJournalSkipsEntriesInSnapshot() throws Exception {
+        FileProjectManager.initialize(TestUtils.createTempDirectory("openrefine-journal-test"));
+        Project project = createCSVProject("a,b\n1,2\n");
+        File projectDir = ((FileProjectManager) ProjectManager.singleton).getProjectDir(project.id);
+        File journal = new File(projectDir, ProjectUtilities.JOURNAL_FILE);
+
+        ProjectUtilities.save(project);
+        renameColumn(project, "a", "c");
+        ProjectUtilities.save(project);
+        byte[] journalContents = Files.readAllBytes(journal.toPath());
+
+        // simulate a crash between writing a full snapshot and discarding the journal
+        renameColumn(project, "b", "d");
+        ProjectUtilities.save(project, true);
+        assertFalse(journal.exists());
+        Files.write(journal.toPath(), journalContents);
+
+        Project loaded = ProjectUtilities.load(projectDir, project.id);
+        assertEquals(loaded.columnModel.getColumnNames(), Arrays.asList("c", "d"));
+        assertEquals(loaded.history.getLastPastEntries(0).size(), 2);
+        assertEquals(loaded.history.getUnsavedEntries().size(), 0);
+
+        // an entry truncated by a crash is ignored, and the journal is not appended to anymore
+        Files.write(journal.toPath(), "{\"id\":12".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        loaded = ProjectUtilities.load(projectDir, project.id);
+        assertEquals(loaded.columnModel.getColumnNames(), Arrays.asList("c", "d"));
+        assertNull(loaded.history.getUnsavedEntries());
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.expr.EvalError;
+
+public class CellDictionaryTests {
+
+    @Test
+    public void testEqualCellsAreShared() {
+        CellDictionary dictionary = new CellDictionary();
+        Cell first = new Cell("foo", null);
+        Cell second = new Cell("foo", null);
+
+        assertSame(dictionary.intern(0, first), first);
+        assertSame(dictionary.intern(0, second), first);
+        // cells are only shared within a column
+        assertSame(dictionary.intern(1, second), second);
+        assertEquals(dictionary.getSharedCellCount(), 1);
+    }
+
+    @Test
+    public void testCellsOfDifferentTypesAreNotShared() {
+        CellDictionary dictionary = new CellDictionary();
+        Cell longCell = new Cell(1L, null);
+        Cell doubleCell = new Cell(1.0, null);
+        Cell stringCell = new Cell("1", null);
+
+        assertSame(dictionary.intern(0, longCell), longCell);
+        assertSame(dictionary.intern(0, doubleCell), doubleCell);
+        assertSame(dictionary.intern(0, stringCell), stringCell);
+        assertSame(dictionary.intern(0, new Cell(1L, null)), longCell);
+    }
+
+    @Test
+    public void testReconciledCellsAndErrorsAreNotShared() {
+        CellDictionary dictionary = new CellDictionary();
+        Recon recon = new Recon(1L, "http://my.space", "http://my.schema");
+        Cell reconciled = new Cell("foo", recon);
+        Cell error = new Cell(new EvalError("error"), null);
+
+        assertSame(dictionary.intern(0, reconciled), reconciled);
+        assertNotSame(dictionary.intern(0, new Cell("foo", recon)), reconciled);
+        assertSame(dictionary.intern(0, error), error);
+        assertNotSame(dictionary.intern(0, new Cell(new EvalError("error"), null)), error);
+        assertEquals(dictionary.getSharedCellCount(), 0);
+    }
+
+    @Test
+    public void testColumnOfDistinctValuesIsSkipped() {
+        CellDictionary dictionary = new CellDictionary();
+        for (int i = 0; i < CellDictionary.SAMPLE_SIZE; i++) {
+            dictionary.intern(0, new Cell(Integer.toString(i), null));
+        }
+        Cell cell = new Cell("0", null);
+        assertSame(dictionary.intern(0, cell), cell);
+    }
+
+    @Test
+    public void testCompactProject() {
+        Project project = new Project();
+        for (int i = 0; i < 4; i++) {
+            Row row = new Row(10);
+            row.setCell(0, new Cell(i % 2 == 0 ? "even" : "odd", null));
+            row.setCell(1, new Cell((long) i, null));
+            project.rows.add(row);
+        }
+
+        assertEquals(CellDictionary.compact(project), 2);
+        assertSame(project.rows.get(2).getCell(0), project.rows.get(0).getCell(0));
+        assertSame(project.rows.get(3).getCell(0), project.rows.get(1).getCell(0));
+        assertEquals(project.rows.get(3).getCellValue(1), 3L);
+    }
+}
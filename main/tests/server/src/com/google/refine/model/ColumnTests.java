@@ -29,6 +29,16 @@ package com.google.refine.model;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.Test;
 
@@ -68,4 +78,36 @@ public class ColumnTests {
                 + "}}";
         TestUtils.isSerializedTo(Column.load(json), json);
     }
+
+    @Test
+    public void computePrecomputeOnce() throws Exception {
+        Column column = new Column(0, "name");
+        AtomicInteger computations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> column.computePrecomputeIfAbsent("key", () -> {
+                    computations.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            for (Future<Object> future : futures) {
+                assertSame(future.get(), column.getPrecompute("key"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(computations.get(), 1);
+    }
+
+    @Test
+    public void computeNestedPrecomputes() {
+        Column column = new Column(0, "name");
+        Object outer = column.computePrecomputeIfAbsent("outer", () -> column.computePrecomputeIfAbsent("inner", () -> "inner"));
+        assertEquals(outer, "inner");
+
+        column.clearPrecomputes();
+        assertNull(column.getPrecompute("outer"));
+    }
 }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.changes;
+
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.history.Change;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+import com.google.refine.util.Pool;
+
+public class MassRowChangeTests extends RefineTest {
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("a,b\n1,2\n3,4\n5,6\n7,8");
+    }
+
+    @Test
+    public void testOnlyChangedRowsAreKept() throws Exception {
+        List<Row> oldRows = new ArrayList<>(project.rows);
+        Row modified = oldRows.get(1).dup();
+        modified.setCell(0, new Cell("x", null));
+        Row inserted = new Row(2);
+        inserted.setCell(0, new Cell("y", null));
+        List<Row> newRows = new ArrayList<>();
+        newRows.add(oldRows.get(0));
+        newRows.add(modified);
+        newRows.add(inserted);
+        newRows.add(oldRows.get(2));
+
+        MassRowChange change = new MassRowChange(newRows);
+        change.apply(project);
+
+        Assert.assertEquals(project.rows, newRows);
+        String saved = save(change);
+        // the rows left untouched are not saved
+        Assert.assertFalse(saved.contains("\"1\""));
+        Assert.assertFalse(saved.contains("\"5\""));
+
+        Change loaded = MassRowChange.load(new LineNumberReader(new StringReader(saved)), new Pool());
+        loaded.revert(project);
+        Assert.assertEquals(values(project.rows), values(oldRows));
+        loaded.apply(project);
+        Assert.assertEquals(values(project.rows), values(newRows));
+    }
+
+    @Test
+    public void testLegacyChangesCanBeLoaded() throws Exception {
+        List<Row> oldRows = new ArrayList<>(project.rows);
+        StringWriter writer = new StringWriter();
+        MassRowChange.writeRows(writer, new Properties(), "newRowCount", oldRows.subList(0, 2));
+        MassRowChange.writeRows(writer, new Properties(), "oldRowCount", oldRows);
+        writer.write("/ec/\n");
+
+        Change loaded = MassRowChange.load(new LineNumberReader(new StringReader(writer.toString())), new Pool());
+        loaded.apply(project);
+        Assert.assertEquals(values(project.rows), values(oldRows.subList(0, 2)));
+        loaded.revert(project);
+        Assert.assertEquals(values(project.rows), values(oldRows));
+    }
+
+    private String save(Change change) throws Exception {
+        StringWriter writer = new StringWriter();
+        Properties options = new Properties();
+        options.put("pool", new Pool());
+        change.save(writer, options);
+        return writer.toString();
+    }
+
+    private List<Object> values(List<Row> rows) {
+        List<Object> values = new ArrayList<>();
+        for (Row row : rows) {
+            values.add(row.getCellValue(0));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.model.Recon;
+import com.google.refine.util.TestUtils;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class ServiceResponseCacheTests extends RefineTest {
+
+    static final String SERVICE = "http://localhost/api";
+
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = TestUtils.createTempDirectory("openrefine-service-cache");
+        ReconConfig.registerReconConfig(getCoreModule(), "standard-service", StandardReconConfig.class);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ServiceResponseCache.dispose();
+    }
+
+    @Test
+    public void testAnswersAreKeptAcrossRestarts() {
+        ServiceResponseCache cache = new ServiceResponseCache(dir, 60000, 1024 * 1024);
+        assertNull(cache.get(SERVICE, "{\"query\":\"a\"}"));
+        cache.put(SERVICE, "{\"query\":\"a\"}", "{\"result\":[]}");
+        assertEquals(cache.get(SERVICE, "{\"query\":\"a\"}"), "{\"result\":[]}");
+        assertNull(cache.get("http://localhost/other", "{\"query\":\"a\"}"));
+        assertEquals(cache.getHits(), 1);
+        assertEquals(cache.getMisses(), 2);
+        cache.close();
+
+        ServiceResponseCache reloaded = new ServiceResponseCache(dir, 60000, 1024 * 1024);
+        assertEquals(reloaded.getEntryCount(), 1);
+        assertEquals(reloaded.get(SERVICE, "{\"query\":\"a\"}"), "{\"result\":[]}");
+
+        reloaded.purge();
+        assertEquals(reloaded.getEntryCount(), 0);
+        assertNull(reloaded.get(SERVICE, "{\"query\":\"a\"}"));
+        assertEquals(new ServiceResponseCache(dir, 60000, 1024 * 1024).getEntryCount(), 0);
+    }
+
+    @Test
+    public void testMultilineAnswersAreKeptAcrossRestarts() {
+        String page = "<html>\n<body>C:\\temp\\new</body>\r\n</html>";
+        ServiceResponseCache cache = new ServiceResponseCache(dir, 60000, 1024 * 1024);
+        cache.put("http://localhost/page", "GET", page);
+        cache.close();
+
+        ServiceResponseCache reloaded = new ServiceResponseCache(dir, 60000, 1024 * 1024);
+        assertEquals(reloaded.getEntryCount(), 1);
+        assertEquals(reloaded.get("http://localhost/page", "GET"), page);
+    }
+
+    @Test
+    public void testAnswersExpire() throws InterruptedException {
+        ServiceResponseCache cache = new ServiceResponseCache(dir, 1, 1024 * 1024);
+        cache.put(SERVICE, "{\"query\":\"a\"}", "{\"result\":[]}");
+        Thread.sleep(10);
+
+        assertNull(cache.get(SERVICE, "{\"query\":\"a\"}"));
+        assertEquals(cache.getEntryCount(), 0);
+        cache.close();
+        assertEquals(new ServiceResponseCache(dir, 1, 1024 * 1024).getEntryCount(), 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAnswersAreDropped() {
+        int entrySize = ServiceResponseCache.ENTRY_OVERHEAD + 2 * "{\"result\":[]}".length();
+        ServiceResponseCache cache = new ServiceResponseCache(dir, 60000, 2 * entrySize);
+        cache.put(SERVICE, "a", "{\"result\":[]}");
+        cache.put(SERVICE, "b", "{\"result\":[]}");
+        cache.get(SERVICE, "a");
+        cache.put(SERVICE, "c", "{\"result\":[]}");
+
+        assertEquals(cache.getEntryCount(), 2);
+        assertNull(cache.get(SERVICE, "b"));
+        assertEquals(cache.get(SERVICE, "a"), "{\"result\":[]}");
+        assertEquals(cache.get(SERVICE, "c"), "{\"result\":[]}");
+    }
+
+    @Test
+    public void testBatchReconOnlyQueriesUncachedJobs() throws Exception {
+        ServiceResponseCache.initialize(dir);
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            String url = server.url("/api").toString();
+            server.enqueue(new MockResponse().setBody(
+                    "{\"q0\":{\"result\":[{\"id\":\"Q1\",\"name\":\"a\",\"score\":100,\"match\":true,\"type\":[]}]}}"));
+            server.enqueue(new MockResponse().setBody(
+                    "{\"q0\":{\"result\":[{\"id\":\"Q2\",\"name\":\"b\",\"score\":100,\"match\":true,\"type\":[]}]}}"));
+
+            StandardReconConfig config = StandardReconConfig.reconstruct("{"
+                    + "\"mode\":\"standard-service\","
+                    + "\"service\":\"" + url + "\","
+                    + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                    + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                    + "\"autoMatch\":true,"
+                    + "\"columnDetails\":[]}");
+
+            List<Recon> first = config.batchRecon(Arrays.asList(job("a")), 1L);
+            List<Recon> second = config.batchRecon(Arrays.asList(job("a"), job("b")), 2L);
+
+            assertEquals(first.get(0).match.id, "Q1");
+            assertEquals(second.get(0).match.id, "Q1");
+            assertEquals(second.get(0).judgmentHistoryEntry, 2L);
+            assertEquals(second.get(1).match.id, "Q2");
+
+            assertEquals(server.getRequestCount(), 2);
+            server.takeRequest(5, TimeUnit.SECONDS);
+            RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+            String queries = URLDecoder.decode(request.getBody().readUtf8(), StandardCharsets.UTF_8);
+            assertEquals(queries, "queries={\"q0\":{\"query\":\"b\"}}");
+
+            ServiceResponseCache cache = ServiceResponseCache.getInstance();
+            assertEquals(cache.getEntryCount(), 2);
+            assertEquals(cache.getHits(), 1);
+            assertTrue(cache.getMisses() >= 2);
+        }
+    }
+
+    private static StandardReconConfig.StandardReconJob job(String text) {
+        StandardReconConfig.StandardReconJob job = new StandardReconConfig.StandardReconJob();
+        job.text = text;
+        job.code = "{\"query\":\"" + text + "\"}";
+        return job;
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.operations.cell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.util.ParallelRowEvaluator;
+import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.operations.OnError;
+
+public class TextTransformOperationTests extends RefineTest {
+
+    private Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("key\n");
+        String[] keys = { "a", "b", "b", "c", "c", "c" };
+        for (int i = 0; i < 120; i++) {
+            sb.append(keys[i % keys.length]).append('\n');
+        }
+        project = createCSVProject(sb.toString());
+    }
+
+    @Test
+    public void testFacetCountInParallelChunks() throws Exception {
+        TextTransformOperation operation = new TextTransformOperation(
+                EngineConfig.reconstruct("{\"mode\":\"row-based\",\"facets\":[]}"), "key",
+                "grel:value + ':' + facetCount(value, 'value', 'key')", OnError.KeepOriginal, false, 0);
+        Assert.assertTrue(operation.canVisitRowsInParallel(project));
+
+        int[] rowIndices = new int[project.rows.size()];
+        for (int i = 0; i < rowIndices.length; i++) {
+            rowIndices[i] = i;
+        }
+        for (int chunkSize : new int[] { 1, 7, 1000 }) {
+            // the counts are computed again by the first chunks asking for them
+            project.columnModel.getColumnByName("key").clearPrecomputes();
+
+            List<CellChange> cellChanges = new ArrayList<>();
+            ParallelRowEvaluator.visitInChunks(project, rowIndices, chunkSize,
+                    results -> operation.createRowVisitor(project, results, 0L), cellChanges);
+
+            Assert.assertEquals(cellChanges.size(), rowIndices.length);
+            for (int i = 0; i < rowIndices.length; i++) {
+                CellChange cellChange = cellChanges.get(i);
+                String key = (String) cellChange.oldCell.value;
+                Assert.assertEquals(cellChange.row, i);
+                Assert.assertEquals(cellChange.newCell.value, key + ":" + ("a".equals(key) ? 20 : "b".equals(key) ? 40 : 60));
+            }
+        }
+    }
+}
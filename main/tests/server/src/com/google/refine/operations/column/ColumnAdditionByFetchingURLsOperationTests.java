@@ -42,6 +42,7 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -67,6 +68,7 @@ import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
 
 import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -138,6 +140,112 @@ public class ColumnAdditionByFetchingURLsOperationTests extends RefineTest {
         TestUtils.isSerializedTo(process, String.format(processJson, process.hashCode()));
     }
 
+    @Test
+    public void serializeConcurrentFetching() throws Exception {
+        String concurrentJson = json.substring(0, json.length() - 1) + ",\"concurrency\":4,\"persistentCache\":true}";
+        ColumnAdditionByFetchingURLsOperation op = ParsingUtilities.mapper.readValue(concurrentJson,
+                ColumnAdditionByFetchingURLsOperation.class);
+        assertEquals(op.getConcurrency(), 4);
+        assertTrue(op.getPersistentCache());
+        TestUtils.isSerializedTo(op, concurrentJson);
+    }
+
+    /**
+     * Fetching concurrently must keep each response in the row of its URL.
+     */
+    @Test
+    public void testConcurrentFetching() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        // let the later requests overtake the earlier ones
+                        String id = request.getRequestUrl().queryParameter("id");
+                        Thread.sleep(200 - 10 * Integer.parseInt(id));
+                        return new MockResponse().setBody("response " + id);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+            });
+            server.start();
+            HttpUrl url = server.url("/concurrent");
+
+            for (int i = 0; i < 12; i++) {
+                Row row = new Row(2);
+                row.setCell(0, new Cell(Integer.toString(i), null));
+                project.rows.add(row);
+            }
+
+            EngineDependentOperation op = new ColumnAdditionByFetchingURLsOperation(engine_config,
+                    "fruits",
+                    "\"" + url + "?id=\"+value",
+                    OnError.StoreError,
+                    "response",
+                    1,
+                    0,
+                    false,
+                    null,
+                    4,
+                    false);
+
+            // 12 requests of up to 200 ms each, four at a time
+            runAndWait(op, 2000);
+
+            for (int i = 0; i < 12; i++) {
+                assertEquals(project.rows.get(i).getCellValue(1), "response " + i);
+            }
+            assertEquals(server.getRequestCount(), 12);
+            assertTrue(maxInFlight.get() > 1);
+            assertTrue(maxInFlight.get() <= 4);
+            server.shutdown();
+        }
+    }
+
+    /**
+     * A host which asks to retry later is paused and the URL fetched again once the client gives up.
+     */
+    @Test
+    public void testConcurrentFetchingRetryAfter() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            HttpUrl url = server.url("/retry");
+
+            Row row0 = new Row(2);
+            row0.setCell(0, new Cell("0", null));
+            project.rows.add(row0);
+
+            // the client itself retries three times
+            for (int i = 0; i < 4; i++) {
+                server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "0"));
+            }
+            server.enqueue(new MockResponse().setBody("done"));
+
+            EngineDependentOperation op = new ColumnAdditionByFetchingURLsOperation(engine_config,
+                    "fruits",
+                    "\"" + url + "?id=\"+value",
+                    OnError.StoreError,
+                    "response",
+                    1,
+                    0,
+                    false,
+                    null,
+                    2,
+                    false);
+
+            runAndWait(op, 5000);
+
+            assertEquals(project.rows.get(0).getCellValue(1), "done");
+            assertEquals(server.getRequestCount(), 5);
+            server.shutdown();
+        }
+    }
+
     /**
      * Test for caching
      */
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.operations.recon;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+public class ReconBatchControllerTests {
+
+    @Test
+    public void testGrowsWhileServiceKeepsUp() {
+        ReconBatchController controller = new ReconBatchController(10, 4);
+        assertEquals(controller.getConcurrency(), 1);
+        assertEquals(controller.getBatchSize(), 10);
+
+        for (int i = 0; i < 5; i++) {
+            controller.onSuccess(10, 100);
+        }
+        assertEquals(controller.getConcurrency(), 4);
+        assertEquals(controller.getBatchSize(), 10);
+        assertEquals(controller.getBackoffDelay(), 0);
+    }
+
+    @Test
+    public void testBacksOffWhenServiceSlowsDown() {
+        ReconBatchController controller = new ReconBatchController(10, 4);
+        controller.onSuccess(10, 100);
+        controller.onSuccess(10, 100);
+        assertEquals(controller.getConcurrency(), 3);
+
+        // four times slower per job than the fastest batch
+        controller.onSuccess(10, 400);
+        assertEquals(controller.getConcurrency(), 2);
+        assertEquals(controller.getBatchSize(), 10);
+    }
+
+    @Test
+    public void testHalvesOnOverload() {
+        ReconBatchController controller = new ReconBatchController(10, 4);
+        for (int i = 0; i < 5; i++) {
+            controller.onSuccess(10, 100);
+        }
+
+        controller.onOverload();
+        assertEquals(controller.getConcurrency(), 2);
+        assertEquals(controller.getBatchSize(), 5);
+        assertEquals(controller.getBackoffDelay(), ReconBatchController.INITIAL_BACKOFF);
+
+        controller.onOverload();
+        controller.onOverload();
+        assertEquals(controller.getConcurrency(), 1);
+        assertEquals(controller.getBatchSize(), 1);
+        assertEquals(controller.getBackoffDelay(), 4 * ReconBatchController.INITIAL_BACKOFF);
+
+        controller.onSuccess(1, 10);
+        assertEquals(controller.getConcurrency(), 2);
+        assertEquals(controller.getBatchSize(), 2);
+        assertEquals(controller.getBackoffDelay(), 0);
+    }
+}
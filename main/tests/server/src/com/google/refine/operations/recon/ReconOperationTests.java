@@ -30,15 +30,22 @@ package com.google.refine.operations.recon;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.refine.RefineTest;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.model.Column;
@@ -52,6 +59,11 @@ import com.google.refine.process.Process;
 import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
 
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
 public class ReconOperationTests extends RefineTest {
 
     private String json = "{"
@@ -149,4 +161,75 @@ public class ReconOperationTests extends RefineTest {
         Assert.assertNull(project.rows.get(1).getCell(0).recon);
         Assert.assertNull(project.rows.get(2).getCell(0).recon);
     }
+
+    @Test
+    public void testConcurrentBatchesAgainstStubService() throws Exception {
+        StringBuilder csv = new StringBuilder("column\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("value").append(i % 100).append('\n');
+        }
+        Project project = createCSVProject("concurrent recon test project", csv.toString());
+
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(50);
+                        if (requests.incrementAndGet() == 3) {
+                            return new MockResponse().setResponseCode(500); // overloaded once
+                        }
+                        String body = request.getBody().readUtf8();
+                        JsonNode queries = ParsingUtilities.mapper.readTree(
+                                URLDecoder.decode(body.substring("queries=".length()), StandardCharsets.UTF_8));
+                        ObjectNode response = ParsingUtilities.mapper.createObjectNode();
+                        for (Iterator<Map.Entry<String, JsonNode>> it = queries.fields(); it.hasNext();) {
+                            Map.Entry<String, JsonNode> query = it.next();
+                            String text = query.getValue().get("query").asText();
+                            response.set(query.getKey(), ParsingUtilities.mapper.readTree(
+                                    "{\"result\":[{\"id\":\"id-" + text + "\",\"name\":\"" + text
+                                            + "\",\"score\":100,\"match\":true,\"type\":[{\"id\":\"Q5\",\"name\":\"human\"}]}]}"));
+                        }
+                        return new MockResponse().setBody(response.toString());
+                    } catch (Exception e) {
+                        return new MockResponse().setResponseCode(400);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+            });
+            server.start();
+
+            String configJson = "{"
+                    + "\"mode\":\"standard-service\","
+                    + "\"service\":\"" + server.url("/api") + "\","
+                    + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                    + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                    + "\"type\":{\"id\":\"Q5\",\"name\":\"human\"},"
+                    + "\"autoMatch\":true,"
+                    + "\"batchSize\":5,"
+                    + "\"columnDetails\":[]}";
+            StandardReconConfig config = StandardReconConfig.reconstruct(configJson);
+            ReconOperation op = new ReconOperation(EngineConfig.reconstruct("{}"), "column", config);
+
+            Process process = op.createProcess(project, new Properties());
+            runAndWait(project.getProcessManager(), process, 10000);
+        }
+
+        // 100 distinct values in batches of 5 at most, the jobs of the rejected batch being sent again
+        Assert.assertTrue(requests.get() > 20);
+        Assert.assertTrue(maxInFlight.get() > 1);
+        for (int i = 0; i < 200; i++) {
+            Recon recon = project.rows.get(i).getCell(0).recon;
+            Assert.assertNotNull(recon, "row " + i);
+            Assert.assertEquals(recon.match.id, "id-value" + (i % 100));
+            Assert.assertEquals(recon.judgmentBatchSize, 2);
+        }
+    }
 }
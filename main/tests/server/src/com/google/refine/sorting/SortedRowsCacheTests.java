@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.sorting;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.Engine.Mode;
+import com.google.refine.model.Project;
+import com.google.refine.sorting.SortedRowsCache.SortedRows;
+
+public class SortedRowsCacheTests extends RefineTest {
+
+    String sortingJson = "{\"criteria\":[{\"valueType\":\"string\",\"column\":\"letter\","
+            + "\"blankPosition\":2,\"errorPosition\":1,\"reverse\":false,\"caseSensitive\":false}]}";
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder csv = new StringBuilder("letter,number\n");
+        Random random = new Random(17);
+        for (int i = 0; i < 100; i++) {
+            int letter = random.nextInt(6);
+            csv.append(letter == 5 ? "" : String.valueOf((char) ('a' + letter))).append(',').append(i).append('\n');
+        }
+        project = createCSVProject(csv.toString());
+    }
+
+    @Test
+    public void testSortIsStable() throws Exception {
+        SortedRowsCache cache = new SortedRowsCache();
+        SortedRows sortedRows = cache.getSortedRows(project, new Engine(project), SortingConfig.reconstruct(sortingJson), 10);
+
+        assertEquals(sortedRows.getFilteredCount(), 100);
+        assertEquals(sortedRows.getSortedCount(), 100);
+        for (int i = 1; i < 100; i++) {
+            String previous = (String) project.rows.get(sortedRows.get(i - 1)).getCellValue(0);
+            String current = (String) project.rows.get(sortedRows.get(i)).getCellValue(0);
+            if (current == null) {
+                // blanks last
+                continue;
+            }
+            int comparison = previous.compareTo(current);
+            assertTrue(comparison < 0 || (comparison == 0 && sortedRows.get(i - 1) < sortedRows.get(i)));
+        }
+    }
+
+    @Test
+    public void testRecordMode() throws Exception {
+        Engine engine = new Engine(project);
+        engine.setMode(Mode.RecordBased);
+        SortedRows sortedRows = new SortedRowsCache().getSortedRows(project, engine, SortingConfig.reconstruct(sortingJson), 10);
+
+        assertEquals(sortedRows.getFilteredCount(), project.recordModel.getRecordCount());
+    }
+
+    @Test
+    public void testPartialSortMatchesFullSort() {
+        Random random = new Random(3);
+        int[] values = new int[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(50);
+        }
+        Comparator<Integer> comparator = (i1, i2) -> Integer.compare(values[i1], values[i2]);
+        int[] indices = new int[values.length];
+        Integer[] expected = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            indices[i] = i;
+            expected[i] = i;
+        }
+        Arrays.sort(expected, comparator);
+
+        int[] first = SortedRowsCache.sortFirst(indices, indices.length, 300, comparator);
+
+        assertEquals(first.length, 300);
+        for (int i = 0; i < first.length; i++) {
+            assertEquals(first[i], (int) expected[i]);
+        }
+    }
+
+    @Test
+    public void testCacheIsReusedUntilFlushed() throws Exception {
+        SortedRowsCache cache = new SortedRowsCache(2);
+        Engine engine = new Engine(project);
+        SortingConfig sortingConfig = SortingConfig.reconstruct(sortingJson);
+
+        SortedRows sortedRows = cache.getSortedRows(project, engine, sortingConfig, 20);
+        assertSame(cache.getSortedRows(project, engine, SortingConfig.reconstruct(sortingJson), 40), sortedRows);
+        assertEquals(cache.size(), 1);
+
+        SortingConfig reversed = SortingConfig.reconstruct(sortingJson.replace("\"reverse\":false", "\"reverse\":true"));
+        assertNotSame(cache.getSortedRows(project, engine, reversed, 20), sortedRows);
+        assertEquals(cache.size(), 2);
+
+        cache.flushProject(project.id);
+        assertEquals(cache.size(), 0);
+        assertNotSame(cache.getSortedRows(project, engine, sortingConfig, 20), sortedRows);
+    }
+}
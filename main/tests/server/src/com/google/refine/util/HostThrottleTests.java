@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class HostThrottleTests {
+
+    @Test
+    public void testGetHost() {
+        assertEquals(HostThrottle.getHost("https://Example.org:8080/path?q=1"), "example.org");
+        assertEquals(HostThrottle.getHost("not a url"), "");
+        assertEquals(HostThrottle.getHost("mailto:someone@example.org"), "");
+    }
+
+    @Test
+    public void testConcurrentRequestsAreLimitedPerHost() throws Exception {
+        HostThrottle throttle = new HostThrottle(2, 0);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger otherHost = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    throttle.acquire("a.org");
+                    try {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        // requests to another host are not held back
+                        throttle.acquire("b.org");
+                        otherHost.incrementAndGet();
+                        throttle.release("b.org");
+                        Thread.sleep(20);
+                        inFlight.decrementAndGet();
+                    } finally {
+                        throttle.release("a.org");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(maxInFlight.get(), 2);
+        assertEquals(otherHost.get(), 8);
+    }
+
+    @Test
+    public void testDelayAndPause() throws Exception {
+        HostThrottle throttle = new HostThrottle(4, 100);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("a.org");
+            throttle.release("a.org");
+        }
+        assertTrue(System.currentTimeMillis() - start >= 200);
+
+        throttle.pause("a.org", 300);
+        start = System.currentTimeMillis();
+        throttle.acquire("a.org");
+        throttle.release("a.org");
+        assertTrue(System.currentTimeMillis() - start >= 250);
+    }
+}
@@ -5,6 +5,9 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 import java.util.regex.Pattern;
 
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+
 public class HttpClientTests {
 
     @Test
@@ -26,4 +29,16 @@ public class HttpClientTests {
         Assert.assertTrue(pattern3.matcher("random.domain.any.com").matches());
         Assert.assertTrue(pattern3.matcher("myhosts.mydomain.mine").matches());
     }
+
+    @Test
+    public void getRetryAfter() {
+        BasicHttpResponse response = new BasicHttpResponse(429);
+        Assert.assertEquals(HttpClient.getRetryAfter(response), -1);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "3");
+        Assert.assertEquals(HttpClient.getRetryAfter(response), 3000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2015 07:28:00 GMT");
+        Assert.assertEquals(HttpClient.getRetryAfter(response), 0);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "soon");
+        Assert.assertEquals(HttpClient.getRetryAfter(response), -1);
+    }
 }
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (C) 2018, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class NumberScannerTests {
+
+    static final String[] SAMPLES = {
+            "0", "-0", "+0", "12", "-12", "+12", "00012", "9223372036854775807", "-9223372036854775808",
+            "9223372036854775808", "-9223372036854775809", "99999999999999999999", "١٢٣",
+            "1.5", "-1.5", "+.5", ".5", "5.", "0.05", "-0.0", "1e3", "1E-3", "1.5e+10", "1e22", "1e23", "123456789012345678",
+            "0.1", "0.30000000000000004", "3.141592653589793238", "1e308", "1e309", "1e-400", "4.9e-324", "2.2250738585072014E-308",
+            "1.1f", "1.1d", "2D", "3F", "0x1p3", "-0X1.8p1", "NaN", "-Infinity", "+Infinity",
+            " 12", "12 ", " 1.5 ", "\t7\n", "\u000112",
+            "", " ", "-", "+", ".", "-.", "e1", "1e", "1e+", "1e-", "1.2.3", "1,5", "1_000", "12abc", "abc", "Infinityd", "nan",
+            "--1", "+-1", "1e1.5", "0x", "1ee2", "1.5ff", "$12", "12%", " 12"
+    };
+
+    @Test
+    public void testSamplesLikeTheJdk() {
+        for (String sample : SAMPLES) {
+            assertEquals(NumberScanner.parseLong(sample), jdkLong(sample), sample);
+            assertEquals(NumberScanner.parseDouble(sample), jdkDouble(sample), sample);
+        }
+    }
+
+    @Test
+    public void testRandomDoublesLikeTheJdk() {
+        Random rnd = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            double d;
+            switch (i % 4) {
+                case 0:
+                    d = rnd.nextDouble() * 10000;
+                    break;
+                case 1:
+                    d = Math.round(rnd.nextDouble() * 1000000) / 100.0;
+                    break;
+                case 2:
+                    d = Double.longBitsToDouble(rnd.nextLong());
+                    break;
+                default:
+                    d = rnd.nextGaussian() * Math.pow(10, rnd.nextInt(40) - 20);
+            }
+            String s = Double.toString(d);
+            assertEquals(NumberScanner.parseDouble(s), jdkDouble(s), s);
+            String plain = String.format("%.6f", d);
+            assertEquals(NumberScanner.parseDouble(plain), jdkDouble(plain), plain);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(NumberScanner.parse("42"), 42L);
+        assertEquals(NumberScanner.parse("4.2"), 4.2);
+        assertEquals(NumberScanner.parse(" 42"), 42.0);
+        assertEquals(NumberScanner.parse("x 42 y", 2, 4), 42L);
+        assertNull(NumberScanner.parse("forty-two"));
+    }
+
+    private static Long jdkLong(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double jdkDouble(String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}